@@ -0,0 +1,282 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cli.DataParser.MalformedDataException;
+import graphStructures.CompactGraph;
+
+/**
+ * This class represents a campus map and its buildings loaded from a precompiled binary file,
+ * and converts the text data files into that format.
+ * <p>
+ * The file starts with the magic number "UWPF", the format version, the number of nodes n and
+ * the number of edges m.  Then come the x and y coordinates of the n nodes in ascending order,
+ * the n + 1 edge offsets, the m edge targets, and the m edge weights, as in a CompactGraph.  The
+ * building table follows, as a count and then the abbreviation, long name, x, and y of each
+ * building.  Numbers are big-endian and strings are modified UTF-8.
+ *
+ * @author Dan Tran
+ *
+ */
+public class BinaryMap {
+    // This class represents a campus map and its buildings loaded from a precompiled binary file.
+
+    // Representation Invariant: campusMap and buildings != null.
+
+    // Abstraction Function: campusMap is the map of paths in the file and buildings maps the
+    // abbreviation of each building in the file to the building.
+
+    private static final int MAGIC = 0x55575046;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final CampusMap campusMap;
+    private final Map<String, Building> buildings;
+
+    // Constructs a BinaryMap of the given map and buildings.
+    private BinaryMap(CampusMap campusMap, Map<String, Building> buildings) {
+        this.campusMap = campusMap;
+        this.buildings = buildings;
+    }
+
+    /**
+     * Reads the campus map and buildings in the given binary file, finding paths with
+     * Dijkstra's algorithm.
+     * @param filename The name of the file written by convert.
+     * @requires filename != null
+     * @return The campus map and buildings in the given binary file.
+     * @throws IOException if the file can not be read, is not a binary map file, or is corrupt.
+     */
+    public static BinaryMap load(String filename) throws IOException {
+        return load(filename, SearchMode.DIJKSTRA);
+    }
+
+    /**
+     * Reads the campus map and buildings in the given binary file.  The whole file is read into
+     * memory at once and the arrays of the map are copied out of it in bulk.
+     * @param filename The name of the file written by convert.
+     * @param mode The search mode used by the campus map.
+     * @requires filename and mode != null
+     * @return The campus map and buildings in the given binary file.
+     * @throws IOException if the file can not be read, is not a binary map file, or is corrupt.
+     */
+    public static BinaryMap load(String filename, SearchMode mode) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a binary map file: " + filename);
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full
+            }
+            buffer.flip();
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a binary map file: " + filename);
+        }
+        int n = buffer.getInt();
+        int m = buffer.getInt();
+        if (n < 0 || m < 0 || buffer.remaining() < 16L * n + 4L * (n + 1) + 12L * m) {
+            throw new IOException("Truncated binary map file: " + filename);
+        }
+
+        double[] coordinates = new double[2 * n];
+        buffer.asDoubleBuffer().get(coordinates);
+        buffer.position(buffer.position() + 8 * coordinates.length);
+        int[] offsets = new int[n + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + 4 * offsets.length);
+        int[] targets = new int[m];
+        buffer.asIntBuffer().get(targets);
+        buffer.position(buffer.position() + 4 * targets.length);
+        double[] weights = new double[m];
+        buffer.asDoubleBuffer().get(weights);
+        buffer.position(buffer.position() + 8 * weights.length);
+        List<CoordinatePoint> nodes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            nodes.add(new CoordinatePoint(coordinates[2 * i], coordinates[2 * i + 1]));
+        }
+        if (!validEdges(n, offsets, targets, weights) || !strictlyAscending(nodes)) {
+            throw new IOException("Corrupt binary map file: " + filename);
+        }
+        CampusMap campusMap = new CampusMap(new CompactGraph<>(nodes, offsets, targets, weights), mode);
+
+        Map<String, Building> buildings = new TreeMap<>();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+                buffer.array(), buffer.position(), buffer.remaining()));
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            String shortName = input.readUTF();
+            String longName = input.readUTF();
+            double x = input.readDouble();
+            double y = input.readDouble();
+            buildings.put(shortName, new Building(shortName, longName, x, y));
+        }
+        return new BinaryMap(campusMap, buildings);
+    }
+
+    /**
+     * Converts the given path and building data files into a binary map file.
+     * @param pathsFile The name of the path data file.
+     * @param buildingsFile The name of the building data file.
+     * @param outputFile The name of the binary map file to write.
+     * @requires pathsFile, buildingsFile, and outputFile != null
+     * @throws MalformedDataException if either data file is malformed.
+     * @throws IOException if the binary map file can not be written, or the map is too large
+     * for one.
+     */
+    public static void convert(String pathsFile, String buildingsFile, String outputFile)
+            throws MalformedDataException, IOException {
+        CompactGraph<CoordinatePoint> compact = new CompactGraph<>(DataParser.parsePathsMapped(pathsFile));
+        Map<String, Building> buildings = DataParser.parseBuildings(buildingsFile);
+        int n = compact.numNodes();
+        int m = compact.numEdges();
+        long size = HEADER_BYTES + 16L * n + 4L * (n + 1) + 12L * m;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Map is too large for a binary map file: " + pathsFile);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+        for (CoordinatePoint point : compact.nodes()) {
+            buffer.putDouble(point.getX()).putDouble(point.getY());
+        }
+        for (int i = 0; i < n; i++) {
+            buffer.putInt(compact.firstEdge(i));
+        }
+        buffer.putInt(m);
+        for (int e = 0; e < m; e++) {
+            buffer.putInt(compact.target(e));
+        }
+        for (int e = 0; e < m; e++) {
+            buffer.putDouble(compact.weight(e));
+        }
+        buffer.flip();
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(table);
+        output.writeInt(buildings.size());
+        for (Building building : buildings.values()) {
+            output.writeUTF(building.getShortName());
+            output.writeUTF(building.getLongName());
+            output.writeDouble(building.getX());
+            output.writeDouble(building.getY());
+        }
+        output.flush();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(outputFile), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ByteBuffer tableBuffer = ByteBuffer.wrap(table.toByteArray());
+            while (tableBuffer.hasRemaining()) {
+                channel.write(tableBuffer);
+            }
+        }
+    }
+
+    // Returns whether the given edge offsets, targets, and weights describe the edges of a graph
+    // of n nodes: the offsets start at 0, never decrease, and end at the number of targets,
+    // every target is the id of a node, and every weight is finite and non-negative.
+    private static boolean validEdges(int n, int[] offsets, int[] targets, double[] weights) {
+        if (offsets[0] != 0 || offsets[n] != targets.length) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                return false;
+            }
+        }
+        for (int target : targets) {
+            if (target < 0 || target >= n) {
+                return false;
+            }
+        }
+        for (double weight : weights) {
+            if (!(weight >= 0.0) || Double.isInfinite(weight)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns whether every point of nodes comes strictly after the one before it, so the
+    // points are sorted and unique as the node ids of a CompactGraph must be.
+    private static boolean strictlyAscending(List<CoordinatePoint> nodes) {
+        for (int i = 1; i < nodes.size(); i++) {
+            if (nodes.get(i - 1).compareTo(nodes.get(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the campus map in the file.
+     * @return The campus map in the file.
+     */
+    public CampusMap getCampusMap() {
+        return campusMap;
+    }
+
+    /**
+     * Returns a map from the abbreviation of each building in the file to the building.
+     * @return A map from the abbreviation of each building in the file to the building.
+     */
+    public Map<String, Building> getBuildings() {
+        return buildings;
+    }
+
+    /**
+     * Converts the path and building data files named by the first two arguments into the
+     * binary map file named by the third.
+     * @param args The path data file, the building data file, and the binary map file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: java cli.BinaryMap <paths.dat> <buildings.dat> <output>");
+            System.exit(1);
+        }
+        try {
+            convert(args[0], args[1], args[2]);
+        } catch (MalformedDataException e) {
+            System.err.println("Error: Malformed data file");
+            e.printStackTrace();
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error: Could not write " + args[2]);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
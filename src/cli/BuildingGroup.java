@@ -0,0 +1,140 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This immutable class represents a logical building of the UW campus together with all of its
+ * entrances.  The buildings data lists each entrance as its own building, such as "BAG" and
+ * "BAG (NE)"; the entrances of one logical building share the short name before the part in
+ * parentheses.
+ *
+ * @author Dan Tran
+ *
+ */
+public class BuildingGroup {
+    // This immutable class represents a logical building of the UW campus and its entrances.
+
+    // Representation Invariant: name and entrances are not null, entrances is not empty, and
+    // the short name of every entrance is name, possibly followed by a part in parentheses.
+
+    // Abstraction Function: The logical building is called name, and can be entered or left
+    // through the location of any building in entrances.
+
+    private final String name;
+    private final List<Building> entrances;
+
+    /**
+     * Constructs a logical building with the given name and entrances.
+     * @param name The short name shared by the entrances.
+     * @param entrances The entrances of the building.
+     * @requires name and entrances != null, entrances is not empty, and the short name of every
+     * entrance is name, possibly followed by a part in parentheses.
+     * @effects Creates a new BuildingGroup object.
+     */
+    public BuildingGroup(String name, Collection<Building> entrances) {
+        this.name = name;
+        this.entrances = Collections.unmodifiableList(new ArrayList<>(entrances));
+        checkRep();
+    }
+
+    /**
+     * Groups the given buildings into logical buildings by the short name of their entrances.
+     * @param buildings The buildings to group, each of which is one entrance.
+     * @requires buildings != null and contains no null elements.
+     * @return A map from the name of each logical building to the building, sorted by name.
+     */
+    public static Map<String, BuildingGroup> group(Collection<Building> buildings) {
+        Map<String, List<Building>> entrances = new TreeMap<>();
+        for (Building building : buildings) {
+            String name = baseName(building.getShortName());
+            List<Building> list = entrances.get(name);
+            if (list == null) {
+                list = new ArrayList<>();
+                entrances.put(name, list);
+            }
+            list.add(building);
+        }
+        Map<String, BuildingGroup> groups = new TreeMap<>();
+        for (Map.Entry<String, List<Building>> entry : entrances.entrySet()) {
+            groups.put(entry.getKey(), new BuildingGroup(entry.getKey(), entry.getValue()));
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the short name of the logical building an entrance with the given short name
+     * belongs to, which is the name without any part in parentheses at its end.
+     * @param shortName The short name of an entrance.
+     * @requires shortName != null
+     * @return The short name of the logical building the entrance belongs to.
+     */
+    public static String baseName(String shortName) {
+        int open = shortName.indexOf(" (");
+        if (open > 0 && shortName.endsWith(")")) {
+            return shortName.substring(0, open);
+        }
+        return shortName;
+    }
+
+    /**
+     * Returns the short name of the logical building.
+     * @return The short name of the logical building.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the entrances of the logical building.
+     * @return An unmodifiable list of the entrances of the logical building.
+     */
+    public List<Building> getEntrances() {
+        return entrances;
+    }
+
+    /**
+     * Returns the entrance of the logical building at the given location.
+     * @param point The location of an entrance.
+     * @requires point != null
+     * @return The first entrance at point, or null if no entrance is there.
+     */
+    public Building getEntrance(CoordinatePoint point) {
+        for (Building entrance : entrances) {
+            if (entrance.getCoordinates().equals(point)) {
+                return entrance;
+            }
+        }
+        return null;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert name != null : "[BuildingGroup] name is null.";
+        assert !entrances.isEmpty() : "[BuildingGroup] building has no entrances.";
+        for (Building entrance : entrances) {
+            assert baseName(entrance.getShortName()).equals(name)
+                : "[BuildingGroup] entrance " + entrance.getShortName() + " is not part of " + name + ".";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+/**
+ * This immutable class represents a request for the route from one building to another.
+ *
+ * @author Dan Tran
+ *
+ */
+public class BuildingPair {
+    // This immutable class represents a request for the route from one building to another.
+
+    // Representation Invariant: start and dest are not null.
+
+    // Abstraction Function: The route requested goes from the building start to the building dest.
+
+    private final Building start;
+    private final Building dest;
+
+    /**
+     * Constructs a new request for the route from start to dest.
+     * @param start The starting building.
+     * @param dest The destination building.
+     * @requires start and dest != null.
+     * @effects Creates a new BuildingPair object.
+     */
+    public BuildingPair(Building start, Building dest) {
+        this.start = start;
+        this.dest = dest;
+        checkRep();
+    }
+
+    /**
+     * Returns the starting building of the route.
+     * @return The starting building of the route.
+     */
+    public Building getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the destination building of the route.
+     * @return The destination building of the route.
+     */
+    public Building getDest() {
+        return dest;
+    }
+
+    /**
+     * Returns whether o is a request for the route between the same buildings as this.
+     * @param o The object to compare to.
+     * @return true if o is a BuildingPair with the same start and dest as this.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BuildingPair)) {
+            return false;
+        }
+        BuildingPair other = (BuildingPair) o;
+        return start.equals(other.start) && dest.equals(other.dest);
+    }
+
+    /**
+     * Returns a hash code for this request.
+     * @return A hash code for this request.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + dest.hashCode();
+    }
+
+    /**
+     * Returns a string of the form "start -> dest" naming the buildings by their short names.
+     * @return A string representation of this request.
+     */
+    @Override
+    public String toString() {
+        return start.getShortName() + " -> " + dest.getShortName();
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert start != null : "[BuildingPair] start is null.";
+        assert dest != null : "[BuildingPair] dest is null.";
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+/**
+ * The eviction policies a RouteCache can use to decide which routes to keep.
+ *
+ * @author Dan Tran
+ *
+ */
+public enum CachePolicy {
+    /**
+     * Evicts the route used least recently.
+     */
+    LRU,
+
+    /**
+     * A small window of recently added routes in front of a segmented main area.  A route that
+     * leaves the window only displaces a route in the main area if an approximate count of
+     * recent requests for it is higher.  This keeps popular routes through bursts of one-off
+     * requests.
+     */
+    TINY_LFU
+}
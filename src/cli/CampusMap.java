@@ -16,18 +16,51 @@
 
 package cli;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToDoubleFunction;
 
 import cli.DataParser.MalformedDataException;
+import graphStructures.ArcFlags;
+import graphStructures.CompactGraph;
+import graphStructures.ContractionHierarchy;
+import graphStructures.DoubleGraph;
 import graphStructures.Graph;
 import graphStructures.GraphEdge;
-import graphStructures.GraphNode;
+import graphStructures.HubLabels;
+import graphStructures.Landmarks;
+import graphStructures.MultiLevelOverlay;
+import graphStructures.ShortestPathSearch;
 
 /**
  * This class represents a map of the campus and provides methods to find a path between buildings.
+ * <p>
+ * A map may be searched by many threads at once.  Each thread gets its own search workspace,
+ * sized to the map the first time the thread searches it and reused for every search after,
+ * so searching allocates nothing beyond the path it returns.  Identical searches made at the
+ * same time are run once, with every caller getting the path that one search finds.
+ * <p>
+ * Many routes can be found at once with findPaths, which spreads them over the common fork/join
+ * pool and answers all the routes from one starting point with a single shortest path tree
+ * when there are enough of them.  Distances alone, with no paths, can be found from one building
+ * to many with findDistances, or between every pair of two lists of buildings as a matrix.
+ * <p>
+ * Besides routes between buildings, findRoute finds the route between two logical buildings
+ * with one search from all the entrances of one to the nearest entrance of the other, and the
+ * route between any two coordinates by starting and ending it on the nearest path segments.
+ * The points where it joins them are virtual: the search treats them as extra nodes without
+ * adding them to the graph of paths.
  * 
  * @author Dan Tran
  *
@@ -35,22 +68,120 @@ import graphStructures.GraphNode;
 public class CampusMap {
     // This class represents a map of the campus and provides methods to find a path between buildings.
     
-    // Representation Invariant:  Graph is non null and is a balid graph.
+    // Representation Invariant:  compact is non null, and graph is either null or a balid graph
+    // that compact is a snapshot of as of its modifications-th change.
     
     // Abstraction Function:  The nodes of the graph represents location points and edges are traversable paths
     // between the location points.
 
-    private final Graph<CoordinatePoint, Double> graph;
+    private static final int TREE_MIN_ROUTES = 8;
+    private static final int LANDMARKS = 16;
+    private static final int REGION_ROWS = 8;
+    private static final int REGION_COLUMNS = 8;
+    private static final int[] OVERLAY_GRIDS = {16, 8, 4, 2};
+
+    private volatile Graph<CoordinatePoint, Double> graph;
+    private volatile CompactGraph<CoordinatePoint> compact;
+    private volatile long modifications;
+    private final SearchMode mode;
+    private final AtomicLong settled;
+    private final ThreadLocal<Workspace> workspaces;
+    private volatile RouteTable routes;
+    private volatile RouteCache cache;
+    private final ConcurrentHashMap<Flight, CompletableFuture<int[]>> flights;
+    private final AtomicLong deduplicated;
+    private volatile ContractionHierarchy<CoordinatePoint> hierarchy;
+    private volatile Landmarks<CoordinatePoint> landmarks;
+    private volatile ArcFlags<CoordinatePoint> flags;
+    private volatile MultiLevelOverlay<CoordinatePoint> overlay;
+    private volatile HubLabels<CoordinatePoint> labels;
+    private volatile SpatialIndex index;
+    private volatile SegmentIndex segments;
 
     /**
-     * Constructs a new CampusMap by parsing the datafile named by the given string.
+     * Constructs a new CampusMap by parsing the datafile named by the given string.  Paths
+     * are found using Dijkstra's algorithm.
      * @param datafile The name of the file that contains the location data.
      * @requires datafile != null and is a valid filename.
      * @effects Constructs a new CampusMap.
      */
     public CampusMap(String datafile) {
+        this(datafile, SearchMode.DIJKSTRA);
+    }
+
+    /**
+     * Constructs a new CampusMap by parsing the datafile named by the given string, which
+     * finds paths using the given search mode unless told otherwise.
+     * @param datafile The name of the file that contains the location data.
+     * @param mode The search mode used by findPath(Building, Building).
+     * @requires datafile != null and is a valid filename, and mode != null.
+     * @effects Constructs a new CampusMap.
+     */
+    public CampusMap(String datafile, SearchMode mode) {
+        this(parse(datafile), mode);
+    }
+
+    /**
+     * Constructs a new CampusMap over the given graph of paths, which finds paths using the
+     * given search mode unless told otherwise.
+     * @param graph The graph whose nodes are location points and whose edges are the paths
+     * between them, labeled with their lengths.
+     * @param mode The search mode used by findPath(Building, Building).
+     * @requires graph and mode != null, graph is not modified while this is being searched,
+     * and graph is only changed through the methods of Graph, not of the GraphNodes it returns,
+     * which its modification count does not see.
+     * @effects Constructs a new CampusMap.  If graph is changed afterwards, the map takes a
+     * new snapshot of it before its next search, rebuilds its route table, drops its
+     * contraction hierarchy, and invalidates its route cache.
+     */
+    public CampusMap(Graph<CoordinatePoint, Double> graph, SearchMode mode) {
+        this.graph = graph;
+        this.modifications = graph.getModificationCount();
+        this.compact = new CompactGraph<>(graph);
+        this.mode = mode;
+        this.settled = new AtomicLong();
+        this.workspaces = new ThreadLocal<>();
+        this.flights = new ConcurrentHashMap<>();
+        this.deduplicated = new AtomicLong();
+    }
+
+    /**
+     * Constructs a new CampusMap over the given graph of paths with primitive edge weights,
+     * which finds paths using the given search mode unless told otherwise.
+     * @param graph The graph whose nodes are location points and whose edges are the paths
+     * between them, weighted with their lengths.
+     * @param mode The search mode used by findPath(Building, Building).
+     * @requires graph and mode != null
+     * @effects Constructs a new CampusMap over a snapshot of graph, which is not affected by
+     * later changes to graph.
+     */
+    public CampusMap(DoubleGraph<CoordinatePoint> graph, SearchMode mode) {
+        this(new CompactGraph<>(graph), mode);
+    }
+
+    /**
+     * Constructs a new CampusMap over the given snapshot of a graph of paths, which finds paths
+     * using the given search mode unless told otherwise.
+     * @param compact The snapshot whose nodes are location points and whose edges are the paths
+     * between them, weighted with their lengths.
+     * @param mode The search mode used by findPath(Building, Building).
+     * @requires compact and mode != null
+     * @effects Constructs a new CampusMap.
+     */
+    public CampusMap(CompactGraph<CoordinatePoint> compact, SearchMode mode) {
+        this.compact = compact;
+        this.mode = mode;
+        this.settled = new AtomicLong();
+        this.workspaces = new ThreadLocal<>();
+        this.flights = new ConcurrentHashMap<>();
+        this.deduplicated = new AtomicLong();
+    }
+
+    // Returns the graph of paths in the given data file.
+    // throws IllegalArgumentException if the data file is malformed.
+    private static DoubleGraph<CoordinatePoint> parse(String datafile) {
         try {
-            graph = DataParser.parsePaths(datafile);
+            return DataParser.parsePathsPrimitive(datafile);
         } catch (MalformedDataException e) {
             System.err.println("Error: Malformed data file: " + datafile);
             e.printStackTrace();
@@ -61,53 +192,1118 @@ public class CampusMap {
     /**
      * Returns a map representing the shortest path from b1 to b2 and the distance between.
      * The path goes from the starting CoordinatePoint to the next CoordinatePoint,
-     * with the associated Double value the distance to get to that point.
+     * with the associated Double value the distance to get to that point.  If routes have been
+     * precomputed for both buildings, the path is looked up in the route table.
      * @param b1 The starting building.
      * @param b2 The destination building.
-     * @return A map representing the shortest path from b1 to b2 and the distance between.
+     * @return A map representing the shortest path from b1 to b2 and the distance between, or
+     * null if there is no path.
      */
     public Map<CoordinatePoint, Double> findPath(Building b1, Building b2) {
-        return Dijkstra(b1.getCoordinates(), b2.getCoordinates()).getPath();
+        current();
+        RouteTable table = routes;
+        if (table != null && table.contains(b1) && table.contains(b2)) {
+            return table.findPath(b1, b2);
+        }
+        return findPath(b1, b2, mode);
+    }
+
+    /**
+     * Returns a map representing the shortest path from b1 to b2 and the distance between,
+     * found using the given search mode.
+     * The path goes from the starting CoordinatePoint to the next CoordinatePoint,
+     * with the associated Double value the distance to get to that point.  If a route cache is
+     * set, the path is looked up there first and added to it if it is not found.  If the same
+     * search is already running for another caller, this waits for it and shares its path.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @param mode The search mode used to find the path.
+     * @requires mode != null
+     * @return A map representing the shortest path from b1 to b2 and the distance between, or
+     * null if there is no path.
+     */
+    public Map<CoordinatePoint, Double> findPath(Building b1, Building b2, SearchMode mode) {
+        CompactGraph<CoordinatePoint> compact = current();
+        return toMap(compact, route(compact, b1, b2, mode));
+    }
+
+    /**
+     * Returns the shortest route from b1 to b2, found as findPath(Building, Building) finds
+     * it.  Unlike the map findPath returns, the route keeps only the ids and segment lengths of
+     * its points and its total distance, and works out coordinates when they are asked for.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @return The shortest route from b1 to b2, or null if there is no path.
+     */
+    public Route findRoute(Building b1, Building b2) {
+        CompactGraph<CoordinatePoint> compact = current();
+        RouteTable table = routes;
+        if (table != null && table.contains(b1) && table.contains(b2)) {
+            return table.findRoute(b1, b2);
+        }
+        return toRoute(compact, route(compact, b1, b2, mode));
+    }
+
+    /**
+     * Returns the shortest route from b1 to b2, found with the given search mode as
+     * findPath(Building, Building, SearchMode) finds it.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @param mode The search mode used to find the route.
+     * @requires mode != null
+     * @return The shortest route from b1 to b2, or null if there is no path.
+     */
+    public Route findRoute(Building b1, Building b2, SearchMode mode) {
+        CompactGraph<CoordinatePoint> compact = current();
+        return toRoute(compact, route(compact, b1, b2, mode));
+    }
+
+    /**
+     * Returns the shortest route from any entrance of one logical building to any entrance of
+     * another.  If the route table has routes for every entrance, the shortest of the routes
+     * between entrances is looked up; otherwise one search is run from all the entrances of
+     * from at once, which stops as soon as it reaches an entrance of to.
+     * @param from The starting building.
+     * @param to The destination building.
+     * @requires from and to != null, and the coordinates of every entrance are points on this
+     * map.
+     * @return The shortest route from an entrance of from to an entrance of to, whose first and
+     * last points are the entrances it uses, or null if there is no route.
+     */
+    public Route findRoute(BuildingGroup from, BuildingGroup to) {
+        CompactGraph<CoordinatePoint> compact = current();
+        RouteTable table = routes;
+        if (table != null && covers(table, from) && covers(table, to)) {
+            Building bestStart = null;
+            Building bestDest = null;
+            double best = Double.POSITIVE_INFINITY;
+            for (Building b1 : from.getEntrances()) {
+                for (Building b2 : to.getEntrances()) {
+                    double distance = table.distance(b1, b2);
+                    if (distance < best) {
+                        best = distance;
+                        bestStart = b1;
+                        bestDest = b2;
+                    }
+                }
+            }
+            return bestStart == null ? null : table.findRoute(bestStart, bestDest);
+        }
+        int[] sources = ids(compact, from.getEntrances());
+        int[] targets = ids(compact, to.getEntrances());
+        ShortestPathSearch<CoordinatePoint> search = workspace(compact).search;
+        int[] path = search.findPath(sources, new double[sources.length], targets, new double[targets.length]);
+        settled.addAndGet(search.getSettledCount());
+        return toRoute(compact, path);
+    }
+
+    /**
+     * Returns the shortest route between the given coordinates, which need not be points of
+     * this map.  Each end is snapped to the nearest point on the nearest path segment, and the
+     * route may leave and join that segment at the point it was snapped to, in any direction
+     * the segment can be walked.  The map and its graph of paths are not changed.
+     * @param start The coordinates to start from.
+     * @param dest The coordinates to go to.
+     * @requires start and dest != null
+     * @return The shortest route from the point of the map's paths nearest to start to the one
+     * nearest to dest, whose ends are virtual points unless they are points of the map, or
+     * null if the map has no path segments or there is no route.
+     */
+    public Route findRoute(CoordinatePoint start, CoordinatePoint dest) {
+        CompactGraph<CoordinatePoint> compact = current();
+        SegmentIndex index = getSegmentIndex();
+        int s = index.nearest(start.getX(), start.getY());
+        int d = index.nearest(dest.getX(), dest.getY());
+        if (s < 0 || d < 0) {
+            return null;
+        }
+        double ts = index.fraction(s, start.getX(), start.getY());
+        double td = index.fraction(d, dest.getX(), dest.getY());
+        CoordinatePoint first = index.point(s, ts);
+        CoordinatePoint last = index.point(d, td);
+        // The virtual start has an edge to each end of its segment that can be walked towards,
+        // and each end of the destination's segment that can be walked from has one to it.
+        int[] sources = {index.getFrom(s), index.getTo(s)};
+        double[] sourceDistances = {part(ts, index.getBackwardWeight(s)), part(1.0 - ts, index.getForwardWeight(s))};
+        int[] targets = {index.getFrom(d), index.getTo(d)};
+        double[] targetDistances = {part(td, index.getForwardWeight(d)), part(1.0 - td, index.getBackwardWeight(d))};
+        double direct = Double.POSITIVE_INFINITY;
+        if (s == d && td >= ts) {
+            direct = part(td - ts, index.getForwardWeight(s));
+        } else if (s == d) {
+            direct = part(ts - td, index.getBackwardWeight(s));
+        }
+
+        ShortestPathSearch<CoordinatePoint> search = workspace(compact).search;
+        int[] path = search.findPath(sources, sourceDistances, targets, targetDistances);
+        settled.addAndGet(search.getSettledCount());
+        double firstWeight = 0.0;
+        double lastWeight = 0.0;
+        double total = Double.POSITIVE_INFINITY;
+        if (path != null) {
+            firstWeight = offset(path[0], sources, sourceDistances);
+            lastWeight = offset(path[path.length - 1], targets, targetDistances);
+            total = firstWeight + lastWeight;
+            for (int i = 1; i < path.length; i++) {
+                total += compact.edgeWeight(path[i - 1], path[i]);
+            }
+        }
+        if (direct <= total && direct < Double.POSITIVE_INFINITY) {
+            return new Route(compact, first, direct, new int[0], last, 0.0);
+        } else if (path == null) {
+            return null;
+        }
+        // An end snapped onto a point of the map is that point rather than a virtual one.
+        if (first.equals(compact.node(path[0]))) {
+            first = null;
+        }
+        if (last.equals(compact.node(path[path.length - 1]))) {
+            last = null;
+        }
+        return new Route(compact, first, firstWeight, path, last, lastWeight);
+    }
+
+    /**
+     * Returns the shortest paths for the given pairs of buildings, in the same order as the
+     * pairs.  Each path is found as findPath(Building, Building) would find it, except that
+     * when eight or more pairs that are not in the route table start at the same point, one
+     * shortest path tree is grown from that point with Dijkstra's algorithm and all of their
+     * paths are read from it.  The pairs are divided among the threads of the common fork/join
+     * pool by starting point.
+     * @param pairs The pairs of buildings to find the paths between.
+     * @requires pairs != null and contains no null elements.
+     * @return A list whose i-th element is the shortest path from the start to the dest of
+     * the i-th pair, as returned by findPath(Building, Building), or null if there is no path.
+     */
+    public List<Map<CoordinatePoint, Double>> findPaths(List<BuildingPair> pairs) {
+        CompactGraph<CoordinatePoint> compact = current();
+        Map<CoordinatePoint, List<Integer>> bySource = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            CoordinatePoint start = pairs.get(i).getStart().getCoordinates();
+            List<Integer> group = bySource.get(start);
+            if (group == null) {
+                group = new ArrayList<>();
+                bySource.put(start, group);
+            }
+            group.add(i);
+        }
+        int[][] groups = new int[bySource.size()][];
+        int g = 0;
+        for (List<Integer> group : bySource.values()) {
+            groups[g] = new int[group.size()];
+            for (int j = 0; j < group.size(); j++) {
+                groups[g][j] = group.get(j);
+            }
+            g++;
+        }
+        List<Map<CoordinatePoint, Double>> results = new ArrayList<>(Collections.nCopies(pairs.size(), null));
+        ForkJoinPool.commonPool().invoke(new BatchTask(compact, pairs, groups, results, 0, groups.length));
+        return results;
+    }
+
+    /**
+     * Returns the lengths of the shortest paths from source to each of the given buildings.
+     * If the route table has routes for all of them, the lengths are looked up; if the hub
+     * labels have been built, they are merged; otherwise one search is run from source that
+     * stops once every target is settled.  No paths are built.
+     * @param source The starting building.
+     * @param targets The destination buildings.
+     * @requires source and targets != null, and the coordinates of every building are points on
+     * this map.
+     * @return An array whose i-th entry is the length of the shortest path from source to the
+     * i-th target, or infinity if there is no path.
+     */
+    public double[] findDistances(Building source, List<Building> targets) {
+        CompactGraph<CoordinatePoint> compact = current();
+        double[] row = new double[targets.size()];
+        distances(compact, source, targets, ids(compact, targets), row);
+        return row;
+    }
+
+    /**
+     * Returns the matrix of the lengths of the shortest paths from each of the given sources
+     * to each of the given targets, with one search per source as in
+     * findDistances(Building, List).  The sources are divided among the threads of the common
+     * fork/join pool.  No paths are built.
+     * @param sources The starting buildings.
+     * @param targets The destination buildings.
+     * @requires sources and targets != null, and the coordinates of every building are points
+     * on this map.
+     * @return A matrix whose entry [i][j] is the length of the shortest path from the i-th
+     * source to the j-th target, or infinity if there is no path.
+     */
+    public double[][] findDistances(List<Building> sources, List<Building> targets) {
+        CompactGraph<CoordinatePoint> compact = current();
+        double[][] matrix = new double[sources.size()][targets.size()];
+        int[] targetIds = ids(compact, targets);
+        ForkJoinPool.commonPool().invoke(new DistanceTask(compact, sources, targets, targetIds, matrix,
+                                                          0, sources.size()));
+        return matrix;
+    }
+
+    /**
+     * Returns the length of the shortest path from b1 to b2, found by merging the hub labels
+     * of the two buildings.  The labels are built the first time they are needed.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @requires b1 and b2 != null, and the coordinates of both are points on this map.
+     * @return The length of the shortest path from b1 to b2, or infinity if there is none.
+     */
+    public double findDistance(Building b1, Building b2) {
+        CompactGraph<CoordinatePoint> compact = current();
+        return hubLabels(compact).distance(compact.id(b1.getCoordinates()), compact.id(b2.getCoordinates()));
+    }
+
+    /**
+     * Returns the number of calls to findPath that waited for an identical search already
+     * running for another caller instead of searching themselves.
+     * @return The number of calls to findPath that shared the path of another caller's search.
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    /**
+     * Puts the given route cache in front of the searches of this map, or takes the cache away
+     * if it is null.
+     * @param routeCache The cache of routes between points of this map, or null for none.
+     * @requires routeCache is not used by any other map.
+     * @modifies this
+     * @effects Makes findPath look up paths in routeCache and add the paths it finds.
+     */
+    public void setRouteCache(RouteCache routeCache) {
+        cache = routeCache;
+    }
+
+    /**
+     * Returns the route cache in front of the searches of this map.
+     * @return The route cache in front of the searches of this map, or null if there is none.
+     */
+    public RouteCache getRouteCache() {
+        return cache;
+    }
+
+    /**
+     * Precomputes the shortest routes between every pair of the given buildings, so that
+     * findPath(Building, Building) looks them up instead of searching.  Routes between other
+     * buildings and calls that name a search mode still search.
+     * @param buildings The buildings to precompute routes between.
+     * @requires buildings != null and the coordinates of every building are points on this map.
+     * @modifies this
+     * @effects Replaces any earlier table of routes with one for the given buildings.
+     * @return The table of routes between the given buildings.
+     */
+    public RouteTable precomputeRoutes(Collection<Building> buildings) {
+        RouteTable table = new RouteTable(current(), buildings);
+        routes = table;
+        return table;
+    }
+
+    /**
+     * Returns the table of routes used by findPath(Building, Building).
+     * @return The table of routes used by findPath(Building, Building), or null if no routes
+     * have been precomputed.
+     */
+    public RouteTable getRouteTable() {
+        return routes;
+    }
+
+    /**
+     * Returns the search mode used by findPath(Building, Building).
+     * @return The search mode used by findPath(Building, Building).
+     */
+    public SearchMode getSearchMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the contraction hierarchy used by the CONTRACTION_HIERARCHY search mode, building
+     * it if it has not been built or loaded yet.
+     * @return The contraction hierarchy of this map.
+     */
+    public ContractionHierarchy<CoordinatePoint> getHierarchy() {
+        ContractionHierarchy<CoordinatePoint> result = hierarchy;
+        if (result == null) {
+            synchronized (this) {
+                result = hierarchy;
+                if (result == null) {
+                    result = new ContractionHierarchy<>(getGraph());
+                    hierarchy = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the landmarks used by the ALT search mode, choosing them and finding their
+     * distances if that has not been done since the current snapshot of the map was taken.
+     * @return The landmarks of this map.
+     */
+    public Landmarks<CoordinatePoint> getLandmarks() {
+        return landmarks(current());
+    }
+
+    /**
+     * Returns the arc flags used by the ARC_FLAGS search mode, dividing the map into regions
+     * and finding the flags if that has not been done since the current snapshot of the map
+     * was taken.
+     * @return The arc flags of this map.
+     */
+    public ArcFlags<CoordinatePoint> getArcFlags() {
+        return arcFlags(current());
+    }
+
+    /**
+     * Returns the multi-level overlay used by the OVERLAY search mode, building it if this map
+     * has none or customizing it to the current snapshot of the map if the map has changed.
+     * @return The overlay of this map.
+     */
+    public MultiLevelOverlay<CoordinatePoint> getOverlay() {
+        return overlay(current());
+    }
+
+    /**
+     * Writes the contraction hierarchy of this map to the given file, building it first if needed.
+     * @param filename The name of the file to write the hierarchy to.
+     * @requires filename != null
+     * @throws IOException if the file can not be written.
+     */
+    public void saveHierarchy(String filename) throws IOException {
+        getHierarchy().save(filename);
+    }
+
+    /**
+     * Replaces the contraction hierarchy of this map with the one saved in the given file, so
+     * that the map does not have to be contracted again.
+     * @param filename The name of the file the hierarchy was saved to.
+     * @requires filename != null and the file was saved from a map of the same data file.
+     * @modifies this
+     * @effects Uses the hierarchy in the given file for the CONTRACTION_HIERARCHY search mode.
+     * @throws IOException if the file can not be read or does not match this map.
+     */
+    public void loadHierarchy(String filename) throws IOException {
+        hierarchy = ContractionHierarchy.load(getGraph(), filename);
+    }
+
+    /**
+     * Returns the spatial index over the points of the current snapshot of the graph of paths,
+     * building it the first time it is asked for after the snapshot was taken.
+     * @return The spatial index over the points of this map.
+     */
+    public SpatialIndex getSpatialIndex() {
+        CompactGraph<CoordinatePoint> compact = current();
+        SpatialIndex result = index;
+        if (result == null || result.getCompactGraph() != compact) {
+            // Two threads may both build an index for a new snapshot; either one will do.
+            result = new SpatialIndex(compact);
+            index = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the path segments of the current snapshot of the graph of paths,
+     * building it the first time it is asked for after the snapshot was taken.
+     * @return The index of the path segments of this map.
+     */
+    public SegmentIndex getSegmentIndex() {
+        CompactGraph<CoordinatePoint> compact = current();
+        SegmentIndex result = segments;
+        if (result == null || result.getCompactGraph() != compact) {
+            // Two threads may both build an index for a new snapshot; either one will do.
+            result = new SegmentIndex(compact);
+            segments = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the point of this map nearest to the given point, which need not be on the map.
+     * @param point The point to snap to the map.
+     * @requires point != null
+     * @return A point of this map nearest to point, or null if the map has no points.
+     */
+    public CoordinatePoint nearestPoint(CoordinatePoint point) {
+        return getSpatialIndex().nearest(point);
+    }
+
+    /**
+     * Returns the k points of this map nearest to the given point, which need not be on the
+     * map, nearest first.
+     * @param point The point to search from.
+     * @param k The number of points to find.
+     * @requires point != null and k >= 0
+     * @return The min(k, number of points) points of this map nearest to point, in order of
+     * increasing distance.
+     */
+    public List<CoordinatePoint> nearestPoints(CoordinatePoint point, int k) {
+        SpatialIndex spatial = getSpatialIndex();
+        List<CoordinatePoint> points = new ArrayList<>();
+        for (int node : spatial.nearest(point.getX(), point.getY(), k)) {
+            points.add(spatial.getCompactGraph().node(node));
+        }
+        return points;
+    }
+
+    /**
+     * Returns the hub labels used by findDistance, building them if they have not been built
+     * or loaded since the current snapshot of the map was taken.  The nodes are labeled in the
+     * reverse of the order the contraction hierarchy contracted them in, so the hierarchy is
+     * built first if needed.
+     * @return The hub labels of this map.
+     */
+    public HubLabels<CoordinatePoint> getHubLabels() {
+        return hubLabels(current());
     }
 
-    // Returns a WeightedPath representing the shortest path from sstart to sdest as described
-    // using Dijkstra's algorithm.
+    /**
+     * Writes the hub labels of this map to the given file, building them first if needed.
+     * @param filename The name of the file to write the labels to.
+     * @requires filename != null
+     * @throws IOException if the file can not be written.
+     */
+    public void saveHubLabels(String filename) throws IOException {
+        getHubLabels().save(filename);
+    }
+
+    /**
+     * Replaces the hub labels of this map with the ones saved in the given file, so that the
+     * map does not have to be labeled again.
+     * @param filename The name of the file the labels were saved to.
+     * @requires filename != null and the file was saved from a map of the same data file.
+     * @modifies this
+     * @effects Uses the labels in the given file for findDistance and distance matrices.
+     * @throws IOException if the file can not be read or does not match this map.
+     */
+    public void loadHubLabels(String filename) throws IOException {
+        labels = HubLabels.load(current(), filename);
+    }
+
+    /**
+     * Returns the snapshot of the graph of paths that searches run on.
+     * @return The snapshot of the graph of paths that searches run on.
+     */
+    public CompactGraph<CoordinatePoint> getCompactGraph() {
+        return current();
+    }
+
+    // Returns the graph of paths, building it from the snapshot if this was constructed from one.
+    private Graph<CoordinatePoint, Double> getGraph() {
+        Graph<CoordinatePoint, Double> result = graph;
+        if (result == null) {
+            synchronized (this) {
+                result = graph;
+                if (result == null) {
+                    result = compact.toGraph();
+                    modifications = result.getModificationCount();
+                    graph = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of nodes settled by all searches since this was created or the
+     * count was last reset.  Nodes settled by contraction hierarchy queries are counted by the
+     * hierarchy instead.
+     * @return The number of nodes settled by all searches since this was created or the
+     * count was last reset.
+     */
+    public long getSettledCount() {
+        return settled.get();
+    }
+
+    /**
+     * Resets the number of settled nodes to zero.
+     * @modifies this
+     * @effects Sets the number of settled nodes to zero.
+     */
+    public void resetSettledCount() {
+        settled.set(0);
+    }
+
+    // Returns the ids of the nodes in compact on the shortest path from b1 to b2 found with the
+    // given search mode, or null if there is no path.  Looks the path up in the route cache
+    // first and adds it there once found, and shares the search of another caller already
+    // searching for the same path.
+    private int[] route(CompactGraph<CoordinatePoint> compact, Building b1, Building b2, SearchMode mode) {
+        RouteCache routeCache = cache;
+        int source = compact.id(b1.getCoordinates());
+        int target = compact.id(b2.getCoordinates());
+        if (routeCache != null) {
+            int[] cached = routeCache.get(source, target, compact.isSymmetric());
+            // A newer snapshot may have been taken since compact, and its paths cached.
+            if (cached != null && compact == this.compact) {
+                return cached;
+            }
+        }
+        Flight key = new Flight(compact, source, target, mode);
+        CompletableFuture<int[]> flight = new CompletableFuture<>();
+        CompletableFuture<int[]> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            deduplicated.incrementAndGet();
+            return await(running);
+        }
+        try {
+            int[] path;
+            if (mode == SearchMode.CONTRACTION_HIERARCHY) {
+                path = hierarchySearch(compact, b1.getCoordinates(), b2.getCoordinates());
+            } else {
+                path = search(compact, b1.getCoordinates(), b2.getCoordinates(), mode);
+            }
+            if (routeCache != null && path != null) {
+                cache(routeCache, compact, source, target, path);
+            }
+            flight.complete(path);
+            return path;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    // Returns the ids of the nodes on the shortest path from sstart to sdest in the compact
+    // snapshot compact, found with the given search mode.  The A* modes use the straight-line distance
+    // as the heuristic, and the bidirectional A* mode the average of the straight-line distance
+    // to sdest and from sstart as the potential.  The ALT mode uses the landmark lower bound,
+    // and the ARC_FLAGS mode skips the edges not flagged for the region of sdest.  The OVERLAY
+    // mode queries the overlay, whose settled nodes are counted by the overlay itself.
+    // param compact The current snapshot of the graph of paths.
     // param sstart The starting coordinate point.
     // param sdest The destination coordinate point.
-    // return A WeightedPath representing the shortest path from sstart to sdest.
-    private WeightedPath Dijkstra(CoordinatePoint sstart, CoordinatePoint sdest) {
-        GraphNode<CoordinatePoint, Double> start = graph.getNode(sstart);
-        GraphNode<CoordinatePoint, Double> dest = graph.getNode(sdest);
-        PriorityQueue<WeightedPath> active = new PriorityQueue<>();
-        Set<GraphNode<CoordinatePoint, Double>> finished = new HashSet<>();
-        
-        active.add(new WeightedPath(start));
-        
-        while (!active.isEmpty()) {
-            WeightedPath minPath = active.remove();
-            GraphNode<CoordinatePoint, Double> minDest = minPath.dest;
-            
-            if (minDest.equals(dest)) {
-                return minPath;
-            }
-            
-            if (finished.contains(minDest)) {
-                continue;
-            }
-            
-            for (GraphEdge<CoordinatePoint, Double> edge : minDest.getChildren()) {
-                if (!finished.contains(edge.getNode())) {
-                    WeightedPath newPath = new WeightedPath(minPath.start);
-                    for (GraphEdge<CoordinatePoint, Double> oEdge : minPath.path) {
-                        newPath.push(oEdge);
+    // param mode The search mode to use, other than CONTRACTION_HIERARCHY.
+    // return The ids of the nodes on the shortest path from sstart to sdest, or null if sdest
+    // can not be reached from sstart.
+    private int[] search(CompactGraph<CoordinatePoint> compact, CoordinatePoint sstart, CoordinatePoint sdest,
+                         SearchMode mode) {
+        int source = compact.id(sstart);
+        int target = compact.id(sdest);
+        Workspace workspace = workspace(compact);
+        ShortestPathSearch<CoordinatePoint> search = workspace.search;
+        int[] path;
+        if (mode == SearchMode.ASTAR) {
+            path = search.findPath(source, target, workspace.guide(sstart, sdest, false));
+        } else if (mode == SearchMode.BIDIRECTIONAL) {
+            path = search.findBidirectionalPath(source, target, null);
+        } else if (mode == SearchMode.BIDIRECTIONAL_ASTAR) {
+            path = search.findBidirectionalPath(source, target, workspace.guide(sstart, sdest, true));
+        } else if (mode == SearchMode.ALT) {
+            path = search.findPath(source, target, workspace.guide(landmarks(compact), target));
+        } else if (mode == SearchMode.OVERLAY) {
+            return overlay(compact).findPath(source, target);
+        } else if (mode == SearchMode.ARC_FLAGS) {
+            path = search.findPath(source, target, null, arcFlags(compact).toward(target));
+        } else {
+            path = search.findPath(source, target, null);
+        }
+        settled.addAndGet(search.getSettledCount());
+        return path;
+    }
+
+    // Returns whether the route table has routes for every entrance of the given building.
+    private static boolean covers(RouteTable table, BuildingGroup group) {
+        for (Building entrance : group.getEntrances()) {
+            if (!table.contains(entrance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the ids in compact of the coordinates of the given buildings.
+    private static int[] ids(CompactGraph<CoordinatePoint> compact, List<Building> buildings) {
+        int[] ids = new int[buildings.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = compact.id(buildings.get(i).getCoordinates());
+        }
+        return ids;
+    }
+
+    // Writes the lengths of the shortest paths from source to the given targets, whose ids in
+    // compact are targetIds, into row.  Looks them up in the route table if it has them all,
+    // or else in the hub labels if they have been built, and otherwise searches from source
+    // until every target is settled.
+    private void distances(CompactGraph<CoordinatePoint> compact, Building source, List<Building> targets,
+                           int[] targetIds, double[] row) {
+        HubLabels<CoordinatePoint> hubs = labels;
+        RouteTable table = routes;
+        if (table != null && table.contains(source)) {
+            boolean all = true;
+            for (int j = 0; j < row.length && all; j++) {
+                all = table.contains(targets.get(j));
+            }
+            if (all) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = table.distance(source, targets.get(j));
+                }
+                return;
+            }
+        }
+        if (hubs != null && hubs.getGraph() == compact) {
+            int sourceId = compact.id(source.getCoordinates());
+            for (int j = 0; j < row.length; j++) {
+                row[j] = hubs.distance(sourceId, targetIds[j]);
+            }
+            return;
+        }
+        ShortestPathSearch<CoordinatePoint> search = workspace(compact).search;
+        search.findDistances(compact.id(source.getCoordinates()), targetIds, row);
+        settled.addAndGet(search.getSettledCount());
+    }
+
+    // Returns the hub labels of the snapshot compact, building them if the labels of this map
+    // were built for another snapshot or not at all.
+    private HubLabels<CoordinatePoint> hubLabels(CompactGraph<CoordinatePoint> compact) {
+        HubLabels<CoordinatePoint> result = labels;
+        if (result == null || result.getGraph() != compact) {
+            synchronized (this) {
+                result = labels;
+                if (result == null || result.getGraph() != compact) {
+                    result = new HubLabels<>(compact, getHierarchy().getOrder());
+                    labels = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Returns the landmarks of the snapshot compact, choosing them if the landmarks of this
+    // map were chosen on another snapshot or not at all.
+    private Landmarks<CoordinatePoint> landmarks(CompactGraph<CoordinatePoint> compact) {
+        Landmarks<CoordinatePoint> result = landmarks;
+        if (result == null || result.getGraph() != compact) {
+            synchronized (this) {
+                result = landmarks;
+                if (result == null || result.getGraph() != compact) {
+                    result = new Landmarks<>(compact, LANDMARKS);
+                    landmarks = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Returns the arc flags of the snapshot compact, finding them if the flags of this map
+    // were found on another snapshot or not at all.
+    private ArcFlags<CoordinatePoint> arcFlags(CompactGraph<CoordinatePoint> compact) {
+        ArcFlags<CoordinatePoint> result = flags;
+        if (result == null || result.getGraph() != compact) {
+            synchronized (this) {
+                result = flags;
+                if (result == null || result.getGraph() != compact) {
+                    int[] regions = grid(compact, REGION_ROWS, REGION_COLUMNS);
+                    result = new ArcFlags<>(compact, regions, REGION_ROWS * REGION_COLUMNS);
+                    flags = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Returns the overlay of the snapshot compact.  An overlay of an older snapshot with the
+    // same points is customized to compact, recomputing only the cells whose paths changed, and
+    // otherwise a new one is built.
+    private MultiLevelOverlay<CoordinatePoint> overlay(CompactGraph<CoordinatePoint> compact) {
+        MultiLevelOverlay<CoordinatePoint> result = overlay;
+        if (result == null || result.getGraph() != compact) {
+            synchronized (this) {
+                result = overlay;
+                if (result != null && result.getGraph() != compact
+                        && result.getGraph().nodes().equals(compact.nodes())) {
+                    result = result.customize(compact);
+                    overlay = result;
+                } else if (result == null || result.getGraph() != compact) {
+                    result = new MultiLevelOverlay<>(compact, cells(compact));
+                    overlay = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Returns the cell of each node of compact on each level of the overlay, where the cells of
+    // a level are a square grid of OVERLAY_GRIDS[level] by OVERLAY_GRIDS[level] equal cells over
+    // the box bounding all the points.  The cells of a coarser level are found from those of the
+    // finest, so every cell lies inside one cell of the level above.
+    private static int[][] cells(CompactGraph<CoordinatePoint> compact) {
+        int n = compact.numNodes();
+        int finest = OVERLAY_GRIDS[0];
+        int[] fine = grid(compact, finest, finest);
+        int[][] cells = new int[OVERLAY_GRIDS.length][n];
+        for (int i = 0; i < OVERLAY_GRIDS.length; i++) {
+            int scale = finest / OVERLAY_GRIDS[i];
+            for (int v = 0; v < n; v++) {
+                int row = fine[v] / finest / scale;
+                int column = fine[v] % finest / scale;
+                cells[i][v] = row * OVERLAY_GRIDS[i] + column;
+            }
+        }
+        return cells;
+    }
+
+    // Returns the cell of each node of compact in a grid of the given numbers of rows and
+    // columns of equal cells over the box bounding all the points, numbered row by row.
+    private static int[] grid(CompactGraph<CoordinatePoint> compact, int rows, int columns) {
+        int n = compact.numNodes();
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            CoordinatePoint point = compact.node(v);
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+        }
+        double width = Math.max(maxX - minX, Double.MIN_NORMAL) / columns;
+        double height = Math.max(maxY - minY, Double.MIN_NORMAL) / rows;
+        int[] cells = new int[n];
+        for (int v = 0; v < n; v++) {
+            CoordinatePoint point = compact.node(v);
+            int column = Math.min((int) ((point.getX() - minX) / width), columns - 1);
+            int row = Math.min((int) ((point.getY() - minY) / height), rows - 1);
+            cells[v] = row * columns + column;
+        }
+        return cells;
+    }
+
+    // Returns the search workspace of the calling thread for the snapshot compact, making a
+    // new one if the thread has none or has one for an older snapshot.
+    private Workspace workspace(CompactGraph<CoordinatePoint> compact) {
+        Workspace workspace = workspaces.get();
+        if (workspace == null || workspace.search.getGraph() != compact) {
+            workspace = new Workspace(compact);
+            workspaces.set(workspace);
+        }
+        return workspace;
+    }
+
+    // Returns the given path of node ids in compact as an ordered map from each point on the
+    // path to the distance from the point before it, or null if there is no path.
+    private static Map<CoordinatePoint, Double> toMap(CompactGraph<CoordinatePoint> compact, int[] path) {
+        if (path == null) {
+            return null;
+        }
+        Map<CoordinatePoint, Double> output = new LinkedHashMap<>();
+        output.put(compact.node(path[0]), 0.0);
+        for (int i = 1; i < path.length; i++) {
+            output.put(compact.node(path[i]), compact.edgeWeight(path[i - 1], path[i]));
+        }
+        return output;
+    }
+
+    // Returns the length of the given fraction of an edge of the given weight, which is
+    // infinite if the edge is missing.
+    private static double part(double fraction, double weight) {
+        return weight == Double.POSITIVE_INFINITY ? weight : fraction * weight;
+    }
+
+    // Returns the least of the distances paired with node in nodes.
+    private static double offset(int node, int[] nodes, double[] distances) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == node) {
+                best = Math.min(best, distances[i]);
+            }
+        }
+        return best;
+    }
+
+    // Returns the given path of node ids in compact as a route, or null if there is no path.
+    private static Route toRoute(CompactGraph<CoordinatePoint> compact, int[] path) {
+        return path == null ? null : new Route(compact, path);
+    }
+
+    // Returns the ids of the nodes in compact on the shortest path from sstart to sdest found
+    // by a query on the contraction hierarchy, or null if sdest can not be reached from sstart.
+    private int[] hierarchySearch(CompactGraph<CoordinatePoint> compact, CoordinatePoint sstart,
+                                  CoordinatePoint sdest) {
+        List<GraphEdge<CoordinatePoint, Double>> edges = getHierarchy().findPath(sstart, sdest);
+        if (edges == null) {
+            return null;
+        }
+        int[] path = new int[edges.size() + 1];
+        path[0] = compact.id(sstart);
+        int i = 1;
+        for (GraphEdge<CoordinatePoint, Double> edge : edges) {
+            path[i++] = compact.id(edge.getNode().getIdentifier());
+        }
+        return path;
+    }
+
+    // Waits for the search of another caller to finish and returns its path, throwing what it
+    // threw if it failed.
+    private static int[] await(CompletableFuture<int[]> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    // Adds the given path from source to target, found on the snapshot compact, to routeCache
+    // unless a newer snapshot has been taken since, in which case the cache has been
+    // invalidated and the ids of the path would be read against the wrong snapshot.  Holds the
+    // lock current() takes a new snapshot under, so the check and the put are not interleaved
+    // with the invalidation.
+    private void cache(RouteCache routeCache, CompactGraph<CoordinatePoint> compact, int source, int target,
+                       int[] path) {
+        synchronized (this) {
+            if (compact == this.compact) {
+                routeCache.put(source, target, path);
+            }
+        }
+    }
+
+    // Returns the current snapshot of the graph of paths.  If the graph has been changed since
+    // the snapshot was taken, first takes a new one, rebuilds the route table on it, drops the
+    // contraction hierarchy, and invalidates the route cache.
+    private CompactGraph<CoordinatePoint> current() {
+        Graph<CoordinatePoint, Double> source = graph;
+        if (source != null && source.getModificationCount() != modifications) {
+            synchronized (this) {
+                long count = source.getModificationCount();
+                if (count != modifications) {
+                    CompactGraph<CoordinatePoint> snapshot = new CompactGraph<>(source);
+                    hierarchy = null;
+                    RouteTable table = routes;
+                    if (table != null) {
+                        table.rebuild(snapshot);
                     }
-                    newPath.push(edge);
-                    active.add(newPath);
+                    RouteCache routeCache = cache;
+                    if (routeCache != null) {
+                        routeCache.invalidate();
+                    }
+                    compact = snapshot;
+                    modifications = count;
                 }
             }
-            
-            finished.add(minDest);
         }
-        return null;
+        return compact;
+    }
+
+    // The search state one thread reuses for every search of one snapshot of this map, along
+    // with the guide of the A* modes.  As a guide it estimates the straight-line distance from
+    // a node to dest, or for a bidirectional search the forward potential, which is half the
+    // difference of the straight-line distances to dest and from start.  The backward side uses
+    // the negation of the potential.  When guided by landmarks it gives their lower bound on
+    // the distance to target instead.
+    private static final class Workspace implements IntToDoubleFunction {
+        private final ShortestPathSearch<CoordinatePoint> search;
+        private double[] distances;
+        private int[] parents;
+        private CoordinatePoint start;
+        private CoordinatePoint dest;
+        private boolean bidirectional;
+        private Landmarks<CoordinatePoint> landmarks;
+        private int target;
+
+        private Workspace(CompactGraph<CoordinatePoint> compact) {
+            search = new ShortestPathSearch<>(compact);
+        }
+
+        // Grows the shortest path tree from root into distances and parents, making the arrays
+        // the first time a tree is grown.
+        private void tree(int root) {
+            if (parents == null) {
+                int n = search.getGraph().numNodes();
+                distances = new double[n];
+                parents = new int[n];
+            }
+            search.findTree(root, false, distances, parents);
+        }
+
+        // Returns the ids of the nodes on the path from the root of the last tree grown to
+        // target, or null if target can not be reached from the root.
+        private int[] path(int target) {
+            if (distances[target] == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            int length = 1;
+            for (int v = parents[target]; v >= 0; v = parents[v]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int v = target; v >= 0; v = parents[v]) {
+                path[--length] = v;
+            }
+            return path;
+        }
+
+        // Points the guide at a search from start to dest and returns it.
+        private IntToDoubleFunction guide(CoordinatePoint start, CoordinatePoint dest, boolean bidirectional) {
+            this.start = start;
+            this.dest = dest;
+            this.bidirectional = bidirectional;
+            this.landmarks = null;
+            return this;
+        }
+
+        // Points the guide at a search towards target bounded by the given landmarks and
+        // returns it.
+        private IntToDoubleFunction guide(Landmarks<CoordinatePoint> landmarks, int target) {
+            this.landmarks = landmarks;
+            this.target = target;
+            return this;
+        }
+
+        @Override
+        public double applyAsDouble(int node) {
+            if (landmarks != null) {
+                return landmarks.lowerBound(node, target);
+            }
+            CoordinatePoint point = search.getGraph().node(node);
+            if (bidirectional) {
+                return (point.distance(dest) - point.distance(start)) / 2.0;
+            }
+            return point.distance(dest);
+        }
+    }
+
+    // Finds the paths of the groups of pairs from start to end, splitting the groups in half
+    // while there is more than one.  Each group is the indices of the pairs that start at one
+    // point, and the path of pair i is set as element i of results.
+    @SuppressWarnings("serial")
+    private final class BatchTask extends RecursiveAction {
+        private final CompactGraph<CoordinatePoint> compact;
+        private final List<BuildingPair> pairs;
+        private final int[][] groups;
+        private final List<Map<CoordinatePoint, Double>> results;
+        private final int start;
+        private final int end;
+
+        private BatchTask(CompactGraph<CoordinatePoint> compact, List<BuildingPair> pairs, int[][] groups,
+                          List<Map<CoordinatePoint, Double>> results, int start, int end) {
+            this.compact = compact;
+            this.pairs = pairs;
+            this.groups = groups;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new BatchTask(compact, pairs, groups, results, start, middle),
+                          new BatchTask(compact, pairs, groups, results, middle, end));
+                return;
+            }
+            RouteTable table = routes;
+            int[] group = groups[start];
+            int[] searched = new int[group.length];
+            int searches = 0;
+            for (int i : group) {
+                Building b1 = pairs.get(i).getStart();
+                Building b2 = pairs.get(i).getDest();
+                if (table != null && table.contains(b1) && table.contains(b2)) {
+                    results.set(i, table.findPath(b1, b2));
+                } else {
+                    searched[searches++] = i;
+                }
+            }
+            if (searches < TREE_MIN_ROUTES) {
+                for (int j = 0; j < searches; j++) {
+                    int i = searched[j];
+                    results.set(i, findPath(pairs.get(i).getStart(), pairs.get(i).getDest(), mode));
+                }
+                return;
+            }
+            Workspace workspace = workspace(compact);
+            int source = compact.id(pairs.get(searched[0]).getStart().getCoordinates());
+            workspace.tree(source);
+            settled.addAndGet(workspace.search.getSettledCount());
+            RouteCache routeCache = cache;
+            for (int j = 0; j < searches; j++) {
+                int i = searched[j];
+                int target = compact.id(pairs.get(i).getDest().getCoordinates());
+                int[] path = workspace.path(target);
+                if (routeCache != null && path != null) {
+                    cache(routeCache, compact, source, target, path);
+                }
+                results.set(i, toMap(compact, path));
+            }
+        }
+    }
+
+    // Fills the rows of a distance matrix from start to end, splitting the rows in half while
+    // there is more than one.  Row i holds the distances from the i-th source to every target.
+    @SuppressWarnings("serial")
+    private final class DistanceTask extends RecursiveAction {
+        private final CompactGraph<CoordinatePoint> compact;
+        private final List<Building> sources;
+        private final List<Building> targets;
+        private final int[] targetIds;
+        private final double[][] matrix;
+        private final int start;
+        private final int end;
+
+        private DistanceTask(CompactGraph<CoordinatePoint> compact, List<Building> sources, List<Building> targets,
+                             int[] targetIds, double[][] matrix, int start, int end) {
+            this.compact = compact;
+            this.sources = sources;
+            this.targets = targets;
+            this.targetIds = targetIds;
+            this.matrix = matrix;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new DistanceTask(compact, sources, targets, targetIds, matrix, start, middle),
+                          new DistanceTask(compact, sources, targets, targetIds, matrix, middle, end));
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                distances(compact, sources.get(i), targets, targetIds, matrix[i]);
+            }
+        }
+    }
+
+    // The snapshot, start, destination, and search mode of a search, which identify the
+    // searches that can share one path.  The ids are only meaningful in their own snapshot, so
+    // searches of different snapshots never share.
+    private static final class Flight {
+        private final CompactGraph<CoordinatePoint> compact;
+        private final int source;
+        private final int target;
+        private final SearchMode mode;
+
+        private Flight(CompactGraph<CoordinatePoint> compact, int source, int target, SearchMode mode) {
+            this.compact = compact;
+            this.source = source;
+            this.target = target;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Flight)) {
+                return false;
+            }
+            Flight other = (Flight) o;
+            return compact == other.compact && source == other.source && target == other.target
+                    && mode == other.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(compact) * 31 + source) * 31 + target) * 31 + mode.ordinal();
+        }
     }
 }
@@ -16,14 +16,34 @@
 
 package cli;
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import graphStructures.DoubleGraph;
 import graphStructures.Graph;
 
 /**
  * Parser utility to load the campus dataset.
  */
 public class DataParser {
+    // The most bytes of a file mapped into memory at once.
+    private static final long MAP_WINDOW = 1L << 28;
+
+    // The most bytes of a file parsed as one chunk by parsePathsParallel.
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    // Powers of ten that are exactly representable as doubles.
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     /**
      * A checked exception class for bad data files
      */
@@ -181,4 +201,413 @@ public class DataParser {
     }
     return graph;
   }
+
+  /**
+   * Reads the path dataset by mapping the file into memory and scanning its bytes directly,
+   * without reading it into Strings line by line.  Returns the same graph as parsePaths.
+   * 
+   * @requires filename is a valid file path
+   * @param filename the file that will be read
+   * @throws MalformedDataException if the file is not well-formed:
+   *          each line is either a point "x,y", an edge from the last point "\tx,y: distance",
+   *          or else starting with a # symbol to indicate a comment line.
+   */
+  public static Graph<CoordinatePoint, Double> parsePathsMapped(String filename) throws MalformedDataException {
+    return parsePathsMapped(filename, false);
+  }
+
+  /**
+   * Reads the path dataset like parsePathsMapped, but splits the file into chunks at the lines
+   * that start a new point and parses the chunks in parallel on the common fork/join pool.  The
+   * chunks are then added to the graph in file order.  Returns the same graph as parsePaths.
+   * 
+   * @requires filename is a valid file path
+   * @param filename the file that will be read
+   * @throws MalformedDataException if the file is not well-formed:
+   *          each line is either a point "x,y", an edge from the last point "\tx,y: distance",
+   *          or else starting with a # symbol to indicate a comment line.
+   */
+  public static Graph<CoordinatePoint, Double> parsePathsParallel(String filename) throws MalformedDataException {
+    return parsePathsMapped(filename, true);
+  }
+
+  /**
+   * Reads the path dataset like parsePathsMapped into a graph whose edge weights are primitive
+   * doubles rather than boxed Doubles.  The graph has the same nodes and edges as the one
+   * returned by parsePaths, with the nodes numbered in the order they first appear in the file.
+   * 
+   * @requires filename is a valid file path
+   * @param filename the file that will be read
+   * @throws MalformedDataException if the file is not well-formed:
+   *          each line is either a point "x,y", an edge from the last point "\tx,y: distance",
+   *          or else starting with a # symbol to indicate a comment line.
+   */
+  public static DoubleGraph<CoordinatePoint> parsePathsPrimitive(String filename) throws MalformedDataException {
+    final DoubleGraph<CoordinatePoint> graph = new DoubleGraph<>();
+    parsePathsMapped(filename, false, new PathSink() {
+        private CoordinatePoint parent;
+        private int parentId;
+
+        public void addNode(CoordinatePoint point) {
+            graph.addNode(point);
+        }
+
+        public void addEdge(double weight, CoordinatePoint from, CoordinatePoint to) {
+            // Consecutive edges almost always leave the same point, so its id is remembered.
+            if (from != parent) {
+                parent = from;
+                parentId = graph.id(from);
+            }
+            graph.addEdge(weight, parentId, graph.addNode(to));
+        }
+    });
+    return graph;
+  }
+
+  // Reads the path dataset by mapping the file into memory, parsing the chunks of each mapped
+  // window in parallel if parallel is set.
+  private static Graph<CoordinatePoint, Double> parsePathsMapped(String filename, boolean parallel)
+          throws MalformedDataException {
+    final Graph<CoordinatePoint, Double> graph = new Graph<>();
+    parsePathsMapped(filename, parallel, new PathSink() {
+        public void addNode(CoordinatePoint point) {
+            graph.addNode(point);
+        }
+
+        public void addEdge(double weight, CoordinatePoint from, CoordinatePoint to) {
+            graph.addNode(to);
+            graph.addEdge(weight, from, to);
+        }
+    });
+    return graph;
+  }
+
+  // Reads the path dataset by mapping the file into memory and adds its points and edges to
+  // sink in file order, parsing the chunks of each mapped window in parallel if parallel is set.
+  private static void parsePathsMapped(String filename, boolean parallel, PathSink sink)
+          throws MalformedDataException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+        long size = channel.size();
+        long position = 0;
+        CoordinatePoint coordinatePoint = null;
+        while (position < size) {
+            // Map the next window of the file and parse every line that ends inside it.  A line
+            // cut off by the end of the window is parsed again at the start of the next one.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                                  Math.min(MAP_WINDOW, size - position));
+            int end = buffer.limit();
+            if (position + end < size) {
+                while (end > 0 && buffer.get(end - 1) != '\n') {
+                    end--;
+                }
+                if (end == 0) {
+                    throw new MalformedDataException("Line is too long to parse at byte " + position);
+                }
+            }
+            List<PathChunk> chunks;
+            if (parallel) {
+                chunks = ForkJoinPool.commonPool().invoke(new ChunkTask(buffer, 0, end));
+            } else {
+                chunks = Collections.singletonList(parseChunk(buffer, 0, end));
+            }
+            for (PathChunk chunk : chunks) {
+                coordinatePoint = chunk.addTo(sink, coordinatePoint);
+            }
+            position += end;
+        }
+    } catch (IOException e) {
+        System.err.println(e.toString());
+        e.printStackTrace(System.err);
+    }
+  }
+
+  // Returns the points and edges on the lines of a path data file between start and end.
+  // param buffer The bytes of the file.
+  // param start The index of the first byte of the first line.
+  // param end The index just past the last byte of the last line.
+  // throws MalformedDataException if a line is not a comment, point, or edge.
+  private static PathChunk parseChunk(MappedByteBuffer buffer, int start, int end) throws MalformedDataException {
+    PathChunk chunk = new PathChunk();
+    ByteScanner scanner = new ByteScanner(buffer);
+    int lineStart = start;
+    while (lineStart < end) {
+        int lineEnd = lineStart;
+        while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        parsePathLine(scanner, lineStart, lineEnd, chunk);
+        lineStart = lineEnd + 1;
+    }
+    return chunk;
+  }
+
+  // Returns the index of the first line at or after from that starts a new point, or end if
+  // there is none before end.
+  private static int nextPointLine(MappedByteBuffer buffer, int from, int end) {
+    int i = from;
+    while (i < end) {
+        while (i < end && buffer.get(i) != '\n') {
+            i++;
+        }
+        i++;
+        if (i < end && buffer.get(i) != '\t' && buffer.get(i) != '#') {
+            return i;
+        }
+    }
+    return end;
+  }
+
+  // Parses the line of a path data file between lineStart and lineEnd and adds its point or
+  // edge to chunk.
+  // param scanner The scanner over the bytes of the file.
+  // param lineStart The index of the first byte of the line.
+  // param lineEnd The index just past the last byte of the line.
+  // param chunk The chunk to add to.
+  // throws MalformedDataException if the line is not a comment, point, or edge.
+  private static void parsePathLine(ByteScanner scanner, int lineStart, int lineEnd, PathChunk chunk)
+          throws MalformedDataException {
+    if (lineEnd > lineStart && scanner.get(lineEnd - 1) == '\r') {
+        lineEnd--;
+    }
+    scanner.reset(lineStart, lineEnd);
+    if (scanner.accept('#')) {
+        return;
+    }
+
+    if (!scanner.accept('\t')) {
+        double x = scanner.nextDouble();
+        double y = scanner.accept(',') ? scanner.nextDouble() : Double.NaN;
+        if (Double.isNaN(x) || Double.isNaN(y) || !scanner.atEnd()) {
+            throw new MalformedDataException("Line should have two points: " + scanner.line());
+        }
+        chunk.addPoint(new CoordinatePoint(x, y));
+        return;
+    }
+
+    double x = scanner.nextDouble();
+    double y = scanner.accept(',') ? scanner.nextDouble() : Double.NaN;
+    double edge = scanner.accept(':') && scanner.accept(' ') ? scanner.nextDouble() : Double.NaN;
+    if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(edge) || !scanner.atEnd()) {
+        throw new MalformedDataException("Line should have three data points: " + scanner.line());
+    }
+    chunk.addEdge(new CoordinatePoint(x, y), edge);
+  }
+
+  /**
+   * The graph that the points and edges of a path data file are added to, in file order.  The
+   * child of an edge may not have been added yet.
+   */
+  private interface PathSink {
+    void addNode(CoordinatePoint point);
+
+    void addEdge(double weight, CoordinatePoint from, CoordinatePoint to);
+  }
+
+  /**
+   * The points and edges parsed from a run of lines of a path data file, kept in file order
+   * until they are added to a graph.  An edge listed before the first point of the chunk
+   * belongs to the last point of the chunk before it.
+   */
+  private static class PathChunk {
+    private CoordinatePoint[] points = new CoordinatePoint[16];
+    private int numPoints;
+    private int[] parents = new int[16];
+    private CoordinatePoint[] children = new CoordinatePoint[16];
+    private double[] weights = new double[16];
+    private int numEdges;
+    private MalformedDataException error;
+
+    private void addPoint(CoordinatePoint point) {
+        if (numPoints == points.length) {
+            points = Arrays.copyOf(points, numPoints * 2);
+        }
+        points[numPoints++] = point;
+    }
+
+    private void addEdge(CoordinatePoint child, double weight) {
+        if (numEdges == children.length) {
+            parents = Arrays.copyOf(parents, numEdges * 2);
+            children = Arrays.copyOf(children, numEdges * 2);
+            weights = Arrays.copyOf(weights, numEdges * 2);
+        }
+        parents[numEdges] = numPoints - 1;
+        children[numEdges] = child;
+        weights[numEdges] = weight;
+        numEdges++;
+    }
+
+    // Adds the points and edges of this to sink in file order, where previous is the last
+    // point added before this chunk.  Returns the last point added.
+    private CoordinatePoint addTo(PathSink sink, CoordinatePoint previous)
+            throws MalformedDataException {
+        if (error != null) {
+            throw error;
+        }
+        CoordinatePoint current = previous;
+        int next = 0;
+        for (int e = 0; e < numEdges; e++) {
+            while (next <= parents[e]) {
+                current = points[next++];
+                sink.addNode(current);
+            }
+            if (current == null) {
+                throw new MalformedDataException("Edge is listed before any point");
+            }
+            sink.addEdge(weights[e], current, children[e]);
+        }
+        while (next < numPoints) {
+            current = points[next++];
+            sink.addNode(current);
+        }
+        return current;
+    }
+  }
+
+  /**
+   * Parses a run of lines of a mapped path data file, splitting it in half at a line that
+   * starts a new point while it is larger than CHUNK_SIZE.  Returns the chunks in file order.
+   */
+  @SuppressWarnings("serial")
+  private static class ChunkTask extends RecursiveTask<List<PathChunk>> {
+    private final MappedByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    private ChunkTask(MappedByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected List<PathChunk> compute() {
+        if (end - start > CHUNK_SIZE) {
+            int split = nextPointLine(buffer, start + (end - start) / 2, end);
+            if (split < end) {
+                ChunkTask left = new ChunkTask(buffer, start, split);
+                left.fork();
+                List<PathChunk> right = new ChunkTask(buffer, split, end).compute();
+                List<PathChunk> chunks = left.join();
+                chunks.addAll(right);
+                return chunks;
+            }
+        }
+        List<PathChunk> chunks = new ArrayList<>();
+        try {
+            chunks.add(parseChunk(buffer, start, end));
+        } catch (MalformedDataException e) {
+            PathChunk failed = new PathChunk();
+            failed.error = e;
+            chunks.add(failed);
+        }
+        return chunks;
+    }
+  }
+
+  /**
+   * Reads numbers and separators out of the bytes of a mapped file, one line at a time.
+   */
+  private static class ByteScanner {
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int end;
+    private int lineStart;
+
+    private ByteScanner(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    private byte get(int index) {
+        return buffer.get(index);
+    }
+
+    // Starts scanning the line between start and end.
+    private void reset(int start, int end) {
+        this.lineStart = start;
+        this.position = start;
+        this.end = end;
+    }
+
+    // Skips the next byte if it is c, returning whether it was.
+    private boolean accept(char c) {
+        if (position < end && buffer.get(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean atEnd() {
+        return position == end;
+    }
+
+    // Returns the current line as a String for error messages.
+    private String line() {
+        byte[] bytes = new byte[end - lineStart];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(lineStart + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // Returns the decimal number starting at the current position, or NaN if there is none.
+    // Numbers with at most 2^53 as their digits and at most 22 digits after the point are
+    // exactly a long divided by a power of ten, which is rounded correctly.  Anything longer
+    // is handed to Double.parseDouble so that the result is always the same as parsePaths.
+    private double nextDouble() {
+        int start = position;
+        boolean negative = accept('-');
+        if (!negative) {
+            accept('+');
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean exact = true;
+        boolean point = false;
+        while (position < end) {
+            byte b = buffer.get(position);
+            if (b >= '0' && b <= '9') {
+                if (mantissa < (1L << 53) / 10) {
+                    mantissa = mantissa * 10 + (b - '0');
+                } else {
+                    exact = false;
+                }
+                digits++;
+                if (point) {
+                    scale++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else if ((b == 'e' || b == 'E') && digits > 0) {
+                // Exponents are rare enough to always leave to Double.parseDouble.
+                exact = false;
+                position++;
+                if (!accept('-')) {
+                    accept('+');
+                }
+                continue;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (exact && scale < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        char[] chars = new char[position - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) buffer.get(start + i);
+        }
+        try {
+            return Double.parseDouble(new String(chars));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+  }
 }
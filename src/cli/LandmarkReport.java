@@ -0,0 +1,153 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+import cli.DataParser.MalformedDataException;
+import graphStructures.CompactGraph;
+import graphStructures.Landmarks;
+import graphStructures.ShortestPathSearch;
+
+/**
+ * Reports how many nodes A* settles between every pair of buildings on the campus map when
+ * guided by landmarks rather than by the straight-line distance, for several numbers of
+ * landmarks, along with the time taken to choose the landmarks and to run the searches.  It
+ * also checks that every heuristic finds paths of the same length as Dijkstra's algorithm.
+ * <p>
+ * Usage: java cli.LandmarkReport [paths.dat buildings.dat]
+ *
+ * @author Dan Tran
+ *
+ */
+public class LandmarkReport {
+
+    private static final int[] LANDMARK_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final int ROUNDS = 5;
+
+    /**
+     * Runs the report on the data files named by the arguments, or on the campus data files
+     * if there are none, and prints the nodes settled and time taken by each heuristic.
+     * @param args The path data file and the building data file.
+     */
+    public static void main(String[] args) {
+        String paths = args.length >= 2 ? args[0] : "src/cli/data/campus_paths.dat";
+        String buildingsFile = args.length >= 2 ? args[1] : "src/cli/data/campus_buildings.dat";
+        CompactGraph<CoordinatePoint> compact;
+        Map<String, Building> buildings;
+        try {
+            compact = new CompactGraph<>(DataParser.parsePathsPrimitive(paths));
+            buildings = DataParser.parseBuildings(buildingsFile);
+        } catch (MalformedDataException e) {
+            System.err.println("Error: Malformed data file");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        List<CoordinatePoint> points = new ArrayList<>();
+        for (Building building : buildings.values()) {
+            if (compact.id(building.getCoordinates()) >= 0) {
+                points.add(building.getCoordinates());
+            }
+        }
+        System.out.println(compact.numNodes() + " nodes, " + compact.numEdges() + " edges, "
+                           + points.size() + " buildings");
+
+        ShortestPathSearch<CoordinatePoint> search = new ShortestPathSearch<>(compact);
+        Result dijkstra = run(search, points, null);
+        Result euclidean = run(search, points, null, true);
+        print("Dijkstra", dijkstra, dijkstra, euclidean, "");
+        print("A* straight-line", euclidean, dijkstra, euclidean, "");
+        for (int count : LANDMARK_COUNTS) {
+            long start = System.nanoTime();
+            Landmarks<CoordinatePoint> landmarks = new Landmarks<>(compact, count);
+            double preprocess = (System.nanoTime() - start) / 1e6;
+            Result alt = run(search, points, landmarks);
+            String check = Math.abs(alt.length - dijkstra.length) > 1e-6 * dijkstra.length
+                ? "  MISMATCH: total length " + alt.length + " != " + dijkstra.length : "";
+            print(String.format("ALT %2d landmarks", count), alt, dijkstra, euclidean,
+                  String.format("  (%.1f ms to choose)%s", preprocess, check));
+        }
+    }
+
+    // Prints the nodes settled and time taken by one heuristic, and its reduction in settled
+    // nodes compared with Dijkstra's algorithm and with the straight-line heuristic.
+    private static void print(String name, Result result, Result dijkstra, Result euclidean, String suffix) {
+        System.out.printf("%-18s %8.1f settled per query  %6.1f%% of Dijkstra  %6.1f%% of straight-line"
+                          + "  %8.2f ms per round%s%n", name, result.settled, 100.0 * result.settled / dijkstra.settled,
+                          100.0 * result.settled / euclidean.settled, result.millis, suffix);
+    }
+
+    // Finds the path between every ordered pair of the given points with A* guided by the
+    // given landmarks, or with Dijkstra's algorithm if there are none.
+    private static Result run(ShortestPathSearch<CoordinatePoint> search, List<CoordinatePoint> points,
+                              Landmarks<CoordinatePoint> landmarks) {
+        return run(search, points, landmarks, false);
+    }
+
+    // Finds the path between every ordered pair of the given points ROUNDS times with A*
+    // guided by the given landmarks, by the straight-line distance if euclidean is set, or by
+    // nothing, and returns the nodes settled per query, the time per round, and the total
+    // length of the paths.
+    private static Result run(ShortestPathSearch<CoordinatePoint> search, List<CoordinatePoint> points,
+                              Landmarks<CoordinatePoint> landmarks, boolean euclidean) {
+        CompactGraph<CoordinatePoint> compact = search.getGraph();
+        Result result = new Result();
+        long settled = 0;
+        long start = 0;
+        // The first round warms up and is not timed.
+        for (int round = 0; round <= ROUNDS; round++) {
+            if (round == 1) {
+                start = System.nanoTime();
+            }
+            settled = 0;
+            result.length = 0.0;
+            for (CoordinatePoint sstart : points) {
+                for (CoordinatePoint sdest : points) {
+                    int source = compact.id(sstart);
+                    int target = compact.id(sdest);
+                    IntToDoubleFunction heuristic = null;
+                    if (landmarks != null) {
+                        heuristic = node -> landmarks.lowerBound(node, target);
+                    } else if (euclidean) {
+                        heuristic = node -> compact.node(node).distance(sdest);
+                    }
+                    int[] path = search.findPath(source, target, heuristic);
+                    settled += search.getSettledCount();
+                    if (path != null) {
+                        for (int i = 1; i < path.length; i++) {
+                            result.length += compact.edgeWeight(path[i - 1], path[i]);
+                        }
+                    }
+                }
+            }
+        }
+        result.millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+        result.settled = (double) settled / (points.size() * points.size());
+        return result;
+    }
+
+    // The nodes settled per query, time per round, and total path length of one heuristic.
+    private static class Result {
+        private double settled;
+        private double millis;
+        private double length;
+    }
+}
@@ -16,6 +16,7 @@
 
 package cli;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -24,8 +25,19 @@ import cli.DataParser.MalformedDataException;
 public class Main {
     public static void main(String[] args) {
         try {
-            CampusMap campusMap = new CampusMap("src/cli/data/campus_paths.dat");
-            Map<String, Building> buildings = DataParser.parseBuildings("src/cli/data/campus_buildings.dat");
+            CampusMap campusMap;
+            Map<String, Building> buildings;
+            if (args.length > 0) {
+                // A binary map file written by BinaryMap skips parsing the text data files.
+                BinaryMap map = BinaryMap.load(args[0]);
+                campusMap = map.getCampusMap();
+                buildings = map.getBuildings();
+            } else {
+                campusMap = new CampusMap("src/cli/data/campus_paths.dat");
+                buildings = DataParser.parseBuildings("src/cli/data/campus_buildings.dat");
+            }
+            // Routes between buildings are looked up rather than searched for.
+            campusMap.precomputeRoutes(buildings.values());
             Scanner input = new Scanner(System.in);
             
             printMenu();
@@ -54,7 +66,7 @@ public class Main {
                     } else {
                         System.out.println("Path from " + start.getLongName()
                                            + " to " + dest.getLongName() + ":");
-                        printPath(campusMap.findPath(start, dest));
+                        printRoute(campusMap.findRoute(start, dest));
                     }
                 } else if (option.equals("q")) {
                     input.close();
@@ -69,6 +81,8 @@ public class Main {
             }
         } catch (MalformedDataException e) {
             System.err.println("Error: Invalid filename");
+        } catch (IOException e) {
+            System.err.println("Error: Invalid map file: " + args[0]);
         }
     }
 
@@ -98,40 +112,13 @@ public class Main {
         System.out.println();
     }
     
-    public static void printPath(Map<CoordinatePoint, Double> path) {
-        double total = 0;
-        CoordinatePoint prev = null;
-        for (CoordinatePoint point : path.keySet()) {
-            if (prev == null) {
-                prev = point;
-            } else {
-                String cardinal = getCardinal(point.getX() - prev.getX(), prev.getY() - point.getY());
-                prev = point;
-                total += path.get(point);
-                System.out.println(String.format("\tWalk %.0f feet %s to (%.0f, %.0f)", path.get(point), cardinal, point.getX(), point.getY()));
-            }
+    public static void printRoute(Route route) {
+        for (int i = 0; i < route.numSegments(); i++) {
+            CoordinatePoint point = route.getPoint(i + 1);
+            System.out.println(String.format("\tWalk %.0f feet %s to (%.0f, %.0f)", route.getSegmentWeight(i),
+                                             route.getCardinal(i), point.getX(), point.getY()));
         }
-        System.out.println(String.format("Total distance: %.0f feet", total));
+        System.out.println(String.format("Total distance: %.0f feet", route.getDistance()));
         System.out.println();
     }
-    
-    private static String getCardinal(double x, double y) {
-        double theta = Math.atan2(y, x);
-        if (theta < 7.0 * Math.PI / 8.0 && theta > 5.0 * Math.PI / 8.0) {
-            return "NW";
-        } else if (theta <= 5.0 * Math.PI / 8.0 && theta >= 3.0 * Math.PI / 8.0) {
-            return "N";
-        } else if (theta < 3.0 * Math.PI / 8.0 && theta > Math.PI / 8.0) {
-            return "NE";
-        } else if (theta <= Math.PI / 8.0 && theta >= -1.0 * Math.PI / 8.0) {
-            return "E";
-        } else if (theta < -1.0 * Math.PI / 8.0 && theta > -3.0 * Math.PI / 8.0) {
-            return "SE";
-        } else if (theta <= -3.0 * Math.PI / 8.0 && theta >= -5.0 * Math.PI / 8.0) {
-            return "S";
-        } else if (theta < -5.0 * Math.PI / 8.0 && theta > -7.0 * Math.PI / 8.0) {
-            return "SW";
-        }
-        return "W";
-    }
 }
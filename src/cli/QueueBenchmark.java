@@ -0,0 +1,125 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import cli.DataParser.MalformedDataException;
+import graphStructures.CompactGraph;
+import graphStructures.QueueType;
+import graphStructures.ShortestPathSearch;
+
+/**
+ * Times the shortest path searches between every pair of buildings on the campus map with each
+ * type of NodeQueue, and checks that every type finds paths of the same length.
+ * <p>
+ * Usage: java cli.QueueBenchmark [paths.dat buildings.dat [rounds]]
+ *
+ * @author Dan Tran
+ *
+ */
+public class QueueBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * Runs the benchmark on the data files named by the arguments, or on the campus data files
+     * if there are none, and prints the time each queue type takes.
+     * @param args The path data file, the building data file, and the number of timed rounds.
+     */
+    public static void main(String[] args) {
+        String paths = args.length >= 2 ? args[0] : "src/cli/data/campus_paths.dat";
+        String buildingsFile = args.length >= 2 ? args[1] : "src/cli/data/campus_buildings.dat";
+        int rounds = args.length >= 3 ? Integer.parseInt(args[2]) : 10;
+        CompactGraph<CoordinatePoint> compact;
+        Map<String, Building> buildings;
+        try {
+            compact = new CompactGraph<>(DataParser.parsePathsPrimitive(paths));
+            buildings = DataParser.parseBuildings(buildingsFile);
+        } catch (MalformedDataException e) {
+            System.err.println("Error: Malformed data file");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        List<CoordinatePoint> points = new ArrayList<>();
+        for (Building building : buildings.values()) {
+            if (compact.id(building.getCoordinates()) >= 0) {
+                points.add(building.getCoordinates());
+            }
+        }
+        System.out.println(compact.numNodes() + " nodes, " + compact.numEdges() + " edges, "
+                           + points.size() + " buildings, " + rounds + " rounds");
+
+        for (SearchMode mode : new SearchMode[] {SearchMode.DIJKSTRA, SearchMode.ASTAR,
+                                                 SearchMode.BIDIRECTIONAL_ASTAR}) {
+            double expected = Double.NaN;
+            for (QueueType type : QueueType.values()) {
+                ShortestPathSearch<CoordinatePoint> search = new ShortestPathSearch<>(compact, type);
+                for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                    run(search, points, mode);
+                }
+                long start = System.nanoTime();
+                double total = 0.0;
+                for (int round = 0; round < rounds; round++) {
+                    total = run(search, points, mode);
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / rounds;
+                String check = "";
+                if (Double.isNaN(expected)) {
+                    expected = total;
+                } else if (Math.abs(total - expected) > 1e-6 * expected) {
+                    check = "  MISMATCH: total length " + total + " != " + expected;
+                }
+                System.out.printf("%-20s %-13s %9.2f ms per round%s%n", mode, type, millis, check);
+            }
+        }
+    }
+
+    // Finds the path between every ordered pair of the given points with the given search mode
+    // and returns the total length of the paths.
+    private static double run(ShortestPathSearch<CoordinatePoint> search, List<CoordinatePoint> points,
+                              SearchMode mode) {
+        CompactGraph<CoordinatePoint> compact = search.getGraph();
+        double total = 0.0;
+        for (CoordinatePoint start : points) {
+            for (CoordinatePoint dest : points) {
+                int source = compact.id(start);
+                int target = compact.id(dest);
+                int[] path;
+                if (mode == SearchMode.ASTAR) {
+                    path = search.findPath(source, target, node -> compact.node(node).distance(dest));
+                } else if (mode == SearchMode.BIDIRECTIONAL_ASTAR) {
+                    path = search.findBidirectionalPath(source, target, node -> {
+                        CoordinatePoint point = compact.node(node);
+                        return (point.distance(dest) - point.distance(start)) / 2.0;
+                    });
+                } else {
+                    path = search.findPath(source, target, null);
+                }
+                if (path != null) {
+                    for (int i = 1; i < path.length; i++) {
+                        total += compact.edgeWeight(path[i - 1], path[i]);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import graphStructures.CompactGraph;
+
+/**
+ * This immutable class represents a route between two points on a campus map.  It is kept as
+ * the ids of the points on the route in the map's snapshot and the length of each segment
+ * between them, so its total distance is known without building anything.  The coordinates
+ * of the points and the direction of each segment are only worked out when asked for, and
+ * unlike the map returned by CampusMap.findPath, a point the route passes more than once is
+ * kept each time.
+ * <p>
+ * A route between arbitrary coordinates may also start and end at virtual points partway along
+ * a path segment, which are not points of the map and have no id.
+ *
+ * @author Dan Tran
+ *
+ */
+public class Route {
+    // This immutable class represents a route between two points on a campus map.
+
+    // Representation Invariant: compact, nodes, and weights != null, the route has at least
+    // one point, weights.length is one less than its number of points, every entry of nodes is
+    // a node of compact, and distance is the sum of weights.
+
+    // Abstraction Function: The points of the route are first if it is not null, then
+    // compact.node(nodes[i]) for each i, then last if it is not null.  Segment i goes from
+    // point i to point i + 1 and its length is weights[i].  distance is the length of the whole
+    // route.  points caches the coordinates of the points once they have been asked for.
+
+    private final CompactGraph<CoordinatePoint> compact;
+    private final CoordinatePoint first;
+    private final int[] nodes;
+    private final CoordinatePoint last;
+    private final double[] weights;
+    private final double distance;
+    private volatile List<CoordinatePoint> points;
+
+    /**
+     * Constructs the route through the given nodes of the given snapshot of a map.
+     * @param compact The snapshot the route was found on.
+     * @param nodes The ids of the points on the route in order.
+     * @requires compact and nodes != null, nodes.length > 0, and each node is joined to the
+     * next by an edge of compact.  nodes is not changed afterwards.
+     * @effects Creates a route through the given nodes whose segments have the weights of
+     * the edges between them.
+     */
+    Route(CompactGraph<CoordinatePoint> compact, int[] nodes) {
+        this(compact, null, 0.0, nodes, null, 0.0);
+    }
+
+    /**
+     * Constructs the route from the given virtual point through the given nodes of the given
+     * snapshot of a map to the other given virtual point.
+     * @param compact The snapshot the route was found on.
+     * @param first The point before the first node, or null to start at the first node.
+     * @param firstWeight The length of the segment from first to the first node, or to last if
+     * there are no nodes.
+     * @param nodes The ids of the points on the route in order.
+     * @param last The point after the last node, or null to end at the last node.
+     * @param lastWeight The length of the segment from the last node to last.
+     * @requires compact and nodes != null, the route has at least one point, and each node is
+     * joined to the next by an edge of compact.  nodes is not changed afterwards.
+     * @effects Creates a route through first, the given nodes, and last, whose segments between
+     * nodes have the weights of the edges between them.
+     */
+    Route(CompactGraph<CoordinatePoint> compact, CoordinatePoint first, double firstWeight, int[] nodes,
+          CoordinatePoint last, double lastWeight) {
+        this.compact = compact;
+        this.first = first;
+        this.nodes = nodes;
+        this.last = last;
+        int offset = first == null ? 0 : 1;
+        this.weights = new double[offset + nodes.length + (last == null ? 0 : 1) - 1];
+        if (first != null && weights.length > 0) {
+            weights[0] = firstWeight;
+        }
+        for (int i = 0; i + 1 < nodes.length; i++) {
+            weights[offset + i] = compact.edgeWeight(nodes[i], nodes[i + 1]);
+        }
+        if (last != null && nodes.length > 0) {
+            weights[weights.length - 1] = lastWeight;
+        }
+        double total = 0.0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        this.distance = total;
+        checkRep();
+    }
+
+    /**
+     * Returns the total length of the route.
+     * @return The total length of the route.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the number of points on the route, counting both ends.
+     * @return The number of points on the route.
+     */
+    public int numPoints() {
+        return weights.length + 1;
+    }
+
+    /**
+     * Returns the number of segments of the route, which is one less than its number of points.
+     * @return The number of segments of the route.
+     */
+    public int numSegments() {
+        return weights.length;
+    }
+
+    /**
+     * Returns the id of the i-th point of the route in the snapshot the route was found on.
+     * @param i The index of the point.
+     * @requires 0 <= i < numPoints()
+     * @return The id of the i-th point of the route, or -1 if it is a virtual point.
+     */
+    public int getNodeId(int i) {
+        int node = i - (first == null ? 0 : 1);
+        return node >= 0 && node < nodes.length ? nodes[node] : -1;
+    }
+
+    /**
+     * Returns the coordinates of the i-th point of the route.
+     * @param i The index of the point.
+     * @requires 0 <= i < numPoints()
+     * @return The coordinates of the i-th point of the route.
+     */
+    public CoordinatePoint getPoint(int i) {
+        int node = i - (first == null ? 0 : 1);
+        if (node < 0) {
+            return first;
+        } else if (node >= nodes.length) {
+            return last;
+        }
+        return compact.node(nodes[node]);
+    }
+
+    /**
+     * Returns the coordinates of the points of the route in order, working them out the first
+     * time they are asked for.
+     * @return An unmodifiable list of the coordinates of the points of the route in order.
+     */
+    public List<CoordinatePoint> getPoints() {
+        List<CoordinatePoint> result = points;
+        if (result == null) {
+            List<CoordinatePoint> list = new ArrayList<>(numPoints());
+            for (int i = 0; i < numPoints(); i++) {
+                list.add(getPoint(i));
+            }
+            result = Collections.unmodifiableList(list);
+            points = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the length of the i-th segment of the route, which goes from the i-th point to
+     * the one after it.
+     * @param i The index of the segment.
+     * @requires 0 <= i < numSegments()
+     * @return The length of the i-th segment of the route.
+     */
+    public double getSegmentWeight(int i) {
+        return weights[i];
+    }
+
+    /**
+     * Returns the lengths of the segments of the route in order.
+     * @return A new array of the lengths of the segments of the route in order.
+     */
+    public double[] getSegmentWeights() {
+        return Arrays.copyOf(weights, weights.length);
+    }
+
+    /**
+     * Returns the compass direction of the i-th segment of the route, where north is towards
+     * smaller y coordinates.
+     * @param i The index of the segment.
+     * @requires 0 <= i < numSegments()
+     * @return One of "N", "NE", "E", "SE", "S", "SW", "W", and "NW".
+     */
+    public String getCardinal(int i) {
+        CoordinatePoint from = getPoint(i);
+        CoordinatePoint to = getPoint(i + 1);
+        return getCardinal(to.getX() - from.getX(), from.getY() - to.getY());
+    }
+
+    /**
+     * Returns the route as an ordered map from each point to the length of the segment that
+     * ends there, with 0 for the first point, in the same form as CampusMap.findPath.  A point
+     * the route passes more than once keeps only its first place and the last segment to it.
+     * @return The route as an ordered map from each point to the length of the segment that
+     * ends there.
+     */
+    public Map<CoordinatePoint, Double> getPath() {
+        Map<CoordinatePoint, Double> output = new LinkedHashMap<>();
+        output.put(getPoint(0), 0.0);
+        for (int i = 0; i < weights.length; i++) {
+            output.put(getPoint(i + 1), weights[i]);
+        }
+        return output;
+    }
+
+    /**
+     * Returns the compass direction of a step of x to the east and y to the north.
+     * @param x The distance moved east.
+     * @param y The distance moved north.
+     * @return One of "N", "NE", "E", "SE", "S", "SW", "W", and "NW".
+     */
+    public static String getCardinal(double x, double y) {
+        double theta = Math.atan2(y, x);
+        if (theta < 7.0 * Math.PI / 8.0 && theta > 5.0 * Math.PI / 8.0) {
+            return "NW";
+        } else if (theta <= 5.0 * Math.PI / 8.0 && theta >= 3.0 * Math.PI / 8.0) {
+            return "N";
+        } else if (theta < 3.0 * Math.PI / 8.0 && theta > Math.PI / 8.0) {
+            return "NE";
+        } else if (theta <= Math.PI / 8.0 && theta >= -1.0 * Math.PI / 8.0) {
+            return "E";
+        } else if (theta < -1.0 * Math.PI / 8.0 && theta > -3.0 * Math.PI / 8.0) {
+            return "SE";
+        } else if (theta <= -3.0 * Math.PI / 8.0 && theta >= -5.0 * Math.PI / 8.0) {
+            return "S";
+        } else if (theta < -5.0 * Math.PI / 8.0 && theta > -7.0 * Math.PI / 8.0) {
+            return "SW";
+        }
+        return "W";
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert compact != null : "[Route] compact is null.";
+        assert nodes.length > 0 || first != null || last != null : "[Route] route has no points.";
+        assert weights.length + 1 == nodes.length + (first == null ? 0 : 1) + (last == null ? 0 : 1)
+            : "[Route] weights do not match the segments.";
+    }
+}
@@ -0,0 +1,518 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents a bounded cache of routes between two points of a map, each stored as
+ * the ids of the nodes on the route.  The cache may be used by many threads at once.  It is
+ * split into segments by key, each with its own lock and its own share of the bounds on the
+ * number of routes and on their approximate size in bytes.
+ * <p>
+ * On a map whose edges are the same in both directions, a route that is not in the cache can
+ * be served by reversing the cached route the other way.
+ *
+ * @author Dan Tran
+ *
+ */
+public class RouteCache {
+    // This class represents a bounded cache of routes between two points of a map.
+
+    // Representation Invariant: policy and segments != null, segments has a power of two
+    // entries, and every counter != null.
+
+    // Abstraction Function: The route from node s to node t is in segments[segment(key(s, t))]
+    // under key(s, t).  hits counts lookups that found a route, of which reversedHits found it
+    // by reversing the route the other way, misses counts lookups that found none, evictions
+    // counts routes dropped to stay within the bounds, and invalidations counts calls to
+    // invalidate.
+
+    // The approximate number of bytes a cached route takes beyond its node ids.
+    private static final long ENTRY_OVERHEAD = 96;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_ENTRIES = 64;
+
+    private final CachePolicy policy;
+    private final Segment[] segments;
+    private final AtomicLong hits;
+    private final AtomicLong reversedHits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final AtomicLong invalidations;
+
+    /**
+     * Constructs an empty cache.
+     * @param maxEntries The largest number of routes the cache holds.
+     * @param maxBytes The largest approximate number of bytes the routes in the cache take.
+     * @param policy The policy that chooses which routes to evict.
+     * @requires maxEntries > 0, maxBytes > 0, and policy != null
+     * @effects Constructs an empty cache.
+     */
+    public RouteCache(int maxEntries, long maxBytes, CachePolicy policy) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && 2L * count * MIN_SEGMENT_ENTRIES <= maxEntries) {
+            count *= 2;
+        }
+        this.policy = policy;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            int entries = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+            long bytes = Math.max(1, maxBytes / count);
+            segments[i] = policy == CachePolicy.LRU ? new LruSegment(entries, bytes)
+                                                    : new TinyLfuSegment(entries, bytes);
+        }
+        this.hits = new AtomicLong();
+        this.reversedHits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.invalidations = new AtomicLong();
+        checkRep();
+    }
+
+    /**
+     * Returns the cached route from source to target.
+     * @param source The id of the node the route starts at.
+     * @param target The id of the node the route ends at.
+     * @param symmetric Whether the edges of the map are the same in both directions, so that
+     * the cached route from target to source can be reversed.
+     * @modifies this
+     * @effects Counts a hit or a miss and records the use of the route.
+     * @return The ids of the nodes on the route from source to target, or null if it is not
+     * in the cache.  The array must not be modified.
+     */
+    public int[] get(int source, int target, boolean symmetric) {
+        long key = key(source, target);
+        int[] path = segment(key).get(key);
+        if (path == null && symmetric && source != target) {
+            long reverse = key(target, source);
+            int[] other = segment(reverse).get(reverse);
+            if (other != null) {
+                path = new int[other.length];
+                for (int i = 0; i < other.length; i++) {
+                    path[i] = other[other.length - 1 - i];
+                }
+                reversedHits.incrementAndGet();
+            }
+        }
+        if (path == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return path;
+    }
+
+    /**
+     * Adds the route from source to target to the cache, evicting other routes if the cache
+     * grows past its bounds.
+     * @param source The id of the node the route starts at.
+     * @param target The id of the node the route ends at.
+     * @param path The ids of the nodes on the route, which must not be modified afterwards.
+     * @requires path != null
+     * @modifies this
+     * @effects Adds the route to the cache, replacing any route from source to target.
+     */
+    public void put(int source, int target, int[] path) {
+        long key = key(source, target);
+        int evicted = segment(key).put(key, path);
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+        }
+    }
+
+    /**
+     * Removes every route from the cache, such as when the map it was filled from changes.
+     * @modifies this
+     * @effects Empties the cache and counts an invalidation.
+     */
+    public void invalidate() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Returns the eviction policy of the cache.
+     * @return The eviction policy of the cache.
+     */
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of routes in the cache.
+     * @return The number of routes in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the approximate number of bytes the routes in the cache take.
+     * @return The approximate number of bytes the routes in the cache take.
+     */
+    public long weightedSize() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of lookups that found a route.
+     * @return The number of lookups that found a route, including reversed ones.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that found a route by reversing the route the other way.
+     * @return The number of lookups that found a route by reversing the route the other way.
+     */
+    public long getReversedHitCount() {
+        return reversedHits.get();
+    }
+
+    /**
+     * Returns the number of lookups that found no route.
+     * @return The number of lookups that found no route.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of routes evicted to keep the cache within its bounds.
+     * @return The number of routes evicted to keep the cache within its bounds.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of times the cache has been invalidated.
+     * @return The number of times the cache has been invalidated.
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    // Returns the key of the route from source to target.
+    private static long key(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    // Returns the segment the given key belongs to.
+    private Segment segment(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 32) & (segments.length - 1)];
+    }
+
+    // Returns the approximate number of bytes the given route takes in the cache.
+    private static long weigh(int[] path) {
+        return ENTRY_OVERHEAD + 4L * path.length;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert policy != null : "[RouteCache] policy is null.";
+        assert Integer.bitCount(segments.length) == 1 : "[RouteCache] segment count is not a power of two.";
+    }
+
+    // One lock's share of the cache, bounded by a number of routes and a number of bytes.
+    private abstract static class Segment {
+        protected final int maxEntries;
+        protected final long maxBytes;
+        protected long bytes;
+
+        protected Segment(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        // Returns the route with the given key, or null if there is none.
+        protected abstract int[] get(long key);
+
+        // Adds the route with the given key and returns the number of routes evicted.
+        protected abstract int put(long key, int[] path);
+
+        // Removes every route.
+        protected abstract void clear();
+
+        // Returns the number of routes.
+        protected abstract int size();
+
+        // Returns the approximate number of bytes the routes take.
+        protected synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+    // A segment that evicts the route used least recently.
+    private static class LruSegment extends Segment {
+        private final LinkedHashMap<Long, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private LruSegment(int maxEntries, long maxBytes) {
+            super(maxEntries, maxBytes);
+        }
+
+        @Override
+        protected synchronized int[] get(long key) {
+            return entries.get(key);
+        }
+
+        @Override
+        protected synchronized int put(long key, int[] path) {
+            int[] old = entries.put(key, path);
+            if (old != null) {
+                bytes -= weigh(old);
+            }
+            bytes += weigh(path);
+            int evicted = 0;
+            Iterator<int[]> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries || bytes > maxBytes) {
+                bytes -= weigh(eldest.next());
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        @Override
+        protected synchronized void clear() {
+            entries.clear();
+            bytes = 0;
+        }
+
+        @Override
+        protected synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    // A segment with a window of recently added routes that evicts least recently used, in
+    // front of a main area split into probation and protected parts.  A route leaving the
+    // window enters probation if there is room, or else replaces the route that probation
+    // would evict next if it has been requested more often recently.  A route found again in
+    // probation moves to protected, which pushes its least recently used route back to
+    // probation when full.
+    private static class TinyLfuSegment extends Segment {
+        private final LinkedHashMap<Long, int[]> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, int[]> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, int[]> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+        private final int windowEntries;
+        private final int mainEntries;
+        private final int protectedEntries;
+        private final FrequencySketch sketch;
+
+        private TinyLfuSegment(int maxEntries, long maxBytes) {
+            super(maxEntries, maxBytes);
+            this.windowEntries = Math.max(1, maxEntries / 100);
+            this.mainEntries = Math.max(0, maxEntries - windowEntries);
+            this.protectedEntries = mainEntries * 4 / 5;
+            this.sketch = new FrequencySketch(maxEntries);
+        }
+
+        @Override
+        protected synchronized int[] get(long key) {
+            sketch.increment(key);
+            int[] path = window.get(key);
+            if (path == null) {
+                path = protectedArea.get(key);
+            }
+            if (path == null) {
+                path = probation.remove(key);
+                if (path != null) {
+                    protectedArea.put(key, path);
+                    while (protectedArea.size() > protectedEntries) {
+                        Iterator<Map.Entry<Long, int[]>> eldest = protectedArea.entrySet().iterator();
+                        Map.Entry<Long, int[]> demoted = eldest.next();
+                        eldest.remove();
+                        probation.put(demoted.getKey(), demoted.getValue());
+                    }
+                }
+            }
+            return path;
+        }
+
+        @Override
+        protected synchronized int put(long key, int[] path) {
+            bytes += weigh(path);
+            int[] old = replace(window, key, path);
+            if (old == null) {
+                old = replace(protectedArea, key, path);
+            }
+            if (old == null) {
+                old = replace(probation, key, path);
+            }
+            if (old != null) {
+                bytes -= weigh(old);
+                return trim();
+            }
+            window.put(key, path);
+            int evicted = 0;
+            while (window.size() > windowEntries) {
+                Iterator<Map.Entry<Long, int[]>> eldest = window.entrySet().iterator();
+                Map.Entry<Long, int[]> candidate = eldest.next();
+                eldest.remove();
+                evicted += admit(candidate.getKey(), candidate.getValue());
+            }
+            return evicted + trim();
+        }
+
+        @Override
+        protected synchronized void clear() {
+            window.clear();
+            probation.clear();
+            protectedArea.clear();
+            sketch.clear();
+            bytes = 0;
+        }
+
+        @Override
+        protected synchronized int size() {
+            return window.size() + probation.size() + protectedArea.size();
+        }
+
+        // Replaces the route with the given key in area if it is there and returns the route
+        // it replaced, or null if it is not there.
+        private static int[] replace(LinkedHashMap<Long, int[]> area, long key, int[] path) {
+            return area.containsKey(key) ? area.put(key, path) : null;
+        }
+
+        // Moves a route leaving the window into probation if the main area has room.  If it is
+        // full, either the route probation would evict next or the new route is evicted,
+        // keeping the one that has been requested more often.  Returns the number of routes
+        // evicted.
+        private int admit(long key, int[] path) {
+            if (probation.size() + protectedArea.size() < mainEntries) {
+                probation.put(key, path);
+                return 0;
+            }
+            LinkedHashMap<Long, int[]> area = probation.isEmpty() ? protectedArea : probation;
+            if (!area.isEmpty()) {
+                Iterator<Map.Entry<Long, int[]>> eldest = area.entrySet().iterator();
+                Map.Entry<Long, int[]> victim = eldest.next();
+                if (sketch.frequency(key) > sketch.frequency(victim.getKey())) {
+                    eldest.remove();
+                    bytes -= weigh(victim.getValue());
+                    probation.put(key, path);
+                    return 1;
+                }
+            }
+            bytes -= weigh(path);
+            return 1;
+        }
+
+        // Evicts routes until the segment is within its bound on bytes, first from probation,
+        // then from the window, then from protected.  Returns the number of routes evicted.
+        private int trim() {
+            int evicted = 0;
+            while (bytes > maxBytes) {
+                LinkedHashMap<Long, int[]> area = !probation.isEmpty() ? probation
+                        : !window.isEmpty() ? window : protectedArea;
+                Iterator<int[]> eldest = area.values().iterator();
+                bytes -= weigh(eldest.next());
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    // Approximate counts of recent requests for each key, kept as four rows of counters that
+    // each key hashes into once.  Each row has about eight counters per entry the segment holds,
+    // so few keys share all four.  The count of a key is its smallest counter, and every counter
+    // is halved once there have been ten increments per entry the segment holds, so that old
+    // requests fade.
+    private static class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final long[] SEEDS = {0x97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL,
+                                             0xCBF29CE484222325L};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maxEntries) {
+            int width = Integer.highestOneBit(Math.max(64, 8 * maxEntries - 1)) * 2;
+            this.counters = new byte[ROWS][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * Math.max(1, maxEntries);
+        }
+
+        // Counts a request for key.
+        private void increment(long key) {
+            for (int row = 0; row < ROWS; row++) {
+                int index = index(key, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                }
+            }
+            additions++;
+            if (additions >= sampleSize) {
+                for (byte[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        // Returns the approximate number of recent requests for key.
+        private int frequency(long key) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                frequency = Math.min(frequency, counters[row][index(key, row)]);
+            }
+            return frequency;
+        }
+
+        // Forgets every request.
+        private void clear() {
+            for (byte[] row : counters) {
+                Arrays.fill(row, (byte) 0);
+            }
+            additions = 0;
+        }
+
+        // Returns the counter key hashes to in the given row.
+        private int index(long key, int row) {
+            long h = (key ^ SEEDS[row]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+            return (int) h & mask;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graphStructures.CompactGraph;
+import graphStructures.ShortestPathSearch;
+
+/**
+ * This class represents a precomputed table of the shortest routes between every pair of a set
+ * of buildings on a campus map.  One shortest path tree is grown towards each building on the
+ * common fork/join pool, and the table keeps the distance between every pair of buildings and,
+ * for each building, the next point on the way to it from every point on the map.  Finding a
+ * route is then a lookup and a walk along the next points.
+ * <p>
+ * The table can be rebuilt when the paths or buildings change.  Queries made while it is being
+ * rebuilt see the old table until the new one is complete.
+ *
+ * @author Dan Tran
+ *
+ */
+public class RouteTable {
+    // This class represents a precomputed table of the shortest routes between buildings.
+
+    // Representation Invariant: tables != null.
+
+    // Abstraction Function: tables holds the graph and buildings the table was last built
+    // from and the routes between the buildings.
+
+    private static final int TREES_PER_TASK = 4;
+
+    private volatile Tables tables;
+
+    /**
+     * Constructs the table of shortest routes between every pair of the given buildings on
+     * the given map of paths.
+     * @param compact The map of paths, whose nodes are location points.
+     * @param buildings The buildings to find routes between.
+     * @requires compact and buildings != null, and the coordinates of every building are a
+     * node of compact.
+     * @effects Constructs the table of shortest routes between the given buildings.
+     */
+    public RouteTable(CompactGraph<CoordinatePoint> compact, Collection<Building> buildings) {
+        this.tables = new Tables(compact, buildings);
+        checkRep();
+    }
+
+    /**
+     * Rebuilds the table from the map and buildings it was last built from.
+     * @modifies this
+     * @effects Recomputes every route in the table.
+     */
+    public void rebuild() {
+        Tables current = tables;
+        rebuild(current.compact, current.buildings);
+    }
+
+    /**
+     * Rebuilds the table for the same buildings on the given map of paths, such as after the
+     * path data has changed.
+     * @param compact The map of paths, whose nodes are location points.
+     * @requires compact != null and the coordinates of every building in the table are nodes
+     * of compact.
+     * @modifies this
+     * @effects Replaces the table with the shortest routes between the same buildings on the
+     * given map.
+     */
+    public void rebuild(CompactGraph<CoordinatePoint> compact) {
+        rebuild(compact, tables.buildings);
+    }
+
+    /**
+     * Rebuilds the table for the given buildings on the given map of paths, such as after the
+     * path data has changed.
+     * @param compact The map of paths, whose nodes are location points.
+     * @param buildings The buildings to find routes between.
+     * @requires compact and buildings != null, and the coordinates of every building are a
+     * node of compact.
+     * @modifies this
+     * @effects Replaces the table with the shortest routes between the given buildings on the
+     * given map.
+     */
+    public void rebuild(CompactGraph<CoordinatePoint> compact, Collection<Building> buildings) {
+        tables = new Tables(compact, buildings);
+        checkRep();
+    }
+
+    /**
+     * Returns the map of paths the table was last built from.
+     * @return The map of paths the table was last built from.
+     */
+    public CompactGraph<CoordinatePoint> getCompactGraph() {
+        return tables.compact;
+    }
+
+    /**
+     * Returns whether routes to and from the given building are in the table.
+     * @param b The building.
+     * @requires b != null
+     * @return true if the table has routes to and from b, false otherwise.
+     */
+    public boolean contains(Building b) {
+        return tables.row(b) >= 0;
+    }
+
+    /**
+     * Returns the length of the shortest route from b1 to b2.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @requires contains(b1) and contains(b2)
+     * @return The length of the shortest route from b1 to b2, or infinity if there is none.
+     */
+    public double distance(Building b1, Building b2) {
+        Tables current = tables;
+        return current.distances[current.row(b1) * current.size + current.row(b2)];
+    }
+
+    /**
+     * Returns a map representing the shortest path from b1 to b2, in the same form as
+     * CampusMap.findPath.  The path goes from the starting CoordinatePoint to the next
+     * CoordinatePoint, with the associated Double value the distance to get to that point.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @requires contains(b1) and contains(b2)
+     * @return A map representing the shortest path from b1 to b2, or null if there is none.
+     */
+    public Map<CoordinatePoint, Double> findPath(Building b1, Building b2) {
+        Route route = findRoute(b1, b2);
+        return route == null ? null : route.getPath();
+    }
+
+    /**
+     * Returns the shortest route from b1 to b2.
+     * @param b1 The starting building.
+     * @param b2 The destination building.
+     * @requires contains(b1) and contains(b2)
+     * @return The shortest route from b1 to b2, or null if there is none.
+     */
+    public Route findRoute(Building b1, Building b2) {
+        Tables current = tables;
+        int row = current.row(b1);
+        int column = current.row(b2);
+        if (current.distances[row * current.size + column] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        int[] next = current.nextHops[column];
+        int target = current.nodes[column];
+        int length = 1;
+        for (int v = current.nodes[row]; v != target; v = next[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int v = current.nodes[row];
+        path[0] = v;
+        for (int i = 1; i < length; i++) {
+            v = next[v];
+            path[i] = v;
+        }
+        return new Route(current.compact, path);
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert tables != null : "[RouteTable] tables is null.";
+    }
+
+    // The routes between a set of buildings on one map of paths, which never change once built.
+    // Row i of the table is the node nodes[i], which is the location of one or more buildings.
+    // distances[i * size + j] is the length of the shortest route from row i to row j, and
+    // nextHops[j][v] is the node after v on a shortest route from v to row j.
+    private static class Tables {
+        private final CompactGraph<CoordinatePoint> compact;
+        private final List<Building> buildings;
+        private final int[] rows;
+        private final int[] nodes;
+        private final int size;
+        private final double[] distances;
+        private final int[][] nextHops;
+
+        private Tables(CompactGraph<CoordinatePoint> compact, Collection<Building> buildings) {
+            this.compact = compact;
+            this.buildings = new ArrayList<>(buildings);
+            this.rows = new int[compact.numNodes()];
+            Arrays.fill(rows, -1);
+            int[] found = new int[this.buildings.size()];
+            int count = 0;
+            for (Building b : this.buildings) {
+                int node = compact.id(b.getCoordinates());
+                if (node < 0) {
+                    throw new IllegalArgumentException("Building is not on the map: " + b.getShortName());
+                }
+                if (rows[node] < 0) {
+                    rows[node] = count;
+                    found[count++] = node;
+                }
+            }
+            this.nodes = Arrays.copyOf(found, count);
+            this.size = count;
+            this.distances = new double[count * count];
+            this.nextHops = new int[count][];
+            ForkJoinPool.commonPool().invoke(new TreeTask(this, 0, count));
+        }
+
+        // Returns the row of the given building, or -1 if it is not in the table.
+        private int row(Building b) {
+            int node = compact.id(b.getCoordinates());
+            return node < 0 ? -1 : rows[node];
+        }
+    }
+
+    // Grows the shortest path trees towards the rows from start to end of a table, splitting the
+    // rows in half while there are more than TREES_PER_TASK.  Each task that grows trees uses
+    // one search for all of them.
+    @SuppressWarnings("serial")
+    private static class TreeTask extends RecursiveAction {
+        private final Tables tables;
+        private final int start;
+        private final int end;
+
+        private TreeTask(Tables tables, int start, int end) {
+            this.tables = tables;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > TREES_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new TreeTask(tables, start, middle), new TreeTask(tables, middle, end));
+                return;
+            }
+            int n = tables.compact.numNodes();
+            ShortestPathSearch<CoordinatePoint> search = new ShortestPathSearch<>(tables.compact);
+            double[] tree = new double[n];
+            for (int column = start; column < end; column++) {
+                int[] next = new int[n];
+                search.findTree(tables.nodes[column], true, tree, next);
+                tables.nextHops[column] = next;
+                for (int row = 0; row < tables.size; row++) {
+                    tables.distances[row * tables.size + column] = tree[tables.nodes[row]];
+                }
+            }
+        }
+    }
+}
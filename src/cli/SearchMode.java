@@ -0,0 +1,79 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+/**
+ * The strategies a CampusMap can use to search for the shortest path between two points.
+ *
+ * @author Dan Tran
+ *
+ */
+public enum SearchMode {
+    /**
+     * Dijkstra's algorithm, which settles nodes in order of their distance from the start.
+     */
+    DIJKSTRA,
+
+    /**
+     * A* search, which settles nodes in order of their distance from the start plus the
+     * straight-line distance to the destination.  This requires that no edge is shorter than
+     * the straight-line distance between its endpoints.
+     */
+    ASTAR,
+
+    /**
+     * Dijkstra's algorithm run forward from the start and backward from the destination at
+     * the same time, stopping once the two searches meet on a shortest path.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Bidirectional search where each side is guided towards the other by the average of the
+     * straight-line distances to the destination and from the start.  This has the same
+     * requirement on edge lengths as ASTAR.
+     */
+    BIDIRECTIONAL_ASTAR,
+
+    /**
+     * A* search guided by landmarks, which settles nodes in order of their distance from the
+     * start plus a lower bound on the distance to the destination from the triangle inequality
+     * on the distances from and to a set of landmarks.  The landmarks are chosen and their
+     * distances found the first time they are needed.  Unlike ASTAR, this works for any
+     * non-negative edge lengths.
+     */
+    ALT,
+
+    /**
+     * Dijkstra's algorithm that only follows the paths whose arc flag for the region of the
+     * destination is set, which marks them as starting a shortest path into that region.  The
+     * map is divided into a grid of regions and the flags found the first time they are needed.
+     */
+    ARC_FLAGS,
+
+    /**
+     * A query on a multi-level overlay of the map, which crosses whole cells of a nested grid
+     * using precomputed distances between their boundary points.  The overlay is built the
+     * first time it is needed, and when paths change only the cells they are in are recomputed.
+     */
+    OVERLAY,
+
+    /**
+     * A query on a contraction hierarchy of the map, which is built the first time it is needed
+     * unless one has been loaded from a file.
+     */
+    CONTRACTION_HIERARCHY
+}
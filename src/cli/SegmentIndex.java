@@ -0,0 +1,356 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import graphStructures.CompactGraph;
+
+/**
+ * This immutable class represents a uniform grid over the path segments of a snapshot of a
+ * campus map, which finds the segment nearest to any coordinates so that a route can start or
+ * end partway along a path.  A segment is a pair of points joined by an edge in one direction
+ * or both, and is filed under every cell of the grid its bounding box touches.  A query looks
+ * at the cells in rings around the query point and stops once no cell left can hold a nearer
+ * segment.
+ *
+ * @author Dan Tran
+ *
+ */
+public class SegmentIndex {
+    // This immutable class represents a uniform grid over the path segments of a campus map.
+
+    // Representation Invariant: compact, from, to, forwardWeights, backwardWeights, cellStarts,
+    // and cellSegments != null.  from, to, forwardWeights, and backwardWeights have one entry
+    // per segment, from[s] < to[s] unless the segment is one way, and at least one of the
+    // weights of each segment is finite.  columns and rows are positive, cellSize > 0, and
+    // cellStarts has columns * rows + 1 entries that start at 0, never decrease, and end at
+    // cellSegments.length.
+
+    // Abstraction Function: Segment s joins the points compact.node(from[s]) and
+    // compact.node(to[s]).  forwardWeights[s] is the weight of the edge from from[s] to to[s] and
+    // backwardWeights[s] the weight of the edge back, or infinity if there is no such edge.
+    // The grid has its lower left corner at (minX, minY) and columns by rows square cells of
+    // side cellSize, and the segments filed under the cell in column c and row r are
+    // cellSegments[cellStarts[r * columns + c]] to cellSegments[cellStarts[r * columns + c + 1] - 1].
+
+    private final CompactGraph<CoordinatePoint> compact;
+    private final int[] from;
+    private final int[] to;
+    private final double[] forwardWeights;
+    private final double[] backwardWeights;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStarts;
+    private final int[] cellSegments;
+
+    /**
+     * Constructs an index over every path segment of the given snapshot of a map.
+     * @param compact The snapshot whose segments are indexed.
+     * @requires compact != null
+     * @effects Constructs an index over every path segment of compact, with about one cell
+     * per segment.
+     */
+    public SegmentIndex(CompactGraph<CoordinatePoint> compact) {
+        this.compact = compact;
+        int count = 0;
+        for (int u = 0; u < compact.numNodes(); u++) {
+            for (int e = compact.firstEdge(u); e < compact.endEdge(u); e++) {
+                if (isSegment(u, e)) {
+                    count++;
+                }
+            }
+        }
+        this.from = new int[count];
+        this.to = new int[count];
+        this.forwardWeights = new double[count];
+        this.backwardWeights = new double[count];
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        int s = 0;
+        for (int u = 0; u < compact.numNodes(); u++) {
+            for (int e = compact.firstEdge(u); e < compact.endEdge(u); e++) {
+                if (!isSegment(u, e)) {
+                    continue;
+                }
+                int v = compact.target(e);
+                if (u < v) {
+                    from[s] = u;
+                    to[s] = v;
+                    forwardWeights[s] = compact.edgeWeight(u, v);
+                    backwardWeights[s] = compact.edgeWeight(v, u);
+                } else {
+                    from[s] = v;
+                    to[s] = u;
+                    forwardWeights[s] = Double.POSITIVE_INFINITY;
+                    backwardWeights[s] = compact.edgeWeight(u, v);
+                }
+                for (int node : new int[] {u, v}) {
+                    CoordinatePoint point = compact.node(node);
+                    lowX = Math.min(lowX, point.getX());
+                    lowY = Math.min(lowY, point.getY());
+                    highX = Math.max(highX, point.getX());
+                    highY = Math.max(highY, point.getY());
+                }
+                s++;
+            }
+        }
+        if (count == 0) {
+            lowX = 0.0;
+            lowY = 0.0;
+            highX = 0.0;
+            highY = 0.0;
+        }
+        double width = highX - lowX;
+        double height = highY - lowY;
+        double size = Math.sqrt(width * height / Math.max(count, 1));
+        if (!(size > 0.0)) {
+            size = Math.max(Math.max(width, height), 1.0);
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        this.cellSize = size;
+        this.columns = (int) (width / size) + 1;
+        this.rows = (int) (height / size) + 1;
+        this.cellStarts = new int[columns * rows + 1];
+        for (s = 0; s < count; s++) {
+            fileSegment(s, null);
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+        this.cellSegments = new int[cellStarts[columns * rows]];
+        int[] filled = new int[columns * rows];
+        for (s = 0; s < count; s++) {
+            fileSegment(s, filled);
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the snapshot whose segments are indexed.
+     * @return The snapshot whose segments are indexed.
+     */
+    public CompactGraph<CoordinatePoint> getCompactGraph() {
+        return compact;
+    }
+
+    /**
+     * Returns the number of segments in the index.
+     * @return The number of segments in the index.
+     */
+    public int size() {
+        return from.length;
+    }
+
+    /**
+     * Returns the segment nearest to the given coordinates.
+     * @param x The x coordinate to search from.
+     * @param y The y coordinate to search from.
+     * @return The index of a segment nearest to (x, y), or -1 if the map has no segments.
+     */
+    public int nearest(double x, double y) {
+        if (from.length == 0) {
+            return -1;
+        }
+        int column = clamp((int) Math.floor((x - minX) / cellSize), columns);
+        int row = clamp((int) Math.floor((y - minY) / cellSize), rows);
+        // How far (x, y) lies outside the grid, which the bound on unvisited cells allows for.
+        double outside = Math.hypot(Math.max(0.0, Math.max(minX - x, x - minX - columns * cellSize)),
+                                    Math.max(0.0, Math.max(minY - y, y - minY - rows * cellSize)));
+        double best = Double.POSITIVE_INFINITY;
+        int found = -1;
+        int rings = Math.max(columns, rows);
+        for (int ring = 0; ring <= rings; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean edge = r == row - ring || r == row + ring;
+                for (int c = column - ring; c <= column + ring; c += edge ? 1 : 2 * ring) {
+                    if (c >= 0 && c < columns) {
+                        int cell = r * columns + c;
+                        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                            double distance = distanceSquared(cellSegments[i], x, y);
+                            if (distance < best) {
+                                best = distance;
+                                found = cellSegments[i];
+                            }
+                        }
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            // Every cell not yet visited is at least ring cells away from the cell of (x, y).
+            double bound = ring * cellSize - outside;
+            if (bound > 0 && best <= bound * bound) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the id of the point segment s starts at.  If the segment is one way, its edge
+     * goes from here only if getForwardWeight(s) is finite.
+     * @param s The index of the segment.
+     * @requires 0 <= s < size()
+     * @return The id in the snapshot of the point segment s starts at.
+     */
+    public int getFrom(int s) {
+        return from[s];
+    }
+
+    /**
+     * Returns the id of the point segment s ends at.
+     * @param s The index of the segment.
+     * @requires 0 <= s < size()
+     * @return The id in the snapshot of the point segment s ends at.
+     */
+    public int getTo(int s) {
+        return to[s];
+    }
+
+    /**
+     * Returns the weight of the edge from getFrom(s) to getTo(s).
+     * @param s The index of the segment.
+     * @requires 0 <= s < size()
+     * @return The weight of the edge from getFrom(s) to getTo(s), or infinity if there is none.
+     */
+    public double getForwardWeight(int s) {
+        return forwardWeights[s];
+    }
+
+    /**
+     * Returns the weight of the edge from getTo(s) to getFrom(s).
+     * @param s The index of the segment.
+     * @requires 0 <= s < size()
+     * @return The weight of the edge from getTo(s) to getFrom(s), or infinity if there is none.
+     */
+    public double getBackwardWeight(int s) {
+        return backwardWeights[s];
+    }
+
+    /**
+     * Returns how far along segment s the point on it nearest to the given coordinates is.
+     * @param s The index of the segment.
+     * @param x The x coordinate to project.
+     * @param y The y coordinate to project.
+     * @requires 0 <= s < size()
+     * @return The fraction between 0 and 1 of the way from getFrom(s) to getTo(s) at which
+     * the point of the segment nearest to (x, y) lies.
+     */
+    public double fraction(int s, double x, double y) {
+        CoordinatePoint a = compact.node(from[s]);
+        CoordinatePoint b = compact.node(to[s]);
+        double dx = b.getX() - a.getX();
+        double dy = b.getY() - a.getY();
+        double length = dx * dx + dy * dy;
+        if (length == 0.0) {
+            return 0.0;
+        }
+        double t = ((x - a.getX()) * dx + (y - a.getY()) * dy) / length;
+        return Math.max(0.0, Math.min(1.0, t));
+    }
+
+    /**
+     * Returns the point the given fraction of the way along segment s.
+     * @param s The index of the segment.
+     * @param t The fraction of the way from getFrom(s) to getTo(s).
+     * @requires 0 <= s < size() and 0 <= t <= 1
+     * @return The point t of the way from getFrom(s) to getTo(s).
+     */
+    public CoordinatePoint point(int s, double t) {
+        if (t == 0.0) {
+            return compact.node(from[s]);
+        } else if (t == 1.0) {
+            return compact.node(to[s]);
+        }
+        CoordinatePoint a = compact.node(from[s]);
+        CoordinatePoint b = compact.node(to[s]);
+        return new CoordinatePoint(a.getX() + t * (b.getX() - a.getX()), a.getY() + t * (b.getY() - a.getY()));
+    }
+
+    // Returns whether edge e, which leaves u, is the one that makes its pair of points a
+    // segment: the first edge from the lower id to the higher one, or the first edge of a pair
+    // of points joined in one direction only.
+    private boolean isSegment(int u, int e) {
+        int v = compact.target(e);
+        if (u == v) {
+            return false;
+        }
+        for (int f = compact.firstEdge(u); f < e; f++) {
+            if (compact.target(f) == v) {
+                return false;
+            }
+        }
+        return u < v || compact.edgeWeight(v, u) == Double.POSITIVE_INFINITY;
+    }
+
+    // Files segment s under every cell its bounding box touches.  If filled is null, only
+    // counts it in the cell after each of those cells; otherwise writes it into the next free
+    // place of each cell, counted by filled.
+    private void fileSegment(int s, int[] filled) {
+        CoordinatePoint a = compact.node(from[s]);
+        CoordinatePoint b = compact.node(to[s]);
+        int lowColumn = clamp((int) ((Math.min(a.getX(), b.getX()) - minX) / cellSize), columns);
+        int highColumn = clamp((int) ((Math.max(a.getX(), b.getX()) - minX) / cellSize), columns);
+        int lowRow = clamp((int) ((Math.min(a.getY(), b.getY()) - minY) / cellSize), rows);
+        int highRow = clamp((int) ((Math.max(a.getY(), b.getY()) - minY) / cellSize), rows);
+        for (int r = lowRow; r <= highRow; r++) {
+            for (int c = lowColumn; c <= highColumn; c++) {
+                int cell = r * columns + c;
+                if (filled == null) {
+                    cellStarts[cell + 1]++;
+                } else {
+                    cellSegments[cellStarts[cell] + filled[cell]++] = s;
+                }
+            }
+        }
+    }
+
+    // Returns the squared distance from (x, y) to the nearest point of segment s.
+    private double distanceSquared(int s, double x, double y) {
+        CoordinatePoint a = compact.node(from[s]);
+        CoordinatePoint b = compact.node(to[s]);
+        double t = fraction(s, x, y);
+        double dx = a.getX() + t * (b.getX() - a.getX()) - x;
+        double dy = a.getY() + t * (b.getY() - a.getY()) - y;
+        return dx * dx + dy * dy;
+    }
+
+    // Returns i moved into the range 0 to count - 1.
+    private static int clamp(int i, int count) {
+        return Math.max(0, Math.min(count - 1, i));
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert compact != null : "[SegmentIndex] compact is null.";
+        assert columns > 0 && rows > 0 && cellSize > 0 : "[SegmentIndex] grid is empty.";
+        assert cellStarts.length == columns * rows + 1 : "[SegmentIndex] cellStarts does not match the grid.";
+        for (int s = 0; s < from.length; s++) {
+            assert forwardWeights[s] < Double.POSITIVE_INFINITY || backwardWeights[s] < Double.POSITIVE_INFINITY
+                : "[SegmentIndex] segment " + s + " has no edge.";
+        }
+    }
+}
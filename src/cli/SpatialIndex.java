@@ -0,0 +1,325 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli;
+
+import java.util.Arrays;
+
+import graphStructures.CompactGraph;
+
+/**
+ * This immutable class represents a k-d tree over the points of a snapshot of a campus map,
+ * which finds the points nearest to any coordinates, such as a clicked location, without
+ * looking at every point.  The tree is kept in flat arrays: the points of each subtree are a
+ * range of the arrays with the point that splits them in the middle, so a query takes
+ * logarithmic time on average and allocates nothing beyond its result.
+ *
+ * @author Dan Tran
+ *
+ */
+public class SpatialIndex {
+    // This immutable class represents a k-d tree over the points of a snapshot of a campus map.
+
+    // Representation Invariant: compact, nodes, xs, and ys != null, and nodes, xs, and ys have
+    // compact.numNodes() entries.  nodes holds every node id of compact once, and xs[i] and
+    // ys[i] are the coordinates of nodes[i].  For every range lo to hi of the tree at depth d
+    // with middle m = (lo + hi) / 2, no point in lo to m - 1 is past nodes[m] on the axis of d
+    // (x at even depths, y at odd ones) and no point in m + 1 to hi - 1 is before it.
+
+    // Abstraction Function: The index is the set of points compact.node(nodes[i]), arranged as
+    // a binary tree whose root is the middle of the whole range, whose left subtree is the
+    // range before the middle, and whose right subtree is the range after it.
+
+    private final CompactGraph<CoordinatePoint> compact;
+    private final int[] nodes;
+    private final double[] xs;
+    private final double[] ys;
+
+    /**
+     * Constructs an index over every point of the given snapshot of a map.
+     * @param compact The snapshot whose points are indexed.
+     * @requires compact != null
+     * @effects Constructs an index over every point of compact.
+     */
+    public SpatialIndex(CompactGraph<CoordinatePoint> compact) {
+        int n = compact.numNodes();
+        this.compact = compact;
+        this.nodes = new int[n];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            CoordinatePoint point = compact.node(i);
+            nodes[i] = i;
+            xs[i] = point.getX();
+            ys[i] = point.getY();
+        }
+        build(0, n, 0);
+        checkRep();
+    }
+
+    /**
+     * Returns the snapshot whose points are indexed.
+     * @return The snapshot whose points are indexed.
+     */
+    public CompactGraph<CoordinatePoint> getCompactGraph() {
+        return compact;
+    }
+
+    /**
+     * Returns the number of points in the index.
+     * @return The number of points in the index.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the id of the point of the map nearest to the given coordinates.
+     * @param x The x coordinate to search from.
+     * @param y The y coordinate to search from.
+     * @return The id in the snapshot of a point nearest to (x, y), or -1 if the map has no
+     * points.
+     */
+    public int nearest(double x, double y) {
+        if (nodes.length == 0) {
+            return -1;
+        }
+        double[] best = {Double.POSITIVE_INFINITY};
+        int[] found = {-1};
+        nearest(0, nodes.length, 0, x, y, best, found);
+        return found[0];
+    }
+
+    /**
+     * Returns the point of the map nearest to the given point.
+     * @param point The point to search from.
+     * @requires point != null
+     * @return A point of the map nearest to point, or null if the map has no points.
+     */
+    public CoordinatePoint nearest(CoordinatePoint point) {
+        int node = nearest(point.getX(), point.getY());
+        return node < 0 ? null : compact.node(node);
+    }
+
+    /**
+     * Returns the ids of the k points of the map nearest to the given coordinates, nearest
+     * first.
+     * @param x The x coordinate to search from.
+     * @param y The y coordinate to search from.
+     * @param k The number of points to find.
+     * @requires k >= 0
+     * @return The ids in the snapshot of the min(k, size()) points nearest to (x, y), in order
+     * of increasing distance.
+     */
+    public int[] nearest(double x, double y, int k) {
+        int count = Math.min(k, nodes.length);
+        if (count == 0) {
+            return new int[0];
+        }
+        // The k nearest points found so far are kept in a max-heap on their squared distance.
+        double[] heapDistances = new double[count];
+        int[] heapNodes = new int[count];
+        int size = nearest(0, nodes.length, 0, x, y, heapDistances, heapNodes, 0);
+        // Taking the farthest off the heap one at a time leaves the array sorted nearest first.
+        for (int end = size - 1; end > 0; end--) {
+            swap(heapDistances, heapNodes, 0, end);
+            siftDown(heapDistances, heapNodes, 0, end);
+        }
+        return heapNodes;
+    }
+
+    // Arranges the points from lo to hi into a subtree at the given depth by moving the median
+    // on the depth's axis to the middle, the points before it on that axis to its left, and the
+    // others to its right, then arranging each side the same way one level deeper.
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int middle = (lo + hi) >>> 1;
+        double[] axis = depth % 2 == 0 ? xs : ys;
+        select(axis, lo, hi - 1, middle);
+        build(lo, middle, depth + 1);
+        build(middle + 1, hi, depth + 1);
+    }
+
+    // Moves the points from lo to hi inclusive so the point at rank has the rank-th smallest
+    // coordinate on the given axis, with no larger ones before it and no smaller ones after it.
+    private void select(double[] axis, int lo, int hi, int rank) {
+        while (hi > lo) {
+            double pivot = axis[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (axis[i] < pivot) {
+                    i++;
+                }
+                while (axis[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (rank <= j) {
+                hi = j;
+            } else if (rank >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Swaps the points at positions i and j of the arrays.
+    private void swap(int i, int j) {
+        int node = nodes[i];
+        nodes[i] = nodes[j];
+        nodes[j] = node;
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+    }
+
+    // Searches the subtree of the points from lo to hi at the given depth for a point nearer to
+    // (x, y) than the squared distance best[0], recording the nearest one in found[0].  The side
+    // of the splitting point that (x, y) is on is searched first, and the other side only if it
+    // could hold a nearer point.
+    private void nearest(int lo, int hi, int depth, double x, double y, double[] best, int[] found) {
+        if (lo >= hi) {
+            return;
+        }
+        int middle = (lo + hi) >>> 1;
+        double dx = x - xs[middle];
+        double dy = y - ys[middle];
+        double distance = dx * dx + dy * dy;
+        if (distance < best[0]) {
+            best[0] = distance;
+            found[0] = nodes[middle];
+        }
+        double split = depth % 2 == 0 ? dx : dy;
+        if (split < 0) {
+            nearest(lo, middle, depth + 1, x, y, best, found);
+            if (split * split < best[0]) {
+                nearest(middle + 1, hi, depth + 1, x, y, best, found);
+            }
+        } else {
+            nearest(middle + 1, hi, depth + 1, x, y, best, found);
+            if (split * split < best[0]) {
+                nearest(lo, middle, depth + 1, x, y, best, found);
+            }
+        }
+    }
+
+    // Searches the subtree of the points from lo to hi at the given depth for points nearer
+    // to (x, y) than the farthest of the size points in the heap, adding them to the heap and
+    // dropping its farthest point once it is full.  Returns the new size of the heap.
+    private int nearest(int lo, int hi, int depth, double x, double y, double[] heapDistances,
+                        int[] heapNodes, int size) {
+        if (lo >= hi) {
+            return size;
+        }
+        int middle = (lo + hi) >>> 1;
+        double dx = x - xs[middle];
+        double dy = y - ys[middle];
+        double distance = dx * dx + dy * dy;
+        if (size < heapNodes.length) {
+            heapDistances[size] = distance;
+            heapNodes[size] = nodes[middle];
+            siftUp(heapDistances, heapNodes, size);
+            size++;
+        } else if (distance < heapDistances[0]) {
+            heapDistances[0] = distance;
+            heapNodes[0] = nodes[middle];
+            siftDown(heapDistances, heapNodes, 0, size);
+        }
+        double split = depth % 2 == 0 ? dx : dy;
+        int nearLo = split < 0 ? lo : middle + 1;
+        int nearHi = split < 0 ? middle : hi;
+        int farLo = split < 0 ? middle + 1 : lo;
+        int farHi = split < 0 ? hi : middle;
+        size = nearest(nearLo, nearHi, depth + 1, x, y, heapDistances, heapNodes, size);
+        if (size < heapNodes.length || split * split < heapDistances[0]) {
+            size = nearest(farLo, farHi, depth + 1, x, y, heapDistances, heapNodes, size);
+        }
+        return size;
+    }
+
+    // Moves the entry at position i of the max-heap up until its parent is no nearer.
+    private static void siftUp(double[] distances, int[] nodes, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (distances[parent] >= distances[i]) {
+                return;
+            }
+            swap(distances, nodes, i, parent);
+            i = parent;
+        }
+    }
+
+    // Moves the entry at position i of the max-heap of the given size down until neither of
+    // its children is farther.
+    private static void siftDown(double[] distances, int[] nodes, int i, int size) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (distances[i] >= distances[child]) {
+                return;
+            }
+            swap(distances, nodes, i, child);
+            i = child;
+        }
+    }
+
+    // Swaps the entries at positions i and j of the heap.
+    private static void swap(double[] distances, int[] nodes, int i, int j) {
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+        int node = nodes[i];
+        nodes[i] = nodes[j];
+        nodes[j] = node;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert compact != null : "[SpatialIndex] compact is null.";
+        assert nodes.length == compact.numNodes() : "[SpatialIndex] index does not cover the map.";
+        assert xs.length == nodes.length && ys.length == nodes.length : "[SpatialIndex] arrays differ in length.";
+        assert isPermutation() : "[SpatialIndex] nodes is not a permutation of the node ids.";
+    }
+
+    // Returns whether nodes holds every node id of compact exactly once.
+    private boolean isPermutation() {
+        int[] sorted = Arrays.copyOf(nodes, nodes.length);
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
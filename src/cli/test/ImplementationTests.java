@@ -29,7 +29,8 @@ import org.junit.runners.Suite.*;
  */
 
 @RunWith(Suite.class)
-@SuiteClasses({ TestWeightedPath.class, TestBuilding.class, TestCoordinatePoint.class, TestCampusMap.class/* list classes here */ })
+@SuiteClasses({ TestWeightedPath.class, TestBuilding.class, TestCoordinatePoint.class, TestCampusMap.class, TestDataParser.class, TestBinaryMap.class,
+                TestRouteTable.class, TestRouteCache.class, TestRoute.class, TestSpatialIndex.class, TestSegmentIndex.class, TestBuildingGroup.class /* list classes here */ })
 
 public final class ImplementationTests
 {
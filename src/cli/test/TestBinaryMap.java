@@ -0,0 +1,150 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.BinaryMap;
+import cli.Building;
+import cli.CampusMap;
+import cli.CoordinatePoint;
+import cli.DataParser;
+import cli.DataParser.MalformedDataException;
+import graphStructures.CompactGraph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Map;
+
+public class TestBinaryMap {
+    @Test
+    public void TestConvertAndLoad() throws IOException, MalformedDataException {
+        File file = File.createTempFile("campus", ".bin");
+        file.deleteOnExit();
+        BinaryMap.convert("src/cli/data/campus_paths.dat", "src/cli/data/campus_buildings.dat", file.getPath());
+        BinaryMap loaded = BinaryMap.load(file.getPath());
+
+        CompactGraph<CoordinatePoint> expected = new CampusMap("src/cli/data/campus_paths.dat").getCompactGraph();
+        CompactGraph<CoordinatePoint> actual = loaded.getCampusMap().getCompactGraph();
+        assertEquals(expected.nodes(), actual.nodes());
+        assertEquals(expected.numEdges(), actual.numEdges());
+        for (int e = 0; e < expected.numEdges(); e++) {
+            assertEquals(expected.target(e), actual.target(e));
+            assertEquals(expected.weight(e), actual.weight(e), 0.0);
+        }
+
+        Map<String, Building> buildings = DataParser.parseBuildings("src/cli/data/campus_buildings.dat");
+        assertEquals(buildings.keySet(), loaded.getBuildings().keySet());
+        for (String name : buildings.keySet()) {
+            assertEquals(buildings.get(name).getLongName(), loaded.getBuildings().get(name).getLongName());
+            assertEquals(buildings.get(name).getCoordinates(), loaded.getBuildings().get(name).getCoordinates());
+        }
+    }
+
+    @Test
+    public void TestLoadedMapFindsSamePath() throws IOException, MalformedDataException {
+        File file = File.createTempFile("test", ".bin");
+        file.deleteOnExit();
+        BinaryMap.convert("src/cli/data/test.dat", "src/cli/data/campus_buildings.dat", file.getPath());
+        CampusMap map = BinaryMap.load(file.getPath()).getCampusMap();
+        CampusMap expected = new CampusMap("src/cli/data/test.dat");
+        Building start = new Building("0", "00", 0, 0);
+        Building dest = new Building("2", "22", 2, 2);
+        Map<CoordinatePoint, Double> path = map.findPath(start, dest);
+        assertEquals(new ArrayList<>(expected.findPath(start, dest).keySet()), new ArrayList<>(path.keySet()));
+        assertEquals(new ArrayList<>(expected.findPath(start, dest).values()), new ArrayList<>(path.values()));
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadNotBinaryMap() throws IOException {
+        File file = File.createTempFile("notmap", ".bin");
+        file.deleteOnExit();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("0.0,0.0\n\t1.0,0.0: 1.0\n");
+        }
+        BinaryMap.load(file.getPath());
+    }
+
+    // Converts the small test map to a binary map file, overwrites the int at the given
+    // position from the start of the edge offsets with value, and loads the file.
+    private static void loadCorrupted(int position, int value) throws IOException, MalformedDataException {
+        File file = File.createTempFile("corrupt", ".bin");
+        file.deleteOnExit();
+        BinaryMap.convert("src/cli/data/test.dat", "src/cli/data/campus_buildings.dat", file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            int n = raf.readInt();
+            raf.seek(16 + 16L * n + position);
+            raf.writeInt(value);
+        }
+        BinaryMap.load(file.getPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadDecreasingOffsets() throws IOException, MalformedDataException {
+        loadCorrupted(4, -1);
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadTargetOutOfRange() throws IOException, MalformedDataException {
+        File file = File.createTempFile("test", ".bin");
+        file.deleteOnExit();
+        BinaryMap.convert("src/cli/data/test.dat", "src/cli/data/campus_buildings.dat", file.getPath());
+        int n = BinaryMap.load(file.getPath()).getCampusMap().getCompactGraph().numNodes();
+        // The first target comes right after the n + 1 offsets.
+        loadCorrupted(4 * (n + 1), n);
+    }
+
+    // Converts the small test map to a binary map file, overwrites the double at the given
+    // position from the start of the file with value, and loads the file.
+    private static void loadCorruptedDouble(long position, double value)
+            throws IOException, MalformedDataException {
+        File file = File.createTempFile("corrupt", ".bin");
+        file.deleteOnExit();
+        BinaryMap.convert("src/cli/data/test.dat", "src/cli/data/campus_buildings.dat", file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            raf.writeDouble(value);
+        }
+        BinaryMap.load(file.getPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadUnsortedPoints() throws IOException, MalformedDataException {
+        // The x coordinate of the first point comes right after the 16 byte header.
+        loadCorruptedDouble(16, Double.MAX_VALUE);
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadNegativeWeight() throws IOException, MalformedDataException {
+        File file = File.createTempFile("test", ".bin");
+        file.deleteOnExit();
+        BinaryMap.convert("src/cli/data/test.dat", "src/cli/data/campus_buildings.dat", file.getPath());
+        CompactGraph<CoordinatePoint> graph =
+                BinaryMap.load(file.getPath()).getCampusMap().getCompactGraph();
+        int n = graph.numNodes();
+        int m = graph.numEdges();
+        // The weights come after the points, the n + 1 offsets, and the m targets.
+        loadCorruptedDouble(16 + 16L * n + 4L * (n + 1) + 4L * m, -1.0);
+    }
+}
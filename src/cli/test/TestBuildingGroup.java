@@ -0,0 +1,80 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.Building;
+import cli.BuildingGroup;
+import cli.CampusMap;
+import cli.DataParser;
+import cli.Route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class TestBuildingGroup {
+    @Test
+    public void TestGroupEntrances() throws Exception {
+        Map<String, BuildingGroup> groups = BuildingGroup.group(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values());
+        assertEquals(5, groups.get("KNE").getEntrances().size());
+        assertEquals(3, groups.get("HUB").getEntrances().size());
+        assertEquals(1, groups.get("CSE").getEntrances().size());
+        assertNull(groups.get("BAG (NE)"));
+        assertEquals("BAG", BuildingGroup.baseName("BAG (NE)"));
+        assertEquals("HUB", BuildingGroup.baseName("HUB (Food, W)"));
+        assertEquals("CSE", BuildingGroup.baseName("CSE"));
+    }
+
+    @Test
+    public void TestRouteMatchesBestEntrancePair() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Map<String, BuildingGroup> groups = BuildingGroup.group(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values());
+        for (int table = 0; table < 2; table++) {
+            for (String[] pair : new String[][] {{"KNE", "MGH"}, {"MUS", "CHL"}, {"BAG", "CSE"}, {"HUB", "HUB"}}) {
+                BuildingGroup from = groups.get(pair[0]);
+                BuildingGroup to = groups.get(pair[1]);
+                double best = Double.POSITIVE_INFINITY;
+                for (Building b1 : from.getEntrances()) {
+                    for (Building b2 : to.getEntrances()) {
+                        best = Math.min(best, map.findRoute(b1, b2).getDistance());
+                    }
+                }
+                Route route = map.findRoute(from, to);
+                assertEquals(best, route.getDistance(), 1e-9);
+                assertNotNull(from.getEntrance(route.getPoint(0)));
+                assertNotNull(to.getEntrance(route.getPoint(route.numPoints() - 1)));
+            }
+            map.precomputeRoutes(DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values());
+        }
+    }
+
+    @Test
+    public void TestOneEntranceMatchesFindRoute() {
+        CampusMap map = new CampusMap("src/cli/data/test.dat");
+        Building b0 = new Building("0", "00", 0, 0);
+        Building b2 = new Building("2", "21", 2, 1);
+        Route route = map.findRoute(new BuildingGroup("0", Arrays.asList(b0)), new BuildingGroup("2", Arrays.asList(b2)));
+        assertEquals(map.findRoute(b0, b2).getPoints(), route.getPoints());
+    }
+}
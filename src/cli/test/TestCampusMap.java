@@ -19,14 +19,31 @@ package cli.test;
 import org.junit.Test;
 
 import cli.Building;
+import cli.BuildingPair;
+import cli.CachePolicy;
 import cli.CampusMap;
 import cli.CoordinatePoint;
+import cli.DataParser;
+import cli.RouteCache;
+import cli.SearchMode;
+import graphStructures.Graph;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TestCampusMap {
     @Test
@@ -44,4 +61,341 @@ public class TestCampusMap {
             assertTrue(path.get(point).equals(checker.get(point)));
         }
     }
+
+    @Test
+    public void TestAStarSettlesFewerNodes() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        Map<CoordinatePoint, Double> dijkstra = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+        long dijkstraSettled = map.getSettledCount();
+        map.resetSettledCount();
+        Map<CoordinatePoint, Double> astar = map.findPath(fsh, mcc, SearchMode.ASTAR);
+        long astarSettled = map.getSettledCount();
+        assertEquals(new ArrayList<>(dijkstra.keySet()), new ArrayList<>(astar.keySet()));
+        assertEquals(new ArrayList<>(dijkstra.values()), new ArrayList<>(astar.values()));
+        assertTrue(astarSettled < dijkstraSettled);
+    }
+
+    @Test
+    public void TestLandmarksSettleFewerNodes() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        Map<CoordinatePoint, Double> astar = map.findPath(fsh, mcc, SearchMode.ASTAR);
+        long astarSettled = map.getSettledCount();
+        map.getLandmarks();
+        map.resetSettledCount();
+        Map<CoordinatePoint, Double> alt = map.findPath(fsh, mcc, SearchMode.ALT);
+        long altSettled = map.getSettledCount();
+        assertEquals(new ArrayList<>(astar.keySet()), new ArrayList<>(alt.keySet()));
+        assertEquals(new ArrayList<>(astar.values()), new ArrayList<>(alt.values()));
+        assertTrue(altSettled < astarSettled);
+    }
+
+    @Test
+    public void TestArcFlagsSettleFewerNodes() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        Map<CoordinatePoint, Double> dijkstra = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+        long dijkstraSettled = map.getSettledCount();
+        assertTrue(map.getArcFlags().flaggedFraction() < 0.5);
+        map.resetSettledCount();
+        Map<CoordinatePoint, Double> flagged = map.findPath(fsh, mcc, SearchMode.ARC_FLAGS);
+        long flaggedSettled = map.getSettledCount();
+        assertEquals(new ArrayList<>(dijkstra.keySet()), new ArrayList<>(flagged.keySet()));
+        assertEquals(new ArrayList<>(dijkstra.values()), new ArrayList<>(flagged.values()));
+        assertTrue(flaggedSettled < dijkstraSettled);
+    }
+
+    @Test
+    public void TestOverlayRecomputesOnlyChangedCells() throws Exception {
+        Graph<CoordinatePoint, Double> graph = DataParser.parsePaths("src/cli/data/campus_paths.dat");
+        CampusMap map = new CampusMap(graph, SearchMode.OVERLAY);
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        Map<CoordinatePoint, Double> dijkstra = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+        Map<CoordinatePoint, Double> overlay = map.findPath(fsh, mcc);
+        assertEquals(new ArrayList<>(dijkstra.keySet()), new ArrayList<>(overlay.keySet()));
+        int built = map.getOverlay().getCustomizedCount();
+
+        // Close the middle segment of the route both ways by making it very long.
+        List<CoordinatePoint> points = new ArrayList<>(dijkstra.keySet());
+        CoordinatePoint p = points.get(points.size() / 2 - 1);
+        CoordinatePoint q = points.get(points.size() / 2);
+        for (CoordinatePoint[] edge : new CoordinatePoint[][] {{p, q}, {q, p}}) {
+            double weight = graph.getEdgeLabel(edge[0], edge[1]);
+            graph.deleteEdge(weight, edge[0], edge[1]);
+            graph.addEdge(weight * 1000.0, edge[0], edge[1]);
+        }
+        dijkstra = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+        overlay = map.findPath(fsh, mcc);
+        assertFalse(dijkstra.containsKey(q) && dijkstra.containsKey(p));
+        assertEquals(new ArrayList<>(dijkstra.keySet()), new ArrayList<>(overlay.keySet()));
+        int customized = map.getOverlay().getCustomizedCount();
+        assertTrue(customized > 0);
+        assertTrue(customized <= 2 * map.getOverlay().numLevels());
+        assertTrue(customized < built);
+    }
+
+    @Test
+    public void TestBidirectionalMatchesDijkstra() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        Map<CoordinatePoint, Double> dijkstra = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+        long dijkstraSettled = map.getSettledCount();
+        for (SearchMode mode : new SearchMode[] {SearchMode.BIDIRECTIONAL, SearchMode.BIDIRECTIONAL_ASTAR}) {
+            map.resetSettledCount();
+            Map<CoordinatePoint, Double> path = map.findPath(fsh, mcc, mode);
+            assertEquals(new ArrayList<>(dijkstra.keySet()), new ArrayList<>(path.keySet()));
+            assertEquals(new ArrayList<>(dijkstra.values()), new ArrayList<>(path.values()));
+            assertTrue(map.getSettledCount() < dijkstraSettled);
+        }
+    }
+
+    @Test
+    public void TestBidirectionalSameBuilding() {
+        CampusMap map = new CampusMap("src/cli/data/test.dat", SearchMode.BIDIRECTIONAL);
+        Building b = new Building("1", "11", 1, 1);
+        Map<CoordinatePoint, Double> path = map.findPath(b, b);
+        assertEquals(1, path.size());
+        assertEquals(0.0, path.get(new CoordinatePoint(1, 1)), 0.0);
+    }
+
+    @Test
+    public void TestHierarchyMatchesDijkstra() throws IOException {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        Map<CoordinatePoint, Double> dijkstra = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+        File file = File.createTempFile("campus", ".ch");
+        file.deleteOnExit();
+        map.saveHierarchy(file.getPath());
+
+        CampusMap loaded = new CampusMap("src/cli/data/campus_paths.dat", SearchMode.CONTRACTION_HIERARCHY);
+        loaded.loadHierarchy(file.getPath());
+        Map<CoordinatePoint, Double> path = loaded.findPath(fsh, mcc);
+        assertEquals(new ArrayList<>(dijkstra.keySet()), new ArrayList<>(path.keySet()));
+        assertEquals(new ArrayList<>(dijkstra.values()), new ArrayList<>(path.values()));
+    }
+
+    @Test
+    public void TestConcurrentQueries() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        List<Building> buildings = new ArrayList<>(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values()).subList(0, 15);
+        List<Map<CoordinatePoint, Double>> expected = new ArrayList<>();
+        for (Building b1 : buildings) {
+            for (Building b2 : buildings) {
+                expected.add(map.findPath(b1, b2, SearchMode.DIJKSTRA));
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (SearchMode mode : SearchMode.values()) {
+                for (int copy = 0; copy < 2; copy++) {
+                    results.add(pool.submit(() -> {
+                        int i = 0;
+                        for (Building b1 : buildings) {
+                            for (Building b2 : buildings) {
+                                Map<CoordinatePoint, Double> path = map.findPath(b1, b2, mode);
+                                Map<CoordinatePoint, Double> other = expected.get(i++);
+                                if (!new ArrayList<>(path.keySet()).equals(new ArrayList<>(other.keySet()))
+                                        || !new ArrayList<>(path.values()).equals(new ArrayList<>(other.values()))) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }));
+                }
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void TestCacheInvalidatedWhenGraphChanges() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        CoordinatePoint a = new CoordinatePoint(0, 0);
+        CoordinatePoint b = new CoordinatePoint(1, 0);
+        CoordinatePoint c = new CoordinatePoint(2, 0);
+        for (CoordinatePoint point : new CoordinatePoint[] {a, b, c}) {
+            graph.addNode(point);
+        }
+        graph.addEdge(1.0, a, b);
+        graph.addEdge(1.0, b, a);
+        graph.addEdge(1.0, b, c);
+        graph.addEdge(1.0, c, b);
+        CampusMap map = new CampusMap(graph, SearchMode.DIJKSTRA);
+        RouteCache cache = new RouteCache(10, 1 << 20, CachePolicy.LRU);
+        map.setRouteCache(cache);
+        Building ba = new Building("A", "A", a);
+        Building bc = new Building("C", "C", c);
+        assertEquals(3, map.findPath(ba, bc).size());
+        assertEquals(3, map.findPath(bc, ba).size());
+        assertEquals(1, cache.getReversedHitCount());
+
+        graph.addEdge(1.5, a, c);
+        Map<CoordinatePoint, Double> path = map.findPath(ba, bc);
+        assertEquals(2, path.size());
+        assertEquals(1.5, path.get(c), 0.0);
+        assertEquals(1, cache.getInvalidationCount());
+        // The new edge only goes one way, so the route back is searched rather than reversed.
+        assertEquals(3, map.findPath(bc, ba).size());
+        assertEquals(1, cache.getReversedHitCount());
+    }
+
+    @Test
+    public void TestStaleSearchIsNotCached() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        CoordinatePoint a = new CoordinatePoint(0, 0);
+        CoordinatePoint b = new CoordinatePoint(1, 0);
+        CoordinatePoint c = new CoordinatePoint(2, 0);
+        for (CoordinatePoint point : new CoordinatePoint[] {a, b, c}) {
+            graph.addNode(point);
+        }
+        graph.addEdge(1.0, a, b);
+        graph.addEdge(1.0, b, a);
+        graph.addEdge(1.0, b, c);
+        graph.addEdge(1.0, c, b);
+        CampusMap map = new CampusMap(graph, SearchMode.DIJKSTRA);
+        Building ba = new Building("A", "A", a);
+        Building bc = new Building("C", "C", c);
+        // The new point comes before the others, so it shifts the id of every other point.
+        CoordinatePoint z = new CoordinatePoint(-1, 0);
+        boolean[] mutated = {false};
+        RouteCache cache = new RouteCache(10, 1 << 20, CachePolicy.LRU) {
+            @Override
+            public int[] get(int source, int target, boolean symmetric) {
+                if (!mutated[0]) {
+                    // Change the graph while the first search is under way, and have another
+                    // search take the new snapshot before the first one caches its path.
+                    mutated[0] = true;
+                    graph.addNode(z);
+                    graph.addEdge(1.0, z, a);
+                    graph.addEdge(1.0, a, z);
+                    assertEquals(3, map.findPath(ba, bc).size());
+                }
+                return super.get(source, target, symmetric);
+            }
+        };
+        map.setRouteCache(cache);
+        assertEquals(3, map.findPath(ba, bc).size());
+        assertEquals(1, cache.size());
+        Map<CoordinatePoint, Double> path = map.findPath(ba, bc);
+        assertEquals(Arrays.asList(a, b, c), new ArrayList<>(path.keySet()));
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    public void TestIdenticalQueriesShareOneSearch() throws Exception {
+        // The first contraction hierarchy query builds the hierarchy, so a burst of identical
+        // queries arrives while the first one is still running.
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Building fsh = new Building("FSH", "Fishery Sciences Building", 1061.8213, 1779.6903);
+        Building mcc = new Building("MCC", "McCarty Hall (Main Entrance)", 2345.7143, 528.64286);
+        int threads = 8;
+        CountDownLatch ready = new CountDownLatch(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<CoordinatePoint, Double>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return map.findPath(fsh, mcc, SearchMode.CONTRACTION_HIERARCHY);
+                }));
+            }
+            Map<CoordinatePoint, Double> expected = map.findPath(fsh, mcc, SearchMode.DIJKSTRA);
+            for (Future<Map<CoordinatePoint, Double>> result : results) {
+                Map<CoordinatePoint, Double> path = result.get();
+                assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(path.keySet()));
+                assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(path.values()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(map.getDeduplicatedCount() > 0);
+        assertTrue(map.getDeduplicatedCount() < threads);
+    }
+
+    @Test
+    public void TestFindPathsMatchesFindPath() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        List<Building> buildings = new ArrayList<>(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values()).subList(0, 15);
+        // Every building but the last starts fifteen routes, enough to share one tree, and the
+        // last starts only two, which are searched one at a time.
+        List<BuildingPair> pairs = new ArrayList<>();
+        for (Building b1 : buildings.subList(0, 14)) {
+            for (Building b2 : buildings) {
+                pairs.add(new BuildingPair(b1, b2));
+            }
+        }
+        pairs.add(new BuildingPair(buildings.get(14), buildings.get(0)));
+        pairs.add(new BuildingPair(buildings.get(14), buildings.get(14)));
+        List<Map<CoordinatePoint, Double>> paths = map.findPaths(pairs);
+        assertEquals(pairs.size(), paths.size());
+        for (int i = 0; i < pairs.size(); i++) {
+            Map<CoordinatePoint, Double> expected = map.findPath(pairs.get(i).getStart(), pairs.get(i).getDest());
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(paths.get(i).keySet()));
+            assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(paths.get(i).values()));
+        }
+    }
+
+    @Test
+    public void TestFindDistancesMatchesFindPath() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        List<Building> buildings = new ArrayList<>(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values());
+        List<Building> sources = buildings.subList(0, 10);
+        List<Building> targets = buildings.subList(5, 20);
+        double[][] matrix = map.findDistances(sources, targets);
+        assertEquals(sources.size(), matrix.length);
+        for (int i = 0; i < sources.size(); i++) {
+            double[] row = map.findDistances(sources.get(i), targets);
+            for (int j = 0; j < targets.size(); j++) {
+                double length = 0.0;
+                for (double d : map.findPath(sources.get(i), targets.get(j)).values()) {
+                    length += d;
+                }
+                assertEquals(length, matrix[i][j], 1e-9);
+                assertEquals(matrix[i][j], row[j], 0.0);
+            }
+        }
+        map.precomputeRoutes(buildings);
+        assertArrayEquals(matrix[3], map.findDistances(sources.get(3), targets), 1e-9);
+    }
+
+    @Test
+    public void TestHubLabelDistances() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        List<Building> buildings = new ArrayList<>(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values()).subList(0, 12);
+        double[][] searched = map.findDistances(buildings, buildings);
+        File file = File.createTempFile("campus", ".hl");
+        file.deleteOnExit();
+        map.saveHubLabels(file.getPath());
+        for (int i = 0; i < buildings.size(); i++) {
+            for (int j = 0; j < buildings.size(); j++) {
+                assertEquals(searched[i][j], map.findDistance(buildings.get(i), buildings.get(j)), 1e-9);
+            }
+        }
+        CampusMap loaded = new CampusMap("src/cli/data/campus_paths.dat");
+        loaded.loadHubLabels(file.getPath());
+        loaded.resetSettledCount();
+        double[][] labeled = loaded.findDistances(buildings, buildings);
+        assertEquals(0, loaded.getSettledCount());
+        for (int i = 0; i < buildings.size(); i++) {
+            assertArrayEquals(searched[i], labeled[i], 1e-9);
+        }
+    }
 }
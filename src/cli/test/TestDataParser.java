@@ -0,0 +1,125 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.CoordinatePoint;
+import cli.DataParser;
+import cli.DataParser.MalformedDataException;
+import graphStructures.CompactGraph;
+import graphStructures.DoubleGraph;
+import graphStructures.Graph;
+import graphStructures.GraphEdge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+public class TestDataParser {
+    // Returns the name of a temporary file holding the given contents.
+    private static String writeTemp(String contents) throws IOException {
+        File file = File.createTempFile("paths", ".dat");
+        file.deleteOnExit();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(contents);
+        }
+        return file.getPath();
+    }
+
+    @Test
+    public void TestMappedMatchesParsePaths() throws MalformedDataException {
+        for (String file : new String[] {"src/cli/data/test.dat", "src/cli/data/campus_paths.dat"}) {
+            Graph<CoordinatePoint, Double> expected = DataParser.parsePaths(file);
+            Graph<CoordinatePoint, Double> actual = DataParser.parsePathsMapped(file);
+            assertEquals(expected.numNodes(), actual.numNodes());
+            assertEquals(expected.numEdges(), actual.numEdges());
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void TestMappedCommentsAndLineEndings() throws IOException, MalformedDataException {
+        String file = writeTemp("# comment\r\n1.5,-2\r\n\t3e1,4.25: 1.0000000000000002\r\n\t0.5,0: 7");
+        Graph<CoordinatePoint, Double> graph = DataParser.parsePathsMapped(file);
+        assertEquals(3, graph.numNodes());
+        assertEquals(1.0000000000000002, graph.getEdgeLabel(new CoordinatePoint(1.5, -2),
+                                                            new CoordinatePoint(30, 4.25)), 0.0);
+        assertEquals(7.0, graph.getEdgeLabel(new CoordinatePoint(1.5, -2), new CoordinatePoint(0.5, 0)), 0.0);
+    }
+
+    @Test
+    public void TestMappedMalformed() throws IOException {
+        for (String contents : new String[] {"1,2,3\n", "1,2\n\t3,4\n", "\t1,2: 3\n", "1;2\n"}) {
+            try {
+                DataParser.parsePathsMapped(writeTemp(contents));
+                assertTrue("Expected malformed data: " + contents, false);
+            } catch (MalformedDataException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void TestPrimitiveMatchesParsePaths() throws MalformedDataException {
+        for (String file : new String[] {"src/cli/data/test.dat", "src/cli/data/campus_paths.dat"}) {
+            Graph<CoordinatePoint, Double> expected = DataParser.parsePaths(file);
+            DoubleGraph<CoordinatePoint> actual = DataParser.parsePathsPrimitive(file);
+            assertEquals(expected.numNodes(), actual.numNodes());
+            assertEquals(expected.numEdges(), actual.numEdges());
+            assertEquals(expected.toString(), new CompactGraph<>(actual).toGraph().toString());
+        }
+    }
+
+    @Test
+    public void TestParallelMatchesParsePaths() throws IOException, MalformedDataException {
+        // Copy the campus several times over at different offsets so that the file is split into
+        // more than one chunk.
+        Graph<CoordinatePoint, Double> campus = DataParser.parsePaths("src/cli/data/campus_paths.dat");
+        StringBuilder sb = new StringBuilder();
+        for (int copy = 0; copy < 12; copy++) {
+            for (CoordinatePoint point : campus.getNodes()) {
+                sb.append(point.getX() + copy * 5000.0).append(',').append(point.getY()).append('\n');
+                for (GraphEdge<CoordinatePoint, Double> edge : campus.getChildren(point)) {
+                    CoordinatePoint child = edge.getNode().getIdentifier();
+                    sb.append('\t').append(child.getX() + copy * 5000.0).append(',').append(child.getY())
+                      .append(": ").append(edge.getLabel()).append('\n');
+                }
+            }
+        }
+        String file = writeTemp(sb.toString());
+        Graph<CoordinatePoint, Double> expected = DataParser.parsePaths(file);
+        Graph<CoordinatePoint, Double> actual = DataParser.parsePathsParallel(file);
+        assertEquals(12 * campus.numNodes(), actual.numNodes());
+        assertEquals(expected.numEdges(), actual.numEdges());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void TestParallelMalformed() throws IOException {
+        try {
+            DataParser.parsePathsParallel(writeTemp("1,2\n\t3,4: 5\n6,7\n\t8;9: 10\n"));
+            assertTrue("Expected malformed data", false);
+        } catch (MalformedDataException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.Building;
+import cli.CampusMap;
+import cli.CoordinatePoint;
+import cli.DataParser;
+import cli.Route;
+import cli.SearchMode;
+import graphStructures.Graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class TestRoute {
+    @Test
+    public void TestRouteOfTestMap() {
+        CampusMap map = new CampusMap("src/cli/data/test.dat");
+        Route route = map.findRoute(new Building("0", "00", 0, 0), new Building("2", "21", 2, 1));
+        assertEquals(3.0, route.getDistance(), 0.0);
+        assertEquals(4, route.numPoints());
+        assertEquals(3, route.numSegments());
+        assertEquals(Arrays.asList(new CoordinatePoint(0, 0), new CoordinatePoint(0, 1), new CoordinatePoint(1, 1),
+                                   new CoordinatePoint(2, 1)), route.getPoints());
+        assertEquals(new CoordinatePoint(1, 1), route.getPoint(2));
+        assertArrayEquals(new double[] {1.0, 1.0, 1.0}, route.getSegmentWeights(), 0.0);
+        assertEquals("S", route.getCardinal(0));
+        assertEquals("E", route.getCardinal(1));
+        assertEquals(route.getNodeId(2), map.getCompactGraph().id(new CoordinatePoint(1, 1)));
+    }
+
+    @Test
+    public void TestCardinals() {
+        assertEquals("N", Route.getCardinal(0, 1));
+        assertEquals("NE", Route.getCardinal(1, 1));
+        assertEquals("E", Route.getCardinal(1, 0));
+        assertEquals("SE", Route.getCardinal(1, -1));
+        assertEquals("S", Route.getCardinal(0, -1));
+        assertEquals("SW", Route.getCardinal(-1, -1));
+        assertEquals("W", Route.getCardinal(-1, 0));
+        assertEquals("NW", Route.getCardinal(-1, 1));
+    }
+
+    @Test
+    public void TestMatchesFindPath() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        List<Building> buildings = new ArrayList<>(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values()).subList(0, 12);
+        for (int table = 0; table < 2; table++) {
+            for (Building b1 : buildings) {
+                for (Building b2 : buildings) {
+                    Map<CoordinatePoint, Double> path = map.findPath(b1, b2, SearchMode.DIJKSTRA);
+                    Route route = map.findRoute(b1, b2);
+                    assertEquals(route.getPath(), path);
+                    assertEquals(new ArrayList<>(path.keySet()), route.getPoints());
+                    double total = 0.0;
+                    for (double distance : path.values()) {
+                        total += distance;
+                    }
+                    assertEquals(total, route.getDistance(), 1e-9);
+                }
+            }
+            map.precomputeRoutes(buildings);
+        }
+    }
+
+    @Test
+    public void TestUnreachable() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        graph.addNode(new CoordinatePoint(0, 0));
+        graph.addNode(new CoordinatePoint(3, 4));
+        CampusMap map = new CampusMap(graph, SearchMode.ASTAR);
+        assertNull(map.findRoute(new Building("A", "AA", 0, 0), new Building("B", "BB", 3, 4)));
+        assertEquals(0.0, map.findRoute(new Building("A", "AA", 0, 0), new Building("A", "AA", 0, 0)).getDistance(), 0.0);
+    }
+
+    @Test
+    public void TestRouteBetweenCoordinates() {
+        CampusMap map = new CampusMap("src/cli/data/test.dat");
+        int nodes = map.getCompactGraph().numNodes();
+        Route route = map.findRoute(new CoordinatePoint(0.5, -0.2), new CoordinatePoint(2.3, 1.5));
+        assertEquals(3.0, route.getDistance(), 1e-9);
+        assertEquals(new CoordinatePoint(0.5, 0), route.getPoint(0));
+        assertEquals(-1, route.getNodeId(0));
+        assertEquals(new CoordinatePoint(2, 1.5), route.getPoint(route.numPoints() - 1));
+        assertEquals(nodes, map.getCompactGraph().numNodes());
+
+        Route along = map.findRoute(new CoordinatePoint(0.2, 0.1), new CoordinatePoint(0.8, -0.1));
+        assertEquals(2, along.numPoints());
+        assertEquals(0.6, along.getDistance(), 1e-9);
+        assertEquals("E", along.getCardinal(0));
+
+        Route onPoints = map.findRoute(new CoordinatePoint(0, 0), new CoordinatePoint(2, 1));
+        assertEquals(map.findRoute(new Building("0", "00", 0, 0), new Building("2", "21", 2, 1)).getPoints(),
+                     onPoints.getPoints());
+    }
+
+    @Test
+    public void TestRouteAlongOneWaySegment() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        CoordinatePoint a = new CoordinatePoint(0, 0);
+        CoordinatePoint b = new CoordinatePoint(10, 0);
+        graph.addNode(a);
+        graph.addNode(b);
+        graph.addEdge(10.0, a, b);
+        CampusMap map = new CampusMap(graph, SearchMode.DIJKSTRA);
+        long modifications = graph.getModificationCount();
+        assertEquals(5.0, map.findRoute(new CoordinatePoint(2, 1), new CoordinatePoint(7, 1)).getDistance(), 1e-9);
+        assertNull(map.findRoute(new CoordinatePoint(7, 1), new CoordinatePoint(2, 1)));
+        assertEquals(modifications, graph.getModificationCount());
+    }
+
+    @Test
+    public void TestCoordinateRoutesMatchBuildingRoutes() throws Exception {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        List<Building> buildings = new ArrayList<>(
+                DataParser.parseBuildings("src/cli/data/campus_buildings.dat").values()).subList(0, 10);
+        for (Building b1 : buildings) {
+            for (Building b2 : buildings) {
+                Route route = map.findRoute(b1.getCoordinates(), b2.getCoordinates());
+                assertEquals(map.findRoute(b1, b2).getDistance(), route.getDistance(), 1e-9);
+                assertEquals(b1.getCoordinates(), route.getPoint(0));
+                assertEquals(b2.getCoordinates(), route.getPoint(route.numPoints() - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.CachePolicy;
+import cli.RouteCache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRouteCache {
+    @Test
+    public void TestHitsAndMisses() {
+        for (CachePolicy policy : CachePolicy.values()) {
+            RouteCache cache = new RouteCache(10, 1 << 20, policy);
+            assertNull(cache.get(1, 2, false));
+            cache.put(1, 2, new int[] {1, 5, 2});
+            assertArrayEquals(new int[] {1, 5, 2}, cache.get(1, 2, false));
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    public void TestReversed() {
+        for (CachePolicy policy : CachePolicy.values()) {
+            RouteCache cache = new RouteCache(10, 1 << 20, policy);
+            cache.put(1, 2, new int[] {1, 5, 2});
+            assertNull(cache.get(2, 1, false));
+            assertArrayEquals(new int[] {2, 5, 1}, cache.get(2, 1, true));
+            assertEquals(1, cache.getReversedHitCount());
+            assertEquals(1, cache.getHitCount());
+        }
+    }
+
+    @Test
+    public void TestLruEviction() {
+        RouteCache cache = new RouteCache(3, 1 << 20, CachePolicy.LRU);
+        cache.put(0, 1, new int[] {0, 1});
+        cache.put(0, 2, new int[] {0, 2});
+        cache.put(0, 3, new int[] {0, 3});
+        cache.get(0, 1, false);
+        cache.put(0, 4, new int[] {0, 4});
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(0, 2, false));
+        assertNotNull(cache.get(0, 1, false));
+        assertNotNull(cache.get(0, 4, false));
+    }
+
+    @Test
+    public void TestTinyLfuKeepsPopularRoutes() {
+        RouteCache cache = new RouteCache(100, 1 << 20, CachePolicy.TINY_LFU);
+        for (int popular = 0; popular < 20; popular++) {
+            cache.put(0, popular, new int[] {0, popular});
+            for (int request = 0; request < 5; request++) {
+                cache.get(0, popular, false);
+            }
+        }
+        // A scan of routes requested once each should not push out the popular ones.
+        for (int other = 1000; other < 2000; other++) {
+            if (cache.get(1, other, false) == null) {
+                cache.put(1, other, new int[] {1, other});
+            }
+        }
+        for (int popular = 0; popular < 20; popular++) {
+            assertNotNull(cache.get(0, popular, false));
+        }
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void TestMemoryBound() {
+        for (CachePolicy policy : CachePolicy.values()) {
+            RouteCache cache = new RouteCache(1000, 2000, policy);
+            for (int i = 0; i < 50; i++) {
+                cache.put(i, i + 1, new int[100]);
+            }
+            assertTrue(cache.weightedSize() <= 2000);
+            assertTrue(cache.size() < 50);
+            assertEquals(50 - cache.size(), cache.getEvictionCount());
+        }
+    }
+
+    @Test
+    public void TestInvalidate() {
+        for (CachePolicy policy : CachePolicy.values()) {
+            RouteCache cache = new RouteCache(10, 1 << 20, policy);
+            cache.put(1, 2, new int[] {1, 2});
+            cache.invalidate();
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.weightedSize());
+            assertEquals(1, cache.getInvalidationCount());
+            assertNull(cache.get(1, 2, true));
+        }
+    }
+}
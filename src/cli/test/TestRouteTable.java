@@ -0,0 +1,104 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.Building;
+import cli.CampusMap;
+import cli.CoordinatePoint;
+import cli.DataParser;
+import cli.DataParser.MalformedDataException;
+import cli.RouteTable;
+import cli.SearchMode;
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+public class TestRouteTable {
+    @Test
+    public void TestMatchesSearch() throws MalformedDataException {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        Map<String, Building> buildings = DataParser.parseBuildings("src/cli/data/campus_buildings.dat");
+        RouteTable table = new RouteTable(map.getCompactGraph(), buildings.values());
+        for (Building b1 : buildings.values()) {
+            for (Building b2 : buildings.values()) {
+                Map<CoordinatePoint, Double> expected = map.findPath(b1, b2, SearchMode.DIJKSTRA);
+                Map<CoordinatePoint, Double> actual = table.findPath(b1, b2);
+                assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+                assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+                double total = 0.0;
+                for (double distance : expected.values()) {
+                    total += distance;
+                }
+                assertEquals(total, table.distance(b1, b2), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void TestCampusMapUsesTable() {
+        CampusMap map = new CampusMap("src/cli/data/test.dat");
+        Building b0 = new Building("0", "00", 0, 0);
+        Building b2 = new Building("2", "21", 2, 1);
+        assertNull(map.getRouteTable());
+        RouteTable table = map.precomputeRoutes(Arrays.asList(b0, b2));
+        assertTrue(map.getRouteTable() == table);
+        map.resetSettledCount();
+        assertEquals(4, map.findPath(b0, b2).size());
+        assertEquals(0, map.getSettledCount());
+        assertEquals(3.0, table.distance(b0, b2), 0.0);
+        assertFalse(table.contains(new Building("1", "10", 1, 0)));
+    }
+
+    @Test
+    public void TestUnreachableAndRebuild() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        CoordinatePoint a = new CoordinatePoint(0, 0);
+        CoordinatePoint b = new CoordinatePoint(3, 4);
+        graph.addNode(a);
+        graph.addNode(b);
+        Building ba = new Building("A", "A", a);
+        Building bb = new Building("B", "B", b);
+        RouteTable table = new RouteTable(new CompactGraph<>(graph), Arrays.asList(ba, bb));
+        assertNull(table.findPath(ba, bb));
+        assertEquals(Double.POSITIVE_INFINITY, table.distance(ba, bb), 0.0);
+        assertEquals(1, table.findPath(ba, ba).size());
+
+        graph.addEdge(5.0, a, b);
+        table.rebuild(new CompactGraph<>(graph), Arrays.asList(ba, bb));
+        assertEquals(5.0, table.distance(ba, bb), 0.0);
+        assertEquals(Arrays.asList(a, b), new ArrayList<>(table.findPath(ba, bb).keySet()));
+        assertNull(table.findPath(bb, ba));
+        table.rebuild();
+        assertEquals(5.0, table.distance(ba, bb), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestBuildingOffMap() {
+        CampusMap map = new CampusMap("src/cli/data/test.dat");
+        map.precomputeRoutes(Arrays.asList(new Building("X", "X", 100, 100)));
+    }
+}
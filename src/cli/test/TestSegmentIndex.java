@@ -0,0 +1,79 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.CampusMap;
+import cli.CoordinatePoint;
+import cli.SegmentIndex;
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+public class TestSegmentIndex {
+    @Test
+    public void TestNearestMatchesScan() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        SegmentIndex index = map.getSegmentIndex();
+        assertTrue(index.size() > 0);
+        Random random = new Random(41);
+        for (int query = 0; query < 500; query++) {
+            // Some queries fall outside the map, where the grid has to look further out.
+            double x = random.nextDouble() * 6000 - 1000;
+            double y = random.nextDouble() * 4000 - 1000;
+            double best = Double.POSITIVE_INFINITY;
+            for (int s = 0; s < index.size(); s++) {
+                best = Math.min(best, distance(index, s, x, y));
+            }
+            assertEquals(best, distance(index, index.nearest(x, y), x, y), 1e-9);
+        }
+    }
+
+    @Test
+    public void TestSegmentsOfSmallMap() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        CoordinatePoint a = new CoordinatePoint(0, 0);
+        CoordinatePoint b = new CoordinatePoint(4, 0);
+        CoordinatePoint c = new CoordinatePoint(4, 3);
+        graph.addNode(a);
+        graph.addNode(b);
+        graph.addNode(c);
+        graph.addEdge(4.0, a, b);
+        graph.addEdge(4.0, b, a);
+        graph.addEdge(3.0, b, c);
+        SegmentIndex index = new SegmentIndex(new CompactGraph<>(graph));
+        assertEquals(2, index.size());
+        int oneWay = index.nearest(5, 2);
+        assertEquals(new CoordinatePoint(4, 0), index.getCompactGraph().node(index.getFrom(oneWay)));
+        assertEquals(3.0, index.getForwardWeight(oneWay), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, index.getBackwardWeight(oneWay), 0.0);
+        int twoWay = index.nearest(1, -1);
+        assertEquals(0.25, index.fraction(twoWay, 1, -1), 0.0);
+        assertEquals(new CoordinatePoint(1, 0), index.point(twoWay, 0.25));
+        assertEquals(-1, new SegmentIndex(new CompactGraph<>(new Graph<CoordinatePoint, Double>())).nearest(0, 0));
+    }
+
+    // Returns the distance from (x, y) to the nearest point of segment s.
+    private static double distance(SegmentIndex index, int s, double x, double y) {
+        return index.point(s, index.fraction(s, x, y)).distance(new CoordinatePoint(x, y));
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cli.test;
+
+import org.junit.Test;
+
+import cli.CampusMap;
+import cli.CoordinatePoint;
+import cli.SpatialIndex;
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class TestSpatialIndex {
+    @Test
+    public void TestNearestMatchesScan() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        CompactGraph<CoordinatePoint> compact = map.getCompactGraph();
+        SpatialIndex index = map.getSpatialIndex();
+        assertEquals(compact.numNodes(), index.size());
+        Random random = new Random(17);
+        for (int query = 0; query < 500; query++) {
+            double x = random.nextDouble() * 4500 - 500;
+            double y = random.nextDouble() * 3000 - 500;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < compact.numNodes(); i++) {
+                best = Math.min(best, distance(compact, i, x, y));
+            }
+            assertEquals(best, distance(compact, index.nearest(x, y), x, y), 0.0);
+        }
+    }
+
+    @Test
+    public void TestKNearestMatchesScan() {
+        CampusMap map = new CampusMap("src/cli/data/campus_paths.dat");
+        CompactGraph<CoordinatePoint> compact = map.getCompactGraph();
+        SpatialIndex index = map.getSpatialIndex();
+        Integer[] all = new Integer[compact.numNodes()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        Random random = new Random(29);
+        for (int query = 0; query < 100; query++) {
+            double x = random.nextDouble() * 4000;
+            double y = random.nextDouble() * 2500;
+            int k = 1 + random.nextInt(20);
+            Arrays.sort(all, Comparator.comparingDouble(i -> distance(compact, i, x, y)));
+            int[] nearest = index.nearest(x, y, k);
+            assertEquals(k, nearest.length);
+            for (int i = 0; i < k; i++) {
+                assertEquals(distance(compact, all[i], x, y), distance(compact, nearest[i], x, y), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void TestSmallMaps() {
+        Graph<CoordinatePoint, Double> graph = new Graph<>();
+        SpatialIndex empty = new SpatialIndex(new CompactGraph<>(graph));
+        assertEquals(-1, empty.nearest(1.0, 1.0));
+        assertNull(empty.nearest(new CoordinatePoint(1, 1)));
+        assertArrayEquals(new int[0], empty.nearest(1.0, 1.0, 3));
+
+        CampusMap map = new CampusMap("src/cli/data/test.dat");
+        assertEquals(new CoordinatePoint(1, 1), map.nearestPoint(new CoordinatePoint(1.2, 0.9)));
+        List<CoordinatePoint> points = map.nearestPoints(new CoordinatePoint(-1, -1), 20);
+        assertEquals(9, points.size());
+        assertEquals(new CoordinatePoint(0, 0), points.get(0));
+        assertEquals(new CoordinatePoint(2, 2), points.get(8));
+    }
+
+    // Returns the distance from the point with the given id to (x, y).
+    private static double distance(CompactGraph<CoordinatePoint> compact, int node, double x, double y) {
+        return compact.node(node).distance(new CoordinatePoint(x, y));
+    }
+}
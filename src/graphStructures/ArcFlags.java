@@ -0,0 +1,247 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * This immutable class represents the arc flags of a CompactGraph whose nodes are divided into
+ * regions.  Each edge has one flag per region, which is set if the edge starts a shortest path
+ * to some node of that region, so a search towards a node can skip every edge whose flag for
+ * the node's region is clear and still find a shortest path.
+ * <p>
+ * The flags of a region are found with one backward shortest path tree from each of its
+ * boundary nodes, the nodes of the region with an edge coming in from another region.  Every
+ * edge on a shortest path to a boundary node gets the region's flag, as does every edge
+ * between two nodes of the region.  The trees are grown in parallel on the common fork/join
+ * pool.  The flags of an edge are kept side by side as a bitset of one long per 64 regions.
+ *
+ * @author Dan Tran
+ *
+ */
+public class ArcFlags<N extends Comparable<N>> {
+    // This immutable class represents the arc flags of a CompactGraph whose nodes are divided
+    // into regions.
+
+    // Representation Invariant: graph, regions, and flags != null, regions has
+    // graph.numNodes() entries in the range [0, numRegions), words == ceil(numRegions / 64),
+    // and flags has graph.numEdges() * words entries.
+
+    // Abstraction Function: Node v is in region regions[v].  The flag of edge e for region r
+    // is bit r % 64 of flags[e * words + r / 64].
+
+    // How far an edge may be off a shortest path, relative to the distance, and still count
+    // as on it, so that rounding in the sums never clears a flag a search needs.
+    private static final double TOLERANCE = 1e-9;
+
+    private final CompactGraph<N> graph;
+    private final int[] regions;
+    private final int numRegions;
+    private final int words;
+    private final long[] flags;
+
+    /**
+     * Finds the arc flags of the given graph for the given division of its nodes into regions.
+     * @param graph The graph to find the flags of.
+     * @param regions The region of each node, indexed by node id.
+     * @param numRegions The number of regions.
+     * @requires graph and regions != null, regions has graph.numNodes() entries in the range
+     * [0, numRegions), numRegions > 0, and every edge weight in graph is non-negative.
+     * @effects Creates the arc flags of graph for the given regions.
+     */
+    public ArcFlags(CompactGraph<N> graph, int[] regions, int numRegions) {
+        this.graph = graph;
+        this.regions = regions.clone();
+        this.numRegions = numRegions;
+        this.words = (numRegions + 63) >>> 6;
+        this.flags = new long[graph.numEdges() * words];
+        int[] boundary = boundary();
+        flagInterior();
+        ForkJoinPool.commonPool().invoke(new TreeTask(boundary, 0, boundary.length));
+        checkRep();
+    }
+
+    /**
+     * Returns the graph these are the arc flags of.
+     * @return The graph these are the arc flags of.
+     */
+    public CompactGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of regions.
+     * @return The number of regions the nodes are divided into.
+     */
+    public int numRegions() {
+        return numRegions;
+    }
+
+    /**
+     * Returns the region of node v.
+     * @param v The id of the node.
+     * @requires 0 <= v < getGraph().numNodes()
+     * @return The region node v is in.
+     */
+    public int getRegion(int v) {
+        return regions[v];
+    }
+
+    /**
+     * Returns whether the given edge starts a shortest path to some node of the given region.
+     * @param edge The index of the edge.
+     * @param region The region.
+     * @requires 0 <= edge < getGraph().numEdges() and 0 <= region < numRegions()
+     * @return true if the flag of edge for region is set.
+     */
+    public boolean isFlagged(int edge, int region) {
+        return (flags[edge * words + (region >>> 6)] & (1L << region)) != 0;
+    }
+
+    /**
+     * Returns a filter that passes the edges a search towards node t needs to follow.
+     * @param t The id of the node the search is towards.
+     * @requires 0 <= t < getGraph().numNodes()
+     * @return A filter passing the edges whose flag for the region of t is set.
+     */
+    public IntPredicate toward(int t) {
+        int word = regions[t] >>> 6;
+        long bit = 1L << regions[t];
+        return edge -> (flags[edge * words + word] & bit) != 0;
+    }
+
+    /**
+     * Returns the fraction of all the flags that are set.
+     * @return The number of flags set divided by getGraph().numEdges() * numRegions(), or zero
+     * if the graph has no edges.
+     */
+    public double flaggedFraction() {
+        if (flags.length == 0) {
+            return 0.0;
+        }
+        long count = 0;
+        for (long word : flags) {
+            count += Long.bitCount(word);
+        }
+        return (double) count / ((long) graph.numEdges() * numRegions);
+    }
+
+    /**
+     * Returns the number of bytes the flags take up.
+     * @return The number of bytes in the flags of every edge.
+     */
+    public long bytes() {
+        return 8L * flags.length;
+    }
+
+    // Returns the ids of the nodes with an edge coming in from a node of another region.
+    private int[] boundary() {
+        int n = graph.numNodes();
+        int[] boundary = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.firstReverseEdge(v); e < graph.endReverseEdge(v); e++) {
+                if (regions[graph.source(e)] != regions[v]) {
+                    boundary[count++] = v;
+                    break;
+                }
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(boundary, 0, result, 0, count);
+        return result;
+    }
+
+    // Sets the flag of every edge between two nodes of the same region for that region.
+    private void flagInterior() {
+        for (int u = 0; u < graph.numNodes(); u++) {
+            int region = regions[u];
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                if (regions[graph.target(e)] == region) {
+                    flags[e * words + (region >>> 6)] |= 1L << region;
+                }
+            }
+        }
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[ArcFlags] graph is null.";
+        assert regions.length == graph.numNodes() : "[ArcFlags] regions has the wrong size.";
+        assert flags.length == graph.numEdges() * words : "[ArcFlags] flags has the wrong size.";
+        for (int region : regions) {
+            assert 0 <= region && region < numRegions : "[ArcFlags] region " + region + " is out of range.";
+        }
+    }
+
+    // Grows the backward shortest path trees to the boundary nodes from start to end, splitting
+    // them in half while there are more than a few.  Each half sets flags in its own copy, which
+    // is merged into the flags once its trees are done.
+    @SuppressWarnings("serial")
+    private class TreeTask extends RecursiveAction {
+        private static final int TREES = 8;
+
+        private final int[] boundary;
+        private final int start;
+        private final int end;
+
+        private TreeTask(int[] boundary, int start, int end) {
+            this.boundary = boundary;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > TREES) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new TreeTask(boundary, start, middle), new TreeTask(boundary, middle, end));
+                return;
+            }
+            int n = graph.numNodes();
+            ShortestPathSearch<N> search = new ShortestPathSearch<>(graph);
+            double[] distances = new double[n];
+            int[] parents = new int[n];
+            long[] local = new long[flags.length];
+            for (int i = start; i < end; i++) {
+                int root = boundary[i];
+                int word = regions[root] >>> 6;
+                long bit = 1L << regions[root];
+                search.findTree(root, true, distances, parents);
+                for (int u = 0; u < n; u++) {
+                    double distance = distances[u];
+                    if (distance == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    double slack = distance * TOLERANCE;
+                    for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                        if (distances[graph.target(e)] + graph.weight(e) <= distance + slack) {
+                            local[e * words + word] |= bit;
+                        }
+                    }
+                }
+            }
+            synchronized (flags) {
+                for (int i = 0; i < flags.length; i++) {
+                    flags[i] |= local[i];
+                }
+            }
+        }
+    }
+}
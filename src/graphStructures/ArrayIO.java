@@ -0,0 +1,106 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * This class reads and writes arrays of primitives in the binary files that the speedup
+ * structures save their preprocessing to.
+ *
+ * @author Dan Tran
+ *
+ */
+final class ArrayIO {
+
+    private ArrayIO() {
+    }
+
+    /**
+     * Reads the given number of ints from input.
+     * @param input The stream to read from.
+     * @param length The number of ints to read.
+     * @requires input != null
+     * @modifies input
+     * @effects Consumes 4 * length bytes of input.
+     * @return A new array of the ints read, in order.
+     * @throws IOException if input can not be read, ends too soon, or length is negative.
+     */
+    static int[] readInts(DataInputStream input, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative array length " + length);
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Reads the given number of doubles from input.
+     * @param input The stream to read from.
+     * @param length The number of doubles to read.
+     * @requires input != null
+     * @modifies input
+     * @effects Consumes 8 * length bytes of input.
+     * @return A new array of the doubles read, in order.
+     * @throws IOException if input can not be read, ends too soon, or length is negative.
+     */
+    static double[] readDoubles(DataInputStream input, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative array length " + length);
+        }
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = input.readDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Writes every int of values to output, in order.
+     * @param output The stream to write to.
+     * @param values The ints to write.
+     * @requires output and values != null
+     * @modifies output
+     * @effects Writes 4 * values.length bytes to output.
+     * @throws IOException if output can not be written.
+     */
+    static void writeInts(DataOutputStream output, int[] values) throws IOException {
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    /**
+     * Writes every double of values to output, in order.
+     * @param output The stream to write to.
+     * @param values The doubles to write.
+     * @requires output and values != null
+     * @modifies output
+     * @effects Writes 8 * values.length bytes to output.
+     * @throws IOException if output can not be written.
+     */
+    static void writeDoubles(DataOutputStream output, double[] values) throws IOException {
+        for (double value : values) {
+            output.writeDouble(value);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.Arrays;
+
+/**
+ * This class represents an indexed binary min-heap of node ids with double keys.
+ *
+ * @author Dan Tran
+ *
+ */
+public class BinaryHeap implements NodeQueue {
+    // This class represents an indexed binary min-heap of node ids with double keys.
+
+    // Representation Invariant: heap, positions, and keys != null, positions and keys have
+    // capacity entries, 0 <= size <= capacity, positions[heap[i]] == i for 0 <= i < size,
+    // positions[v] == -1 for every other node v, and keys[heap[(i - 1) / 2]] <= keys[heap[i]]
+    // for 0 < i < size.
+
+    // Abstraction Function: The queue holds the nodes heap[0] to heap[size - 1], where node v
+    // has key keys[v].
+
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] keys;
+    private int size;
+
+    /**
+     * Constructs an empty heap for the node ids 0 to capacity - 1.
+     * @param capacity The number of node ids the heap can hold.
+     * @requires capacity >= 0
+     * @effects Creates an empty heap.
+     */
+    public BinaryHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(positions, -1);
+        checkRep();
+    }
+
+    @Override
+    public int capacity() {
+        return positions.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    @Override
+    public double key(int node) {
+        return keys[node];
+    }
+
+    @Override
+    public void add(int node, double key) {
+        keys[node] = key;
+        heap[size] = node;
+        positions[node] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    @Override
+    public void decreaseKey(int node, double key) {
+        keys[node] = key;
+        siftUp(positions[node]);
+    }
+
+    @Override
+    public int peek() {
+        return heap[0];
+    }
+
+    @Override
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    @Override
+    public int remove() {
+        int min = heap[0];
+        positions[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    // Moves the node at position i up the heap until its parent's key is no larger.
+    private void siftUp(int i) {
+        int node = heap[i];
+        double key = keys[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            positions[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        positions[node] = i;
+    }
+
+    // Moves the node at position i down the heap until no child's key is smaller.
+    private void siftDown(int i) {
+        int node = heap[i];
+        double key = keys[node];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+            heap[i] = heap[child];
+            positions[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = node;
+        positions[node] = i;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert heap.length == positions.length : "[BinaryHeap] arrays have different lengths.";
+        assert 0 <= size && size <= heap.length : "[BinaryHeap] size is out of range.";
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents an immutable snapshot of a directed graph with numeric edge labels,
+ * stored in compressed sparse row form.  Nodes are numbered densely from 0 in ascending order
+ * of their identifiers, and the edges leaving a node are stored next to each other in primitive
+ * arrays, as are the edges entering a node.
+ *
+ * @author Dan Tran
+ *
+ */
+public class CompactGraph<N extends Comparable<N>> {
+    // This class represents an immutable snapshot of a directed graph with numeric edge labels.
+
+    // Representation Invariant: nodes, offsets, targets, weights, reverseOffsets, reverseSources,
+    // and reverseWeights != null.  nodes is sorted in ascending order with no duplicates,
+    // offsets and reverseOffsets have nodes.size() + 1 entries, start at 0, never decrease, and
+    // end at the number of edges, which is the length of the other arrays.  Every target and
+    // source is between 0 and nodes.size() - 1.
+
+    // Abstraction Function: Node i is nodes.get(i).  The edges leaving node i are the edges with
+    // indexes offsets[i] to offsets[i + 1] - 1, where edge e goes to node targets[e] with
+    // weight weights[e].  The edges entering node i are the reverse edges with indexes
+    // reverseOffsets[i] to reverseOffsets[i + 1] - 1, where reverse edge e comes from node
+    // reverseSources[e] with weight reverseWeights[e].  symmetric is whether the edges entering
+    // each node are the edges leaving it turned around.
+
+    private final List<N> nodes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] reverseOffsets;
+    private final int[] reverseSources;
+    private final double[] reverseWeights;
+    private final boolean symmetric;
+
+    /**
+     * Constructs a snapshot of the nodes and edges currently in the given graph.
+     * @param graph The graph to take a snapshot of.
+     * @requires graph != null
+     * @effects Creates a snapshot of the nodes and edges currently in the given graph, which is
+     * not affected by later changes to graph.
+     */
+    public CompactGraph(Graph<N, ? extends Number> graph) {
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(graph.getNodes()));
+        int n = nodes.size();
+        this.offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + graph.getChildren(nodes.get(i)).size();
+        }
+        this.targets = new int[offsets[n]];
+        this.weights = new double[offsets[n]];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            for (GraphEdge<N, ? extends Number> edge : graph.getChildren(nodes.get(i))) {
+                targets[e] = id(edge.getNode().getIdentifier());
+                weights[e] = edge.getLabel().doubleValue();
+                e++;
+            }
+        }
+        this.reverseOffsets = new int[n + 1];
+        this.reverseSources = new int[targets.length];
+        this.reverseWeights = new double[targets.length];
+        reverse();
+        this.symmetric = checkSymmetric();
+        checkRep();
+    }
+
+    /**
+     * Constructs a snapshot of the nodes and edges currently in the given graph.  The nodes are
+     * renumbered in ascending order of their identifiers and the edges leaving each node are
+     * sorted by target and then weight, so the snapshot is the same as one of an equal Graph.
+     * @param graph The graph to take a snapshot of.
+     * @requires graph != null
+     * @effects Creates a snapshot of the nodes and edges currently in the given graph, which is
+     * not affected by later changes to graph.
+     */
+    public CompactGraph(DoubleGraph<N> graph) {
+        int n = graph.numNodes();
+        List<N> sorted = new ArrayList<>(graph.getNodes());
+        Collections.sort(sorted);
+        this.nodes = Collections.unmodifiableList(sorted);
+        int[] oldIds = new int[n];
+        int[] newIds = new int[n];
+        for (int old = 0; old < n; old++) {
+            newIds[old] = Collections.binarySearch(sorted, graph.node(old));
+            oldIds[newIds[old]] = old;
+        }
+        this.offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + graph.degree(oldIds[i]);
+        }
+        this.targets = new int[offsets[n]];
+        this.weights = new double[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int old = oldIds[i];
+            for (int j = 0; j < graph.degree(old); j++) {
+                // Insert each edge into place among the edges of this node added so far.
+                int target = newIds[graph.target(old, j)];
+                double weight = graph.weight(old, j);
+                int e = offsets[i] + j;
+                while (e > offsets[i] && (targets[e - 1] > target
+                        || (targets[e - 1] == target && weights[e - 1] > weight))) {
+                    targets[e] = targets[e - 1];
+                    weights[e] = weights[e - 1];
+                    e--;
+                }
+                targets[e] = target;
+                weights[e] = weight;
+            }
+        }
+        this.reverseOffsets = new int[n + 1];
+        this.reverseSources = new int[targets.length];
+        this.reverseWeights = new double[targets.length];
+        reverse();
+        this.symmetric = checkSymmetric();
+        checkRep();
+    }
+
+    /**
+     * Constructs a snapshot with the given nodes and edges in compressed sparse row form.  The
+     * arrays are used as they are rather than copied.
+     * @param nodes The identifiers of the nodes, indexed by id.
+     * @param offsets The index of the first edge leaving each node, followed by the number of edges.
+     * @param targets The id of the node each edge goes to.
+     * @param weights The weight of each edge.
+     * @requires nodes is sorted in ascending order with no duplicates, offsets has
+     * nodes.size() + 1 entries starting at 0 and never decreasing, targets and weights have
+     * offsets[nodes.size()] entries, every target is the id of a node, and none of the
+     * arguments are modified afterwards.
+     * @effects Creates a snapshot with the given nodes and edges.
+     */
+    public CompactGraph(List<N> nodes, int[] offsets, int[] targets, double[] weights) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.reverseOffsets = new int[nodes.size() + 1];
+        this.reverseSources = new int[targets.length];
+        this.reverseWeights = new double[targets.length];
+        reverse();
+        this.symmetric = checkSymmetric();
+        checkRep();
+    }
+
+    // Fills in the reverse edges from the forward edges.
+    private void reverse() {
+        int n = nodes.size();
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] next = new int[n];
+        System.arraycopy(reverseOffsets, 0, next, 0, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int r = next[targets[e]]++;
+                reverseSources[r] = u;
+                reverseWeights[r] = weights[e];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes in this.
+     * @return The number of nodes in this.
+     */
+    public int numNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of edges in this.
+     * @return The number of edges in this.
+     */
+    public int numEdges() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the id of the node with the given identifier.
+     * @param identifier The identifier of the node.
+     * @requires identifier != null
+     * @return The id of the node with the given identifier, or -1 if it is not in this.
+     */
+    public int id(N identifier) {
+        int id = Collections.binarySearch(nodes, identifier);
+        return id < 0 ? -1 : id;
+    }
+
+    /**
+     * Returns the identifier of the node with the given id.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return The identifier of the node with the given id.
+     */
+    public N node(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Returns the identifiers of the nodes in this, indexed by id.
+     * @return An unmodifiable list of the identifiers of the nodes in this, indexed by id.
+     */
+    public List<N> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the index of the first edge leaving the given node.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return The index of the first edge leaving the given node.
+     */
+    public int firstEdge(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * Returns one more than the index of the last edge leaving the given node.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return One more than the index of the last edge leaving the given node.
+     */
+    public int endEdge(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * Returns the id of the node the given edge goes to.
+     * @param edge The index of the edge.
+     * @requires 0 <= edge < numEdges()
+     * @return The id of the node the given edge goes to.
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the weight of the given edge.
+     * @param edge The index of the edge.
+     * @requires 0 <= edge < numEdges()
+     * @return The weight of the given edge.
+     */
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Returns the index of the first reverse edge entering the given node.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return The index of the first reverse edge entering the given node.
+     */
+    public int firstReverseEdge(int id) {
+        return reverseOffsets[id];
+    }
+
+    /**
+     * Returns one more than the index of the last reverse edge entering the given node.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return One more than the index of the last reverse edge entering the given node.
+     */
+    public int endReverseEdge(int id) {
+        return reverseOffsets[id + 1];
+    }
+
+    /**
+     * Returns the id of the node the given reverse edge comes from.
+     * @param edge The index of the reverse edge.
+     * @requires 0 <= edge < numEdges()
+     * @return The id of the node the given reverse edge comes from.
+     */
+    public int source(int edge) {
+        return reverseSources[edge];
+    }
+
+    /**
+     * Returns the weight of the given reverse edge.
+     * @param edge The index of the reverse edge.
+     * @requires 0 <= edge < numEdges()
+     * @return The weight of the given reverse edge.
+     */
+    public double reverseWeight(int edge) {
+        return reverseWeights[edge];
+    }
+
+    /**
+     * Returns a new mutable graph with the same nodes and edges as this.
+     * @return A new mutable graph with the same nodes and edges as this.
+     */
+    public Graph<N, Double> toGraph() {
+        Graph<N, Double> graph = new Graph<>();
+        for (N node : nodes) {
+            graph.addNode(node);
+        }
+        for (int u = 0; u < nodes.size(); u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                graph.addEdge(weights[e], nodes.get(u), nodes.get(targets[e]));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the smallest weight of the edges from parent to child.
+     * @param parent The id of the node the edge leaves.
+     * @param child The id of the node the edge enters.
+     * @requires 0 <= parent, child < numNodes()
+     * @return The smallest weight of the edges from parent to child, or positive infinity if
+     * there are none.
+     */
+    public double edgeWeight(int parent, int child) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int e = offsets[parent]; e < offsets[parent + 1]; e++) {
+            if (targets[e] == child && weights[e] < best) {
+                best = weights[e];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns whether every edge has a matching edge with the same weight in the opposite
+     * direction, so that a path reversed is a path of the same length.
+     * @return true if the edges leaving each node are the edges entering it turned around,
+     * counting parallel edges, and false otherwise.
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    // Returns whether the edges leaving each node are the edges entering it turned around,
+    // counting parallel edges.
+    private boolean checkSymmetric() {
+        for (int u = 0; u < nodes.size(); u++) {
+            if (offsets[u + 1] - offsets[u] != reverseOffsets[u + 1] - reverseOffsets[u]) {
+                return false;
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int leaving = 0;
+                for (int f = offsets[u]; f < offsets[u + 1]; f++) {
+                    if (targets[f] == targets[e] && weights[f] == weights[e]) {
+                        leaving++;
+                    }
+                }
+                int entering = 0;
+                for (int r = reverseOffsets[u]; r < reverseOffsets[u + 1]; r++) {
+                    if (reverseSources[r] == targets[e] && reverseWeights[r] == weights[e]) {
+                        entering++;
+                    }
+                }
+                if (leaving != entering) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert nodes != null : "[CompactGraph] nodes is null.";
+        assert offsets.length == nodes.size() + 1 : "[CompactGraph] offsets has the wrong length.";
+        assert reverseOffsets.length == nodes.size() + 1 : "[CompactGraph] reverseOffsets has the wrong length.";
+        assert offsets[nodes.size()] == targets.length : "[CompactGraph] offsets does not cover every edge.";
+        assert targets.length == weights.length : "[CompactGraph] targets and weights differ in length.";
+        assert reverseSources.length == targets.length : "[CompactGraph] reverse edges differ in number.";
+    }
+}
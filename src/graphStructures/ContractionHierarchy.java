@@ -0,0 +1,727 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents a contraction hierarchy over a graph with non-negative Double edge labels,
+ * which answers shortest path queries between two nodes by searching only upwards in the
+ * hierarchy from both ends.  Queries may be made from several threads at once; each thread
+ * reuses its own query arrays, which are reset in constant time.
+ *
+ * @author Dan Tran
+ *
+ */
+public class ContractionHierarchy<N extends Comparable<N>> {
+    // This class represents a contraction hierarchy over a graph with non-negative Double edge labels.
+
+    // Representation Invariant: graph, nodes, ids, rank, and the arc arrays != null.  nodes and
+    // rank have one entry per node of graph, rank is a permutation of 0 to nodes.size() - 1,
+    // every arc in the up arrays goes from a node to a node of higher rank, and every arc in the
+    // down arrays comes from a node of higher rank.  An arc with a middle node m >= 0 is a
+    // shortcut with the same weight as the arc from its source to m followed by the arc from m
+    // to its target, and rank[m] is lower than the ranks of both of them.
+
+    // Abstraction Function: Node i is nodes.get(i), and the nodes were contracted in ascending
+    // order of rank.  The arcs leaving node i upwards are upTargets[upOffsets[i]] to
+    // upTargets[upOffsets[i + 1] - 1] with the matching weights and middles, and the arcs
+    // entering node i from above are downSources[downOffsets[i]] to downSources[downOffsets[i + 1] - 1].
+    // An arc with middle -1 is the shortest edge of graph between its two nodes.
+
+    private static final int MAGIC = 0x55574348;
+    private static final int VERSION = 1;
+
+    // The most nodes a witness search may settle before it gives up and adds the shortcut.
+    private static final int WITNESS_LIMIT = 500;
+
+    private final Graph<N, Double> graph;
+    private final List<N> nodes;
+    private final Map<N, Integer> ids;
+    private final int[] rank;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles;
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMiddles;
+    private final AtomicLong settled;
+    private final ThreadLocal<Query> queries;
+
+    /**
+     * Constructs a contraction hierarchy over the given graph by contracting its nodes one at a
+     * time in order of importance, adding shortcut edges wherever a contracted node was on the
+     * only shortest path between two of its neighbors.
+     * @param graph The graph to build the hierarchy over.
+     * @requires graph != null, every edge label in graph is non-negative, and graph is not
+     * modified while this is in use.
+     * @effects Creates a contraction hierarchy over the given graph.
+     */
+    public ContractionHierarchy(Graph<N, Double> graph) {
+        this.graph = graph;
+        this.nodes = new ArrayList<>(graph.getNodes());
+        this.ids = indexNodes(nodes);
+        this.settled = new AtomicLong();
+        this.queries = ThreadLocal.withInitial(() -> new Query(nodes.size()));
+        int n = nodes.size();
+
+        List<List<Arc>> out = new ArrayList<>(n);
+        List<List<Arc>> in = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(new ArrayList<Arc>());
+            in.add(new ArrayList<Arc>());
+        }
+        for (int u = 0; u < n; u++) {
+            for (GraphEdge<N, Double> edge : graph.getChildren(nodes.get(u))) {
+                int v = ids.get(edge.getNode().getIdentifier());
+                if (u != v) {
+                    addArc(out, in, u, v, edge.getLabel(), -1);
+                }
+            }
+        }
+
+        this.rank = new int[n];
+        contract(out, in);
+
+        int[] upCounts = new int[n + 1];
+        int[] downCounts = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            for (Arc arc : out.get(u)) {
+                if (rank[u] < rank[arc.to]) {
+                    upCounts[u + 1]++;
+                } else {
+                    downCounts[arc.to + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            upCounts[i + 1] += upCounts[i];
+            downCounts[i + 1] += downCounts[i];
+        }
+        this.upOffsets = upCounts;
+        this.downOffsets = downCounts;
+        this.upTargets = new int[upCounts[n]];
+        this.upWeights = new double[upCounts[n]];
+        this.upMiddles = new int[upCounts[n]];
+        this.downSources = new int[downCounts[n]];
+        this.downWeights = new double[downCounts[n]];
+        this.downMiddles = new int[downCounts[n]];
+        int[] upNext = Arrays.copyOf(upOffsets, n);
+        int[] downNext = Arrays.copyOf(downOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (Arc arc : out.get(u)) {
+                if (rank[u] < rank[arc.to]) {
+                    int i = upNext[u]++;
+                    upTargets[i] = arc.to;
+                    upWeights[i] = arc.weight;
+                    upMiddles[i] = arc.middle;
+                } else {
+                    int i = downNext[arc.to]++;
+                    downSources[i] = u;
+                    downWeights[i] = arc.weight;
+                    downMiddles[i] = arc.middle;
+                }
+            }
+        }
+        checkRep();
+    }
+
+    // Constructs a contraction hierarchy over graph from already computed ranks and arcs.
+    private ContractionHierarchy(Graph<N, Double> graph, int[] rank, int[] upOffsets, int[] upTargets,
+            double[] upWeights, int[] upMiddles, int[] downOffsets, int[] downSources,
+            double[] downWeights, int[] downMiddles) {
+        this.graph = graph;
+        this.nodes = new ArrayList<>(graph.getNodes());
+        this.ids = indexNodes(nodes);
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+        this.settled = new AtomicLong();
+        this.queries = ThreadLocal.withInitial(() -> new Query(nodes.size()));
+        checkRep();
+    }
+
+    /**
+     * Reads a contraction hierarchy over the given graph from the file written by save.
+     * @param graph The graph the hierarchy was built over.
+     * @param filename The name of the file to read the hierarchy from.
+     * @requires graph and filename != null, and graph is equal to the graph the saved
+     * hierarchy was built over.
+     * @return The contraction hierarchy stored in the given file.
+     * @throws IOException if the file can not be read, is not a saved contraction hierarchy,
+     * or was built over a graph with a different number of nodes or edges.
+     */
+    public static <N extends Comparable<N>> ContractionHierarchy<N> load(Graph<N, Double> graph, String filename)
+            throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a contraction hierarchy file: " + filename);
+            }
+            int n = input.readInt();
+            int edges = input.readInt();
+            if (n != graph.numNodes() || edges != graph.numEdges()) {
+                throw new IOException("Contraction hierarchy in " + filename + " was built over a different graph");
+            }
+            int[] rank = ArrayIO.readInts(input, n);
+            int[] upOffsets = ArrayIO.readInts(input, n + 1);
+            int[] upTargets = ArrayIO.readInts(input, upOffsets[n]);
+            double[] upWeights = ArrayIO.readDoubles(input, upOffsets[n]);
+            int[] upMiddles = ArrayIO.readInts(input, upOffsets[n]);
+            int[] downOffsets = ArrayIO.readInts(input, n + 1);
+            int[] downSources = ArrayIO.readInts(input, downOffsets[n]);
+            double[] downWeights = ArrayIO.readDoubles(input, downOffsets[n]);
+            int[] downMiddles = ArrayIO.readInts(input, downOffsets[n]);
+            return new ContractionHierarchy<N>(graph, rank, upOffsets, upTargets, upWeights, upMiddles,
+                                               downOffsets, downSources, downWeights, downMiddles);
+        }
+    }
+
+    /**
+     * Writes this hierarchy to the given file so that it can be read back by load without
+     * contracting the graph again.
+     * @param filename The name of the file to write to.
+     * @requires filename != null
+     * @throws IOException if the file can not be written.
+     */
+    public void save(String filename) throws IOException {
+        checkRep();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(nodes.size());
+            output.writeInt(graph.numEdges());
+            ArrayIO.writeInts(output, rank);
+            ArrayIO.writeInts(output, upOffsets);
+            ArrayIO.writeInts(output, upTargets);
+            ArrayIO.writeDoubles(output, upWeights);
+            ArrayIO.writeInts(output, upMiddles);
+            ArrayIO.writeInts(output, downOffsets);
+            ArrayIO.writeInts(output, downSources);
+            ArrayIO.writeDoubles(output, downWeights);
+            ArrayIO.writeInts(output, downMiddles);
+        }
+    }
+
+    /**
+     * Returns the edges of graph on a shortest path from start to dest, in order.
+     * @param start The identifier of the node the path starts at.
+     * @param dest The identifier of the node the path ends at.
+     * @requires start and dest are nodes in graph.
+     * @return The edges of graph on a shortest path from start to dest, which is empty if
+     * start equals dest, or null if there is no path from start to dest.
+     */
+    public List<GraphEdge<N, Double>> findPath(N start, N dest) {
+        checkRep();
+        Integer source = ids.get(start);
+        Integer target = ids.get(dest);
+        if (source == null || target == null) {
+            throw new IllegalArgumentException();
+        }
+        Query query = queries.get();
+        query.start();
+        query.reachForward(source, 0.0, -1);
+        query.reachBackward(target, 0.0, -1);
+        BinaryHeap forwardActive = query.forwardActive;
+        BinaryHeap backwardActive = query.backwardActive;
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        long count = 0;
+        while (true) {
+            boolean forwardOpen = !forwardActive.isEmpty() && forwardActive.peekKey() < best;
+            boolean backwardOpen = !backwardActive.isEmpty() && backwardActive.peekKey() < best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            boolean up = forwardOpen
+                    && (!backwardOpen || forwardActive.peekKey() <= backwardActive.peekKey());
+            int min = up ? forwardActive.remove() : backwardActive.remove();
+            count++;
+            double total = query.forwardDistance(min) + query.backwardDistance(min);
+            if (total < best) {
+                best = total;
+                meeting = min;
+            }
+            if (up) {
+                double base = query.forward[min];
+                for (int i = upOffsets[min]; i < upOffsets[min + 1]; i++) {
+                    double distance = base + upWeights[i];
+                    if (distance < query.forwardDistance(upTargets[i])) {
+                        query.reachForward(upTargets[i], distance, i);
+                    }
+                }
+            } else {
+                double base = query.backward[min];
+                for (int i = downOffsets[min]; i < downOffsets[min + 1]; i++) {
+                    double distance = base + downWeights[i];
+                    if (distance < query.backwardDistance(downSources[i])) {
+                        query.reachBackward(downSources[i], distance, i);
+                    }
+                }
+            }
+        }
+        settled.addAndGet(count);
+
+        if (meeting < 0) {
+            return null;
+        }
+        LinkedList<GraphEdge<N, Double>> path = new LinkedList<>();
+        List<GraphEdge<N, Double>> segment = new ArrayList<>();
+        int current = meeting;
+        while (query.forwardArcs[current] >= 0) {
+            int i = query.forwardArcs[current];
+            int from = upSource(i);
+            segment.clear();
+            unpack(from, current, upMiddles[i], segment);
+            path.addAll(0, segment);
+            current = from;
+        }
+        current = meeting;
+        while (query.backwardArcs[current] >= 0) {
+            int i = query.backwardArcs[current];
+            int to = downTarget(i);
+            unpack(current, to, downMiddles[i], path);
+            current = to;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of nodes settled by all queries on this hierarchy.
+     * @return The number of nodes settled by all queries on this hierarchy.
+     */
+    public long getSettledCount() {
+        return settled.get();
+    }
+
+    /**
+     * Returns the nodes of the graph in order of importance, which is the reverse of the order
+     * they were contracted in.  Node i is the i-th node of graph.getNodes(), which is also its
+     * id in a CompactGraph of graph.
+     * @return A new array of the indexes of the nodes of graph, most important first.
+     */
+    public int[] getOrder() {
+        int n = rank.length;
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            order[n - 1 - rank[v]] = v;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the number of arcs in the hierarchy, including shortcuts.
+     * @return The number of arcs in the hierarchy, including shortcuts.
+     */
+    public int numArcs() {
+        return upTargets.length + downSources.length;
+    }
+
+    /**
+     * Returns the number of shortcut arcs added while contracting the graph.
+     * @return The number of shortcut arcs added while contracting the graph.
+     */
+    public int numShortcuts() {
+        int count = 0;
+        for (int middle : upMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        for (int middle : downMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Contracts every node of the arcs in out and in, recording the order in rank.  Nodes are
+    // taken lowest priority first, where the priority is the number of shortcuts contracting the
+    // node would add less the number of arcs it would remove, plus the number of its neighbors
+    // already contracted.  Priorities are updated lazily when a node reaches the front.
+    private void contract(List<List<Arc>> out, List<List<Arc>> in) {
+        int n = nodes.size();
+        boolean[] contracted = new boolean[n];
+        int[] deletedNeighbors = new int[n];
+        Witness witness = new Witness(n);
+        PriorityQueue<Entry> order = new PriorityQueue<>();
+        for (int v = 0; v < n; v++) {
+            order.add(new Entry(v, priority(v, out, in, contracted, deletedNeighbors, witness)));
+        }
+
+        int next = 0;
+        while (!order.isEmpty()) {
+            Entry min = order.remove();
+            int v = min.node;
+            double current = priority(v, out, in, contracted, deletedNeighbors, witness);
+            if (!order.isEmpty() && current > order.peek().distance) {
+                order.add(new Entry(v, current));
+                continue;
+            }
+            shortcuts(v, out, in, contracted, witness, true);
+            contracted[v] = true;
+            rank[v] = next++;
+            for (Arc arc : out.get(v)) {
+                deletedNeighbors[arc.to]++;
+            }
+            for (Arc arc : in.get(v)) {
+                deletedNeighbors[arc.from]++;
+            }
+        }
+    }
+
+    // Returns the contraction priority of v given the nodes contracted so far.
+    private static double priority(int v, List<List<Arc>> out, List<List<Arc>> in, boolean[] contracted,
+            int[] deletedNeighbors, Witness witness) {
+        int removed = 0;
+        for (Arc arc : out.get(v)) {
+            if (!contracted[arc.to]) {
+                removed++;
+            }
+        }
+        for (Arc arc : in.get(v)) {
+            if (!contracted[arc.from]) {
+                removed++;
+            }
+        }
+        int added = shortcuts(v, out, in, contracted, witness, false);
+        return added - removed + deletedNeighbors[v];
+    }
+
+    // Returns the number of shortcuts needed to contract v, adding them when add is set.  A
+    // shortcut from u to w is needed when the path u, v, w is shorter than any path from u to w
+    // the witness search finds that avoids v and the contracted nodes.
+    private static int shortcuts(int v, List<List<Arc>> out, List<List<Arc>> in, boolean[] contracted,
+            Witness witness, boolean add) {
+        int count = 0;
+        List<Arc> incoming = new ArrayList<>(in.get(v));
+        List<Arc> outgoing = new ArrayList<>(out.get(v));
+        for (Arc first : incoming) {
+            int u = first.from;
+            if (contracted[u]) {
+                continue;
+            }
+            double limit = 0.0;
+            for (Arc second : outgoing) {
+                if (!contracted[second.to] && second.to != u) {
+                    limit = Math.max(limit, first.weight + second.weight);
+                }
+            }
+            witness.search(u, v, limit, out, contracted);
+            for (Arc second : outgoing) {
+                int w = second.to;
+                if (contracted[w] || w == u) {
+                    continue;
+                }
+                double through = first.weight + second.weight;
+                if (witness.distance(w) > through) {
+                    count++;
+                    if (add) {
+                        addArc(out, in, u, w, through, v);
+                    }
+                }
+            }
+            witness.reset();
+        }
+        return count;
+    }
+
+    // Adds an arc from u to v with the given weight and middle node, or lowers the weight of the
+    // arc already between them if the new one is shorter.
+    private static void addArc(List<List<Arc>> out, List<List<Arc>> in, int u, int v, double weight, int middle) {
+        for (Arc arc : out.get(u)) {
+            if (arc.to == v) {
+                if (weight < arc.weight) {
+                    arc.weight = weight;
+                    arc.middle = middle;
+                }
+                return;
+            }
+        }
+        Arc arc = new Arc(u, v, weight, middle);
+        out.get(u).add(arc);
+        in.get(v).add(arc);
+    }
+
+    // Appends the edges of graph that the arc from u to v with the given middle node stands for.
+    private void unpack(int u, int v, int middle, List<GraphEdge<N, Double>> path) {
+        if (middle < 0) {
+            path.add(shortestEdge(u, v));
+            return;
+        }
+        int first = -1;
+        for (int i = downOffsets[middle]; i < downOffsets[middle + 1]; i++) {
+            if (downSources[i] == u) {
+                first = i;
+            }
+        }
+        int second = -1;
+        for (int i = upOffsets[middle]; i < upOffsets[middle + 1]; i++) {
+            if (upTargets[i] == v) {
+                second = i;
+            }
+        }
+        unpack(u, middle, downMiddles[first], path);
+        unpack(middle, v, upMiddles[second], path);
+    }
+
+    // Returns the edge of graph from u to v with the smallest label.
+    private GraphEdge<N, Double> shortestEdge(int u, int v) {
+        N target = nodes.get(v);
+        GraphEdge<N, Double> best = null;
+        for (GraphEdge<N, Double> edge : graph.getChildren(nodes.get(u))) {
+            if (edge.getNode().getIdentifier().equals(target)
+                    && (best == null || edge.getLabel() < best.getLabel())) {
+                best = edge;
+            }
+        }
+        return best;
+    }
+
+    // Returns the node the up arc at index i leaves from.
+    private int upSource(int i) {
+        int low = 0;
+        int high = nodes.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (upOffsets[mid] <= i) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Returns the node the down arc at index i enters.
+    private int downTarget(int i) {
+        int low = 0;
+        int high = nodes.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (downOffsets[mid] <= i) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Returns a map from each node in nodes to its index.
+    private static <N> Map<N, Integer> indexNodes(List<N> nodes) {
+        Map<N, Integer> ids = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ids.put(nodes.get(i), i);
+        }
+        return ids;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[ContractionHierarchy] graph is null.";
+        assert nodes.size() == rank.length : "[ContractionHierarchy] rank does not cover every node.";
+        assert upOffsets.length == rank.length + 1 : "[ContractionHierarchy] upOffsets has the wrong length.";
+        assert downOffsets.length == rank.length + 1 : "[ContractionHierarchy] downOffsets has the wrong length.";
+    }
+
+    // An arc between two nodes while the graph is being contracted.  The same arc is kept in the
+    // outgoing list of from and the incoming list of to.
+    private static class Arc {
+        private final int from;
+        private final int to;
+        private double weight;
+        private int middle;
+
+        private Arc(int from, int to, double weight, int middle) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.middle = middle;
+        }
+    }
+
+    // A node in a priority queue, ordered by the given distance or priority.
+    private static class Entry implements Comparable<Entry> {
+        private final int node;
+        private final double distance;
+
+        private Entry(int node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+
+    // The distances, arcs, and frontiers of the two sides of a query, reused by every query on
+    // one thread.  A node's entries only count if it is stamped with the current generation, so
+    // starting a query takes constant time.
+    private static class Query {
+        private final double[] forward;
+        private final double[] backward;
+        private final int[] forwardArcs;
+        private final int[] backwardArcs;
+        private final int[] forwardReached;
+        private final int[] backwardReached;
+        private final BinaryHeap forwardActive;
+        private final BinaryHeap backwardActive;
+        private int generation;
+
+        private Query(int n) {
+            forward = new double[n];
+            backward = new double[n];
+            forwardArcs = new int[n];
+            backwardArcs = new int[n];
+            forwardReached = new int[n];
+            backwardReached = new int[n];
+            forwardActive = new BinaryHeap(n);
+            backwardActive = new BinaryHeap(n);
+        }
+
+        // Moves on to the next generation and empties the frontiers.
+        private void start() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(forwardReached, 0);
+                Arrays.fill(backwardReached, 0);
+                generation = 1;
+            }
+            forwardActive.clear();
+            backwardActive.clear();
+        }
+
+        // Returns the distance to node found by the upward search from the start so far.
+        private double forwardDistance(int node) {
+            return forwardReached[node] == generation ? forward[node] : Double.POSITIVE_INFINITY;
+        }
+
+        // Returns the distance from node found by the upward search from the destination so far.
+        private double backwardDistance(int node) {
+            return backwardReached[node] == generation ? backward[node] : Double.POSITIVE_INFINITY;
+        }
+
+        // Records a shorter distance to node reached through the given up arc and queues it.
+        private void reachForward(int node, double distance, int arc) {
+            forward[node] = distance;
+            forwardArcs[node] = arc;
+            if (forwardReached[node] != generation) {
+                forwardReached[node] = generation;
+                forwardActive.add(node, distance);
+            } else if (forwardActive.contains(node)) {
+                forwardActive.decreaseKey(node, distance);
+            }
+        }
+
+        // Records a shorter distance from node reached through the given down arc and queues it.
+        private void reachBackward(int node, double distance, int arc) {
+            backward[node] = distance;
+            backwardArcs[node] = arc;
+            if (backwardReached[node] != generation) {
+                backwardReached[node] = generation;
+                backwardActive.add(node, distance);
+            } else if (backwardActive.contains(node)) {
+                backwardActive.decreaseKey(node, distance);
+            }
+        }
+    }
+
+    // A bounded Dijkstra search used to look for paths that make a shortcut unnecessary.  The
+    // distances it touches are reset afterwards so that it can be reused for every search.
+    private static class Witness {
+        private final double[] distances;
+        private final List<Integer> touched;
+        private final PriorityQueue<Entry> active;
+
+        private Witness(int n) {
+            distances = new double[n];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            touched = new ArrayList<>();
+            active = new PriorityQueue<>();
+        }
+
+        // Finds the distances from source to the nodes within limit of it, avoiding ignored and
+        // contracted nodes.
+        private void search(int source, int ignored, double limit, List<List<Arc>> out, boolean[] contracted) {
+            distances[source] = 0.0;
+            touched.add(source);
+            active.add(new Entry(source, 0.0));
+            int count = 0;
+            while (!active.isEmpty() && count < WITNESS_LIMIT) {
+                Entry min = active.remove();
+                if (min.distance > distances[min.node]) {
+                    continue;
+                }
+                if (min.distance > limit) {
+                    break;
+                }
+                count++;
+                for (Arc arc : out.get(min.node)) {
+                    if (arc.to == ignored || contracted[arc.to]) {
+                        continue;
+                    }
+                    double distance = min.distance + arc.weight;
+                    if (distance < distances[arc.to]) {
+                        if (distances[arc.to] == Double.POSITIVE_INFINITY) {
+                            touched.add(arc.to);
+                        }
+                        distances[arc.to] = distance;
+                        active.add(new Entry(arc.to, distance));
+                    }
+                }
+            }
+            active.clear();
+        }
+
+        private double distance(int node) {
+            return distances[node];
+        }
+
+        private void reset() {
+            for (int node : touched) {
+                distances[node] = Double.POSITIVE_INFINITY;
+            }
+            touched.clear();
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This immutable class represents an approximate distance oracle of an undirected graph in the
+ * style of Thorup and Zwick, which answers distance queries in constant time from a small
+ * amount of data per node.  For a stretch parameter k, the distance d' it gives between two
+ * nodes whose true distance is d satisfies d <= d' <= (2k - 1) * d, and it is infinity exactly
+ * when there is no path.  With k = 1 it is exact but keeps the distance between every pair of
+ * connected nodes, and each step up in k shrinks the data to an expected O(k * n^(1/k))
+ * entries per node, where n is the number of nodes.
+ * <p>
+ * The nodes are sampled into a nested sequence of sets A(0) = all nodes, A(1), ..., A(k - 1),
+ * each keeping the nodes of the one before with probability n^(-1/k), and every connected
+ * component keeps one node in all of them.  Each node v stores its nearest node in each set
+ * (its pivots) and its bunch: the nodes w of each A(i) not in A(i + 1) that are closer to v
+ * than any node of A(i + 1), with their distances.  A query walks up the levels from one end,
+ * alternating ends, until the pivot of one is in the bunch of the other, which takes at most
+ * k steps.  The bunch of each node is an open addressing hash table, so each step takes
+ * constant expected time.
+ *
+ * @author Dan Tran
+ *
+ */
+public class DistanceOracle<N extends Comparable<N>> {
+    // This immutable class represents an approximate distance oracle of an undirected graph.
+
+    // Representation Invariant: graph, pivots, pivotDistances, offsets, keys, and distances
+    // != null, k >= 1, graph is symmetric, pivots and pivotDistances have graph.numNodes() * k
+    // entries, offsets has graph.numNodes() + 1 entries starting at 0, and the table of each
+    // node has a power of two size more than 4/3 of the number of its entries.
+
+    // Abstraction Function: For node v and level i, pivots[v * k + i] is the nearest node to v
+    // in A(i) and pivotDistances[v * k + i] its distance, or -1 and infinity if v reaches no
+    // node of A(i).  The bunch of v is the hash table in keys and distances from offsets[v] to
+    // offsets[v + 1] - 1, where each w in the bunch is stored at its hash or the first empty
+    // slot after it with its distance from v, and the other slots hold -1.
+
+    private final CompactGraph<N> graph;
+    private final int k;
+    private final int[] pivots;
+    private final double[] pivotDistances;
+    private final int[] offsets;
+    private final int[] keys;
+    private final double[] distances;
+    private final int entries;
+
+    /**
+     * Constructs the distance oracle of the given undirected graph with the given stretch
+     * parameter, sampling with a fixed seed so that the same graph always gives the same
+     * oracle.
+     * @param graph The graph to build the oracle of.
+     * @param k The stretch parameter, so that the distances given are at most 2k - 1 times too long.
+     * @requires graph != null, k >= 1, and every edge label in graph is non-negative.
+     * @throws IllegalArgumentException if graph has an edge whose reverse edge is missing or
+     * has a different label.
+     * @effects Creates the distance oracle of graph.
+     */
+    public DistanceOracle(Graph<N, ? extends Number> graph, int k) {
+        this(graph, k, 0);
+    }
+
+    /**
+     * Constructs the distance oracle of the given undirected graph with the given stretch
+     * parameter, sampling with the given seed.
+     * @param graph The graph to build the oracle of.
+     * @param k The stretch parameter, so that the distances given are at most 2k - 1 times too long.
+     * @param seed The seed of the random sampling of the nodes.
+     * @requires graph != null, k >= 1, and every edge label in graph is non-negative.
+     * @throws IllegalArgumentException if graph has an edge whose reverse edge is missing or
+     * has a different label.
+     * @effects Creates the distance oracle of graph.
+     */
+    public DistanceOracle(Graph<N, ? extends Number> graph, int k, long seed) {
+        CompactGraph<N> compact = new CompactGraph<>(graph);
+        if (!compact.isSymmetric()) {
+            throw new IllegalArgumentException();
+        }
+        int n = compact.numNodes();
+        this.graph = compact;
+        this.k = k;
+        this.pivots = new int[n * k];
+        this.pivotDistances = new double[n * k];
+        int[] levels = sample(new Random(seed));
+
+        // Find the pivots of every node with one search from all the nodes of each level.
+        Search search = new Search(n);
+        for (int i = 0; i < k; i++) {
+            search.fromLevel(levels, i);
+            for (int v = 0; v < n; v++) {
+                boolean found = search.reached[v] == search.generation;
+                pivots[v * k + i] = found ? search.origins[v] : -1;
+                pivotDistances[v * k + i] = found ? search.distances[v] : Double.POSITIVE_INFINITY;
+            }
+        }
+
+        // Grow the cluster of each node w of level i, the nodes closer to w than to A(i + 1),
+        // and add w to the bunch of every node in it.
+        int[][] bunches = new int[n][];
+        double[][] bunchDistances = new double[n][];
+        int[] sizes = new int[n];
+        for (int v = 0; v < n; v++) {
+            bunches[v] = new int[4];
+            bunchDistances[v] = new double[4];
+        }
+        for (int w = 0; w < n; w++) {
+            search.cluster(w, levels[w] + 1);
+            for (int c = 0; c < search.size; c++) {
+                int v = search.settled[c];
+                int size = sizes[v];
+                if (size == bunches[v].length) {
+                    bunches[v] = Arrays.copyOf(bunches[v], 2 * size);
+                    bunchDistances[v] = Arrays.copyOf(bunchDistances[v], 2 * size);
+                }
+                bunches[v][size] = w;
+                bunchDistances[v][size] = search.distances[v];
+                sizes[v] = size + 1;
+            }
+        }
+
+        // Lay the bunches end to end as hash tables at most three quarters full.
+        this.offsets = new int[n + 1];
+        int total = 0;
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + Integer.highestOneBit(4 * sizes[v] / 3 + 1) * 2;
+            total += sizes[v];
+        }
+        this.entries = total;
+        this.keys = new int[offsets[n]];
+        this.distances = new double[offsets[n]];
+        Arrays.fill(keys, -1);
+        for (int v = 0; v < n; v++) {
+            int mask = offsets[v + 1] - offsets[v] - 1;
+            for (int j = 0; j < sizes[v]; j++) {
+                int slot = hash(bunches[v][j]) & mask;
+                while (keys[offsets[v] + slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[offsets[v] + slot] = bunches[v][j];
+                distances[offsets[v] + slot] = bunchDistances[v][j];
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the graph this is the oracle of, with the nodes numbered in ascending order.
+     * @return A snapshot of the graph this is the oracle of.
+     */
+    public CompactGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the stretch of the oracle, the most the distances it gives can be too long by.
+     * @return 2k - 1, where k is the stretch parameter of this oracle.
+     */
+    public int getStretch() {
+        return 2 * k - 1;
+    }
+
+    /**
+     * Returns an upper bound on the distance between the given nodes that is at most
+     * getStretch() times the distance.
+     * @param u The id of one node in getGraph().
+     * @param v The id of the other node in getGraph().
+     * @requires 0 <= u, v < getGraph().numNodes()
+     * @return A length d' such that d <= d' <= getStretch() * d, where d is the distance of
+     * the shortest path between u and v, or infinity if there is no path.
+     */
+    public double distance(int u, int v) {
+        int w = u;
+        double toW = 0.0;
+        for (int i = 0; ; ) {
+            double fromW = lookup(v, w);
+            if (fromW >= 0.0) {
+                return toW + fromW;
+            }
+            i++;
+            if (i == k) {
+                return Double.POSITIVE_INFINITY;
+            }
+            int swap = u;
+            u = v;
+            v = swap;
+            w = pivots[u * k + i];
+            toW = pivotDistances[u * k + i];
+        }
+    }
+
+    /**
+     * Returns an upper bound on the distance between the given nodes that is at most
+     * getStretch() times the distance.
+     * @param start The identifier of one node.
+     * @param dest The identifier of the other node.
+     * @requires start and dest are nodes of the graph the oracle was built from.
+     * @return A length d' such that d <= d' <= getStretch() * d, where d is the distance of
+     * the shortest path between start and dest, or infinity if there is no path.
+     */
+    public double distance(N start, N dest) {
+        int u = graph.id(start);
+        int v = graph.id(dest);
+        if (u < 0 || v < 0) {
+            throw new IllegalArgumentException();
+        }
+        return distance(u, v);
+    }
+
+    /**
+     * Returns the number of entries in all the bunches.
+     * @return The total number of nodes in the bunches of all the nodes.
+     */
+    public int numEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the average number of entries in the bunch of a node.
+     * @return The number of entries divided by the number of nodes, or zero if there are none.
+     */
+    public double averageBunchSize() {
+        int n = graph.numNodes();
+        return n == 0 ? 0.0 : (double) entries / n;
+    }
+
+    /**
+     * Returns the number of bytes the oracle takes up, not counting its graph.
+     * @return The number of bytes in the pivots and bunch tables.
+     */
+    public long bytes() {
+        return 12L * pivots.length + 12L * keys.length + 4L * offsets.length;
+    }
+
+    // Returns the distance from v to w stored in the bunch of v, or -1 if w is not in it.
+    private double lookup(int v, int w) {
+        int base = offsets[v];
+        int mask = offsets[v + 1] - base - 1;
+        for (int slot = hash(w) & mask; ; slot = (slot + 1) & mask) {
+            int key = keys[base + slot];
+            if (key == w) {
+                return distances[base + slot];
+            }
+            if (key < 0) {
+                return -1.0;
+            }
+        }
+    }
+
+    // Returns the hash of a node id, mixed so that nearby ids spread over the table.
+    private static int hash(int id) {
+        int h = id * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    // Returns the highest level of each node, sampling each level from the one below with
+    // probability n^(-1/k) and then raising the lowest id of every connected component with no
+    // node on level k - 1 to that level.
+    private int[] sample(Random random) {
+        int n = graph.numNodes();
+        double probability = Math.pow(n, -1.0 / k);
+        int[] levels = new int[n];
+        for (int v = 0; v < n; v++) {
+            while (levels[v] + 1 < k && random.nextDouble() < probability) {
+                levels[v]++;
+            }
+        }
+        // Visit each component from its lowest id, which is where a search first reaches it.
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int[] stack = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (component[root] >= 0) {
+                continue;
+            }
+            boolean top = false;
+            int size = 0;
+            component[root] = root;
+            stack[size++] = root;
+            while (size > 0) {
+                int u = stack[--size];
+                top |= levels[u] == k - 1;
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    if (component[v] < 0) {
+                        component[v] = root;
+                        stack[size++] = v;
+                    }
+                }
+            }
+            if (!top) {
+                levels[root] = k - 1;
+            }
+        }
+        return levels;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[DistanceOracle] graph is null.";
+        assert k >= 1 : "[DistanceOracle] k is less than 1.";
+        assert pivots.length == graph.numNodes() * k : "[DistanceOracle] pivots has the wrong size.";
+        assert offsets.length == graph.numNodes() + 1 : "[DistanceOracle] offsets has the wrong size.";
+        for (int v = 0; v < graph.numNodes(); v++) {
+            int size = offsets[v + 1] - offsets[v];
+            assert Integer.bitCount(size) == 1 : "[DistanceOracle] the table of " + v + " is not a power of two.";
+        }
+    }
+
+    // The state of the searches that build the oracle, reused by every search.  A node's
+    // entries only count if it is stamped with the current generation.
+    private final class Search {
+        private final double[] distances;
+        private final int[] origins;
+        private final int[] reached;
+        private final int[] settled;
+        private final BinaryHeap queue;
+        private int generation;
+        private int size;
+
+        private Search(int n) {
+            distances = new double[n];
+            origins = new int[n];
+            reached = new int[n];
+            settled = new int[n];
+            queue = new BinaryHeap(n);
+        }
+
+        // Searches from every node whose level is at least i at once, recording for each node
+        // the distance to and the id of the nearest of them.
+        private void fromLevel(int[] levels, int i) {
+            start();
+            for (int v = 0; v < levels.length; v++) {
+                if (levels[v] >= i) {
+                    reach(v, 0.0, v);
+                }
+            }
+            run(k);
+        }
+
+        // Searches from w, only reaching the nodes strictly closer to w than to every node of
+        // the given level, and records the nodes settled in settled[0] to settled[size - 1].
+        private void cluster(int w, int level) {
+            start();
+            reach(w, 0.0, w);
+            run(level);
+        }
+
+        // Settles the queued nodes in order of distance, reaching a node only if it is strictly
+        // closer than its pivot on the given level, if that is a level below k.
+        private void run(int level) {
+            while (!queue.isEmpty()) {
+                int u = queue.remove();
+                settled[size++] = u;
+                double distance = distances[u];
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    double next = distance + graph.weight(e);
+                    if (level < k && next >= pivotDistances[v * k + level]) {
+                        continue;
+                    }
+                    if (reached[v] != generation) {
+                        reach(v, next, origins[u]);
+                    } else if (next < distances[v] && queue.contains(v)) {
+                        distances[v] = next;
+                        origins[v] = origins[u];
+                        queue.decreaseKey(v, next);
+                    }
+                }
+            }
+        }
+
+        // Moves on to the next generation and empties the queue and the settled list.
+        private void start() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                generation = 1;
+            }
+            queue.clear();
+            size = 0;
+        }
+
+        // Records that node was reached at the given distance from origin and queues it.
+        private void reach(int node, double distance, int origin) {
+            reached[node] = generation;
+            distances[node] = distance;
+            origins[node] = origin;
+            queue.add(node, distance);
+        }
+    }
+}
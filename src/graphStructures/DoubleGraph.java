@@ -0,0 +1,273 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents a mutable directed graph whose edges are labeled with primitive doubles.
+ * Nodes are numbered densely from 0 in the order they are added, and the edges leaving a node
+ * are kept in primitive arrays, so neither adding nor walking an edge boxes its weight.
+ *
+ * @author Dan Tran
+ *
+ */
+public class DoubleGraph<N extends Comparable<N>> {
+    // This class represents a mutable directed graph whose edges are labeled with primitive doubles.
+
+    // Representation Invariant: nodes, ids, targets, weights, and degrees != null, nodes has no
+    // duplicates, ids.get(nodes.get(i)) == i for every node, targets, weights, and degrees have
+    // at least nodes.size() entries, and no node has two edges to the same child with the same
+    // weight.
+
+    // Abstraction Function: Node i is nodes.get(i).  The edges leaving node i go to the nodes
+    // targets[i][0] to targets[i][degrees[i] - 1], with weights weights[i][0] to
+    // weights[i][degrees[i] - 1].
+
+    private static final int[] NO_TARGETS = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
+    private final List<N> nodes;
+    private final Map<N, Integer> ids;
+    private int[][] targets;
+    private double[][] weights;
+    private int[] degrees;
+    private int numEdges;
+
+    /**
+     * Constructs an empty graph with no nodes or edges.
+     * @effects Creates an empty graph with no nodes or edges.
+     */
+    public DoubleGraph() {
+        nodes = new ArrayList<>();
+        ids = new HashMap<>();
+        targets = new int[16][];
+        weights = new double[16][];
+        degrees = new int[16];
+        checkRep();
+    }
+
+    /**
+     * Adds a new node with the given identifier into this graph if it is not already in it.
+     * @param identifier The identifier that will identify the new node.
+     * @requires identifier != null
+     * @modifies this
+     * @effects A new node with the given identifier is added into this if it was not in this.
+     * @return The id of the node with the given identifier.
+     */
+    public int addNode(N identifier) {
+        Integer id = ids.get(identifier);
+        if (id != null) {
+            return id;
+        }
+        int n = nodes.size();
+        if (n == degrees.length) {
+            targets = Arrays.copyOf(targets, 2 * n);
+            weights = Arrays.copyOf(weights, 2 * n);
+            degrees = Arrays.copyOf(degrees, 2 * n);
+        }
+        nodes.add(identifier);
+        ids.put(identifier, n);
+        targets[n] = NO_TARGETS;
+        weights[n] = NO_WEIGHTS;
+        checkRep();
+        return n;
+    }
+
+    /**
+     * Adds an edge from the node identified by parent to the node identified by child with the
+     * given weight, unless that edge is already in the graph.
+     * @param weight The weight of the edge.
+     * @param parent Identifies the node the edge leaves.
+     * @param child Identifies the node the edge enters.
+     * @requires The nodes identified by parent and child are in the graph.
+     * @modifies this
+     * @effects Adds an edge from parent to child with the given weight if there was none.
+     */
+    public void addEdge(double weight, N parent, N child) {
+        addEdge(weight, id(parent), id(child));
+    }
+
+    /**
+     * Adds an edge from the node with id parent to the node with id child with the given weight,
+     * unless that edge is already in the graph.
+     * @param weight The weight of the edge.
+     * @param parent The id of the node the edge leaves.
+     * @param child The id of the node the edge enters.
+     * @requires 0 <= parent, child < numNodes()
+     * @modifies this
+     * @effects Adds an edge from parent to child with the given weight if there was none.
+     */
+    public void addEdge(double weight, int parent, int child) {
+        if (parent < 0 || child < 0 || parent >= nodes.size() || child >= nodes.size()) {
+            throw new IllegalArgumentException();
+        }
+        if (indexOf(parent, child, weight) >= 0) {
+            return;
+        }
+        int degree = degrees[parent];
+        if (degree == targets[parent].length) {
+            targets[parent] = Arrays.copyOf(targets[parent], Math.max(4, 2 * degree));
+            weights[parent] = Arrays.copyOf(weights[parent], Math.max(4, 2 * degree));
+        }
+        targets[parent][degree] = child;
+        weights[parent][degree] = weight;
+        degrees[parent]++;
+        numEdges++;
+        checkRep();
+    }
+
+    /**
+     * Removes the edge from the node identified by parent to the node identified by child with
+     * the given weight.
+     * @param weight The weight of the edge to be removed.
+     * @param parent Identifies the node the edge leaves.
+     * @param child Identifies the node the edge enters.
+     * @requires The edge to be in the graph.
+     * @modifies this
+     * @effects Removes the edge from parent to child with the given weight.
+     */
+    public void deleteEdge(double weight, N parent, N child) {
+        int u = id(parent);
+        int i = indexOf(u, id(child), weight);
+        if (i < 0) {
+            throw new IllegalArgumentException();
+        }
+        int last = --degrees[u];
+        targets[u][i] = targets[u][last];
+        weights[u][i] = weights[u][last];
+        numEdges--;
+        checkRep();
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     * @return The number of nodes in the graph.
+     */
+    public int numNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     * @return The number of edges in the graph.
+     */
+    public int numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Returns the id of the node with the given identifier.
+     * @param identifier The identifier of the node.
+     * @return The id of the node with the given identifier, or -1 if it is not in the graph.
+     */
+    public int id(N identifier) {
+        Integer id = ids.get(identifier);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the identifier of the node with the given id.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return The identifier of the node with the given id.
+     */
+    public N node(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Returns the identifiers of the nodes in the graph, indexed by id.
+     * @return An unmodifiable list of the identifiers of the nodes in the graph, indexed by id.
+     */
+    public List<N> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Returns the number of edges leaving the node with the given id.
+     * @param id The id of the node.
+     * @requires 0 <= id < numNodes()
+     * @return The number of edges leaving the node with the given id.
+     */
+    public int degree(int id) {
+        return degrees[id];
+    }
+
+    /**
+     * Returns the id of the node the i-th edge leaving the given node goes to.
+     * @param id The id of the node the edge leaves.
+     * @param i The position of the edge among the edges leaving the node.
+     * @requires 0 <= id < numNodes() and 0 <= i < degree(id)
+     * @return The id of the node the edge goes to.
+     */
+    public int target(int id, int i) {
+        return targets[id][i];
+    }
+
+    /**
+     * Returns the weight of the i-th edge leaving the given node.
+     * @param id The id of the node the edge leaves.
+     * @param i The position of the edge among the edges leaving the node.
+     * @requires 0 <= id < numNodes() and 0 <= i < degree(id)
+     * @return The weight of the edge.
+     */
+    public double weight(int id, int i) {
+        return weights[id][i];
+    }
+
+    /**
+     * Returns a string representation of the list of edges in the graph.
+     * @return A string representation of the list of edges in the graph, one line per node in
+     * the order the nodes were added.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int u = 0; u < nodes.size(); u++) {
+            sb.append(nodes.get(u)).append(":");
+            for (int i = 0; i < degrees[u]; i++) {
+                sb.append(" ").append(nodes.get(targets[u][i])).append("(").append(weights[u][i]).append(")");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    // Returns the position of the edge from parent to child with the given weight among the
+    // edges leaving parent, or -1 if there is none.
+    private int indexOf(int parent, int child, double weight) {
+        for (int i = 0; i < degrees[parent]; i++) {
+            if (targets[parent][i] == child && Double.compare(weights[parent][i], weight) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert nodes != null : "[DoubleGraph] nodes is null.";
+        assert nodes.size() == ids.size() : "[DoubleGraph] nodes and ids differ in size.";
+        assert nodes.size() <= degrees.length : "[DoubleGraph] degrees is too short.";
+    }
+}
@@ -15,6 +15,7 @@
  */
 package graphStructures;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -28,16 +29,21 @@ import java.util.TreeMap;
 public class Graph <N extends Comparable<N>, E extends Comparable<E>> {
     // This class represents a mutable directed graph, consisting of nodes connected via edges.
 
-    // Representation Invariant: nodes != null, there are no duplicates in nodes, and the key in the
-    // map nodes is equal to the identifier in its associated value.
+    // Representation Invariant: nodes != null, there are no duplicates in nodes, the key in the
+    // map nodes is equal to the identifier in its associated value, and for every edge from a
+    // parent to a child there is an edge with the same label from the child back to the parent
+    // in the child's parents.
 
     // Abstraction Function: The List nodes contain the nodes that are in the graph. The edges
     // are represented by the data of the nodes themselves, with each nodes containing a map of GraphNodes,
-    // representing its children, associated with the attached edge label.
+    // representing its children, associated with the attached edge label.  Each node also keeps
+    // the incoming edges as an index so that the graph can be walked backwards.  modifications
+    // is the number of changes made to the graph since it was created.
 
     private static final boolean DEBUG = false;
 
     private final Map<N, GraphNode<N, E>> nodes;
+    private volatile long modifications;
 
     /**
      * Constructs an empty graph with no nodes or edges.
@@ -59,6 +65,7 @@ public class Graph <N extends Comparable<N>, E extends Comparable<E>> {
         checkRep();
         if(!nodes.containsKey(identifier)) {
             nodes.put(identifier, new GraphNode<N, E>(identifier));
+            modifications++;
         }
         checkRep();
     }
@@ -82,6 +89,8 @@ public class Graph <N extends Comparable<N>, E extends Comparable<E>> {
             throw new IllegalArgumentException();
         }
         na.addEdge(new GraphEdge<N, E>(nb, edgeLabel));
+        nb.addParentEdge(new GraphEdge<N, E>(na, edgeLabel));
+        modifications++;
         checkRep();
     }
 
@@ -104,6 +113,9 @@ public class Graph <N extends Comparable<N>, E extends Comparable<E>> {
             throw new IllegalArgumentException();
         }
         na.deleteEdge(nb);
+        nb.getNode().deleteParentEdge(new GraphEdge<N, E>(na, nb.getLabel()));
+        modifications++;
+        checkRep();
     }
 
     /**
@@ -218,8 +230,32 @@ public class Graph <N extends Comparable<N>, E extends Comparable<E>> {
         return count;
     }
 
+    /**
+     * Returns the number of times nodes or edges have been added to or removed from the graph
+     * through its methods.  Anything built from the graph can compare this with the count when
+     * it was built to tell whether the graph has changed since.  Only the mutators of Graph
+     * itself are counted: changing the edges of a GraphNode returned by getNode directly is
+     * not, so such changes are invisible to anything relying on this count.
+     * @return The number of changes made to the graph through its own methods since it was
+     * created.
+     */
+    public long getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Returns the identifiers of the nodes in the graph in ascending order.
+     * @return An unmodifiable view of the identifiers of the nodes in the graph in ascending order.
+     */
+    public Set<N> getNodes() {
+        checkRep();
+        return Collections.unmodifiableSet(nodes.keySet());
+    }
+
     /**
      *  Returns the GraphNode with the given identifier.  If none is found, returns null.
+     * Edges should be added and removed through this graph rather than through the node, or
+     * the change is not counted by getModificationCount.
      * @param identifier The identifer to retrieve the GraphNode associated.
      * @return The GraphNode with the given identifier.  If none is found, returns null.
      */
@@ -237,12 +273,26 @@ public class Graph <N extends Comparable<N>, E extends Comparable<E>> {
         return getNode(identifier).getChildren();
     }
 
+    /**
+     * Returns the set of edges pointing back to the parents of the node with the given identifier,
+     * each labeled with the label of the edge from that parent.
+     * @param identifier The node to get its parents.
+     * @return The set of edges pointing back to the parents of the node with the given identifier.
+     */
+    public Set<GraphEdge<N, E>> getParents(N identifier) {
+        return getNode(identifier).getParents();
+    }
+
     // Checks the object on the representation invariant to ensure correctness.
     private void checkRep() {
         assert nodes != null : "[Graph] nodes is null.";
         if (DEBUG) {
             for (N id : nodes.keySet()) {
-                assert id.equals(nodes.get(id).getIdentifier());
+                GraphNode<N, E> node = nodes.get(id);
+                assert id.equals(node.getIdentifier());
+                for (GraphEdge<N, E> edge : node.getChildren()) {
+                    assert edge.getNode().getParents().contains(new GraphEdge<N, E>(node, edge.getLabel()));
+                }
             }
         }
     }
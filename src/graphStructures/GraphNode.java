@@ -28,14 +28,16 @@ import java.util.TreeSet;
 public class GraphNode<N extends Comparable<N>, E extends Comparable<E>> implements Comparable<GraphNode<N, E>> {
     // This class represents a node in a graph.
 
-    // Representation Invariant: identifier and children != null
+    // Representation Invariant: identifier, children, and parents != null
     
     // Abstraction Function: This object represents a node in a graph with data being identifier
     // and it is the parent of the graph nodes listed in children, with edge labels paired with
-    // those children.
+    // those children.  The edges in parents point back to the nodes that have this as a child,
+    // with the label of the edge from that node to this.
 
     private final N identifier;
     private final Set<GraphEdge<N, E>> children;
+    private final Set<GraphEdge<N, E>> parents;
 
     /**
      * Constructs a new GraphNode with the given identifier.
@@ -49,6 +51,7 @@ public class GraphNode<N extends Comparable<N>, E extends Comparable<E>> impleme
         }
         this.identifier = identifier;
         this.children = new TreeSet<GraphEdge<N, E>>();
+        this.parents = new TreeSet<GraphEdge<N, E>>();
         checkRep();
     }
 
@@ -124,6 +127,33 @@ public class GraphNode<N extends Comparable<N>, E extends Comparable<E>> impleme
         checkRep();
     }
 
+    /**
+     * Records that the node in the given GraphEdge edge has an edge to this with the label in edge.
+     * @param edge The GraphEdge containing the parent node and the label of its edge to this.
+     * @requires edge != null
+     * @modifies this
+     * @effects Adds edge to the set of edges pointing back to the parents of this.
+     */
+    public void addParentEdge (GraphEdge<N, E> edge) {
+        checkRep();
+        parents.add(edge);
+        checkRep();
+    }
+
+    /**
+     * Removes the record that the node in the given GraphEdge edge has an edge to this with
+     * the label in edge.
+     * @param edge The GraphEdge pointing back to the parent to be removed.
+     * @requires edge != null
+     * @modifies this
+     * @effects Removes edge from the set of edges pointing back to the parents of this if it exists.
+     */
+    public void deleteParentEdge (GraphEdge<N, E> edge) {
+        checkRep();
+        parents.remove(edge);
+        checkRep();
+    }
+
     /**
      * Returns true if and only if this has any edges connecting it to other nodes.
      * @return true if and only if this has any edges connecting it to other nodes.
@@ -159,6 +189,15 @@ public class GraphNode<N extends Comparable<N>, E extends Comparable<E>> impleme
         return children;
     }
 
+    /**
+     * Returns the set of edges pointing back to the parents of this, each labeled with the label
+     * of the edge from that parent to this.
+     * @return The set of edges pointing back to the parents of this.
+     */
+    public Set<GraphEdge<N, E>> getParents() {
+        return parents;
+    }
+
     /**
      * Returns the GraphEdge that contains the child that this node is a parent of.
      * @param child The child that determines the edge returned.
@@ -228,6 +267,7 @@ public class GraphNode<N extends Comparable<N>, E extends Comparable<E>> impleme
     private void checkRep() {
         assert identifier != null : "[GraphNode] Identifier is null.";
         assert children != null : "[GraphNode] ConnectedNodes is null.";
+        assert parents != null : "[GraphNode] Parents is null.";
     }
 
     /**
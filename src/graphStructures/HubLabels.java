@@ -0,0 +1,443 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This immutable class represents a hub labeling of a CompactGraph with non-negative edge
+ * weights, which answers exact distance queries between any two nodes without searching.
+ * Every node has an out label of hubs it reaches and an in label of hubs that reach it, each
+ * with the distance, such that for any two nodes some shortest path between them passes
+ * through a hub in the out label of one and the in label of the other.  A query merges the
+ * two labels, which are sorted by hub.
+ * <p>
+ * The labels are built by pruned landmark labeling: a pruned Dijkstra search is run forward
+ * and backward from each node in the given order, most important first, and a node is only
+ * labeled with the root of a search if the labels so far do not already give its distance.
+ * The labels are small when the order puts the nodes that lie on many shortest paths first,
+ * such as the reverse of a contraction hierarchy's contraction order.
+ *
+ * @author Dan Tran
+ *
+ */
+public class HubLabels<N extends Comparable<N>> {
+    // This immutable class represents a hub labeling of a CompactGraph with non-negative edge
+    // weights.
+
+    // Representation Invariant: graph, order, and the label arrays != null.  order is a
+    // permutation of the node ids of graph, outOffsets and inOffsets have graph.numNodes() + 1
+    // entries that start at 0, never decrease, and end at the length of their hub and distance
+    // arrays, and the hubs of every label are strictly increasing.
+
+    // Abstraction Function: The hubs are numbered by their place in order, so hub h is the node
+    // order[h].  The out label of node v is the pairs (outHubs[i], outDistances[i]) for i from
+    // outOffsets[v] to outOffsets[v + 1] - 1, where outDistances[i] is the distance from v to
+    // the hub, and the in label is the same with the in arrays and the distance from the hub
+    // to v.
+
+    private static final int MAGIC = 0x5557484c;
+    private static final int VERSION = 1;
+
+    private final CompactGraph<N> graph;
+    private final int[] order;
+    private final int[] outOffsets;
+    private final int[] outHubs;
+    private final double[] outDistances;
+    private final int[] inOffsets;
+    private final int[] inHubs;
+    private final double[] inDistances;
+
+    /**
+     * Constructs the hub labeling of the given graph by pruned landmark labeling with the
+     * nodes taken in the given order.
+     * @param graph The graph to label.
+     * @param order The ids of the nodes of graph, most important first.
+     * @requires graph and order != null, order is a permutation of the node ids of graph, and
+     * every edge weight in graph is non-negative.
+     * @effects Creates the hub labeling of graph.
+     */
+    public HubLabels(CompactGraph<N> graph, int[] order) {
+        int n = graph.numNodes();
+        this.graph = graph;
+        this.order = Arrays.copyOf(order, n);
+        Builder out = new Builder(n);
+        Builder in = new Builder(n);
+        double[] distances = new double[n];
+        int[] reached = new int[n];
+        double[] rootLabel = new double[n];
+        Arrays.fill(rootLabel, Double.POSITIVE_INFINITY);
+        NodeQueue queue = new BinaryHeap(n);
+        for (int hub = 0; hub < n; hub++) {
+            int root = order[hub];
+            // Forward from root, adding root to the in labels of the nodes it reaches.
+            prune(root, hub, false, out, in, rootLabel, distances, reached, 2 * hub + 1, queue);
+            // Backward to root, adding root to the out labels of the nodes that reach it.
+            prune(root, hub, true, in, out, rootLabel, distances, reached, 2 * hub + 2, queue);
+        }
+        this.outOffsets = out.offsets();
+        this.outHubs = out.hubs(outOffsets);
+        this.outDistances = out.distances(outOffsets);
+        this.inOffsets = in.offsets();
+        this.inHubs = in.hubs(inOffsets);
+        this.inDistances = in.distances(inOffsets);
+        checkRep();
+    }
+
+    // Constructs hub labels of graph from the arrays read by load.
+    private HubLabels(CompactGraph<N> graph, int[] order, int[] outOffsets, int[] outHubs, double[] outDistances,
+                      int[] inOffsets, int[] inHubs, double[] inDistances) {
+        this.graph = graph;
+        this.order = order;
+        this.outOffsets = outOffsets;
+        this.outHubs = outHubs;
+        this.outDistances = outDistances;
+        this.inOffsets = inOffsets;
+        this.inHubs = inHubs;
+        this.inDistances = inDistances;
+        checkRep();
+    }
+
+    /**
+     * Reads hub labels of the given graph from the file written by save.
+     * @param graph The graph the labels were built for.
+     * @param filename The name of the file to read the labels from.
+     * @requires graph and filename != null, and graph is equal to the graph the saved labels
+     * were built for.
+     * @return The hub labels stored in the given file.
+     * @throws IOException if the file can not be read, does not hold hub labels, holds the
+     * labels of a graph with a different number of nodes or edges, or is corrupt.
+     */
+    public static <N extends Comparable<N>> HubLabels<N> load(CompactGraph<N> graph, String filename)
+            throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a hub label file: " + filename);
+            }
+            int n = input.readInt();
+            int edges = input.readInt();
+            if (n != graph.numNodes() || edges != graph.numEdges()) {
+                throw new IOException("Hub labels in " + filename + " were built for a different graph");
+            }
+            int[] order = ArrayIO.readInts(input, n);
+            int[] outOffsets = ArrayIO.readInts(input, n + 1);
+            if (!validOffsets(outOffsets)) {
+                throw new IOException("Corrupt hub label file: " + filename);
+            }
+            int[] outHubs = ArrayIO.readInts(input, outOffsets[n]);
+            double[] outDistances = ArrayIO.readDoubles(input, outOffsets[n]);
+            int[] inOffsets = ArrayIO.readInts(input, n + 1);
+            if (!validOffsets(inOffsets)) {
+                throw new IOException("Corrupt hub label file: " + filename);
+            }
+            int[] inHubs = ArrayIO.readInts(input, inOffsets[n]);
+            double[] inDistances = ArrayIO.readDoubles(input, inOffsets[n]);
+            if (!isPermutation(order) || !validHubs(outOffsets, outHubs)
+                    || !validHubs(inOffsets, inHubs)) {
+                throw new IOException("Corrupt hub label file: " + filename);
+            }
+            return new HubLabels<N>(graph, order, outOffsets, outHubs, outDistances, inOffsets, inHubs, inDistances);
+        }
+    }
+
+    /**
+     * Writes these labels to the given file so that they can be read back by load without
+     * labeling the graph again.
+     * @param filename The name of the file to write to.
+     * @requires filename != null
+     * @throws IOException if the file can not be written.
+     */
+    public void save(String filename) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(order.length);
+            output.writeInt(graph.numEdges());
+            ArrayIO.writeInts(output, order);
+            ArrayIO.writeInts(output, outOffsets);
+            ArrayIO.writeInts(output, outHubs);
+            ArrayIO.writeDoubles(output, outDistances);
+            ArrayIO.writeInts(output, inOffsets);
+            ArrayIO.writeInts(output, inHubs);
+            ArrayIO.writeDoubles(output, inDistances);
+        }
+    }
+
+    /**
+     * Returns the graph these labels were built for.
+     * @return The graph these labels were built for.
+     */
+    public CompactGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the distance of the shortest path from source to target, found by merging the
+     * out label of source with the in label of target.
+     * @param source The id of the node the path starts at.
+     * @param target The id of the node the path ends at.
+     * @requires 0 <= source, target < getGraph().numNodes()
+     * @return The distance of the shortest path from source to target, or infinity if there
+     * is none.
+     */
+    public double distance(int source, int target) {
+        int i = outOffsets[source];
+        int iEnd = outOffsets[source + 1];
+        int j = inOffsets[target];
+        int jEnd = inOffsets[target + 1];
+        double best = Double.POSITIVE_INFINITY;
+        while (i < iEnd && j < jEnd) {
+            int a = outHubs[i];
+            int b = inHubs[j];
+            if (a == b) {
+                double distance = outDistances[i] + inDistances[j];
+                if (distance < best) {
+                    best = distance;
+                }
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the distance of the shortest path from start to dest.
+     * @param start The identifier of the node the path starts at.
+     * @param dest The identifier of the node the path ends at.
+     * @requires start and dest are nodes of getGraph().
+     * @return The distance of the shortest path from start to dest, or infinity if there is
+     * none.
+     */
+    public double distance(N start, N dest) {
+        return distance(graph.id(start), graph.id(dest));
+    }
+
+    /**
+     * Returns the number of (hub, distance) pairs in all the labels together.
+     * @return The number of (hub, distance) pairs in all the out and in labels.
+     */
+    public long numEntries() {
+        return (long) outHubs.length + inHubs.length;
+    }
+
+    /**
+     * Returns the average number of hubs in a label.
+     * @return The average number of hubs in the out and in labels of every node, or 0 if the
+     * graph has no nodes.
+     */
+    public double averageLabelSize() {
+        return order.length == 0 ? 0.0 : (double) numEntries() / (2 * order.length);
+    }
+
+    /**
+     * Returns the largest number of hubs in any label.
+     * @return The largest number of hubs in the out or in label of any node.
+     */
+    public int maxLabelSize() {
+        int max = 0;
+        for (int v = 0; v < order.length; v++) {
+            max = Math.max(max, outOffsets[v + 1] - outOffsets[v]);
+            max = Math.max(max, inOffsets[v + 1] - inOffsets[v]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of bytes the labels take in memory, not counting the graph.
+     * @return The approximate number of bytes taken by the arrays of the labels.
+     */
+    public long bytes() {
+        return 4L * (order.length + outOffsets.length + inOffsets.length) + 12L * numEntries();
+    }
+
+    // Runs a Dijkstra search from root, backward if reverse is set, that labels every node it
+    // settles whose distance is not already given by the labels with hub, which is root's place
+    // in order.  own holds the labels of root on the side the search starts from and other the
+    // labels it adds to.  A node whose distance the labels already give is neither labeled nor
+    // expanded.  rootLabel, which is all infinity before and after, holds the distances of
+    // root's own label by hub during the search, and reached marks the nodes the search has
+    // reached with the given stamp.
+    private void prune(int root, int hub, boolean reverse, Builder own, Builder other, double[] rootLabel,
+                       double[] distances, int[] reached, int stamp, NodeQueue queue) {
+        int[] rootHubs = own.hubs[root];
+        double[] rootDistances = own.distances[root];
+        int rootSize = own.sizes[root];
+        for (int k = 0; k < rootSize; k++) {
+            rootLabel[rootHubs[k]] = rootDistances[k];
+        }
+        queue.clear();
+        reached[root] = stamp;
+        distances[root] = 0.0;
+        queue.add(root, 0.0);
+        while (!queue.isEmpty()) {
+            int u = queue.remove();
+            double distance = distances[u];
+            if (covered(rootLabel, other, u, distance)) {
+                continue;
+            }
+            other.add(u, hub, distance);
+            int first = reverse ? graph.firstReverseEdge(u) : graph.firstEdge(u);
+            int end = reverse ? graph.endReverseEdge(u) : graph.endEdge(u);
+            for (int e = first; e < end; e++) {
+                int v = reverse ? graph.source(e) : graph.target(e);
+                double next = distance + (reverse ? graph.reverseWeight(e) : graph.weight(e));
+                if (reached[v] != stamp) {
+                    reached[v] = stamp;
+                    distances[v] = next;
+                    queue.add(v, next);
+                } else if (next < distances[v] && queue.contains(v)) {
+                    distances[v] = next;
+                    queue.decreaseKey(v, next);
+                }
+            }
+        }
+        for (int k = 0; k < rootSize; k++) {
+            rootLabel[rootHubs[k]] = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    // Returns whether the given label offsets start at 0 and never decrease.
+    private static boolean validOffsets(int[] offsets) {
+        if (offsets[0] != 0) {
+            return false;
+        }
+        for (int v = 1; v < offsets.length; v++) {
+            if (offsets[v - 1] > offsets[v]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns whether the hubs of every label given by the valid offsets are strictly
+    // increasing and less than the number of nodes, which is one less than offsets.length.
+    private static boolean validHubs(int[] offsets, int[] hubs) {
+        int n = offsets.length - 1;
+        for (int v = 0; v < n; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (hubs[i] < 0 || hubs[i] >= n || (i > offsets[v] && hubs[i - 1] >= hubs[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Returns whether order holds every number from 0 to order.length - 1 once.
+    private static boolean isPermutation(int[] order) {
+        boolean[] seen = new boolean[order.length];
+        for (int v : order) {
+            if (v < 0 || v >= order.length || seen[v]) {
+                return false;
+            }
+            seen[v] = true;
+        }
+        return true;
+    }
+
+    // Returns whether the label of u in labels, merged with root's label held in rootLabel,
+    // gives a distance between root and u of at most distance.
+    private static boolean covered(double[] rootLabel, Builder labels, int u, double distance) {
+        int[] hubs = labels.hubs[u];
+        double[] distances = labels.distances[u];
+        for (int k = labels.sizes[u] - 1; k >= 0; k--) {
+            if (rootLabel[hubs[k]] + distances[k] <= distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[HubLabels] graph is null.";
+        assert order.length == graph.numNodes() : "[HubLabels] order does not cover every node.";
+        assert outOffsets.length == order.length + 1 : "[HubLabels] outOffsets has the wrong length.";
+        assert inOffsets.length == order.length + 1 : "[HubLabels] inOffsets has the wrong length.";
+        assert outHubs.length == outOffsets[order.length] : "[HubLabels] outHubs has the wrong length.";
+        assert inHubs.length == inOffsets[order.length] : "[HubLabels] inHubs has the wrong length.";
+    }
+
+    // The labels of every node on one side while they are being built, each a growing array
+    // of hubs and one of distances.  Hubs are added in increasing order.
+    private static class Builder {
+        private final int[][] hubs;
+        private final double[][] distances;
+        private final int[] sizes;
+
+        private Builder(int n) {
+            hubs = new int[n][];
+            distances = new double[n][];
+            sizes = new int[n];
+            for (int v = 0; v < n; v++) {
+                hubs[v] = new int[4];
+                distances[v] = new double[4];
+            }
+        }
+
+        // Adds hub at the given distance to the label of v.
+        private void add(int v, int hub, double distance) {
+            int size = sizes[v];
+            if (size == hubs[v].length) {
+                hubs[v] = Arrays.copyOf(hubs[v], 2 * size);
+                distances[v] = Arrays.copyOf(distances[v], 2 * size);
+            }
+            hubs[v][size] = hub;
+            distances[v][size] = distance;
+            sizes[v] = size + 1;
+        }
+
+        // Returns the offsets of the labels when they are laid end to end.
+        private int[] offsets() {
+            int[] offsets = new int[sizes.length + 1];
+            for (int v = 0; v < sizes.length; v++) {
+                offsets[v + 1] = offsets[v] + sizes[v];
+            }
+            return offsets;
+        }
+
+        // Returns the hubs of the labels laid end to end at the given offsets.
+        private int[] hubs(int[] offsets) {
+            int[] flat = new int[offsets[sizes.length]];
+            for (int v = 0; v < sizes.length; v++) {
+                System.arraycopy(hubs[v], 0, flat, offsets[v], sizes[v]);
+            }
+            return flat;
+        }
+
+        // Returns the distances of the labels laid end to end at the given offsets.
+        private double[] distances(int[] offsets) {
+            double[] flat = new double[offsets[sizes.length]];
+            for (int v = 0; v < sizes.length; v++) {
+                System.arraycopy(distances[v], 0, flat, offsets[v], sizes[v]);
+            }
+            return flat;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This immutable class represents a set of landmarks of a CompactGraph and the distances from
+ * and to each of them, which give lower bounds on the distance between any two nodes for an A*
+ * search (the ALT method: A*, landmarks, and the triangle inequality).  For a landmark L, the
+ * distance from v to t is at least d(L, t) - d(L, v) and at least d(v, L) - d(t, L), and the
+ * largest of these bounds over all the landmarks is a consistent heuristic.
+ * <p>
+ * The landmarks are chosen one at a time as the node farthest from the landmarks already
+ * chosen, which places them around the edges of the graph where their bounds are tightest.
+ * The distances are then found with one shortest path tree from and one towards each landmark,
+ * grown in parallel on the common fork/join pool, and kept in two flat arrays with the
+ * distances of each node side by side.
+ *
+ * @author Dan Tran
+ *
+ */
+public class Landmarks<N extends Comparable<N>> {
+    // This immutable class represents a set of landmarks of a CompactGraph and the distances
+    // from and to each of them.
+
+    // Representation Invariant: graph, landmarks, from, and to != null, landmarks has no
+    // duplicates and every entry is a node of graph, and from and to have
+    // graph.numNodes() * landmarks.length entries.
+
+    // Abstraction Function: Landmark i is the node landmarks[i].  from[v * size + i] is the
+    // distance from landmark i to node v and to[v * size + i] the distance from v to landmark i,
+    // where size is landmarks.length, or infinity if there is no path.
+
+    private final CompactGraph<N> graph;
+    private final int[] landmarks;
+    private final double[] from;
+    private final double[] to;
+
+    /**
+     * Chooses the given number of landmarks of the given graph and finds the distances from
+     * and to each of them.
+     * @param graph The graph to choose landmarks of.
+     * @param count The number of landmarks to choose.
+     * @requires graph != null, count >= 0, and every edge weight in graph is non-negative.
+     * @effects Creates min(count, graph.numNodes()) landmarks of graph.
+     */
+    public Landmarks(CompactGraph<N> graph, int count) {
+        int n = graph.numNodes();
+        int size = Math.min(count, n);
+        this.graph = graph;
+        this.landmarks = new int[size];
+        this.from = new double[n * size];
+        this.to = new double[n * size];
+        choose();
+        ForkJoinPool.commonPool().invoke(new TreeTask(0, 2 * size));
+        checkRep();
+    }
+
+    /**
+     * Returns the graph the landmarks are nodes of.
+     * @return The graph the landmarks are nodes of.
+     */
+    public CompactGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of landmarks.
+     * @return The number of landmarks.
+     */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the id of the i-th landmark.
+     * @param i The index of the landmark.
+     * @requires 0 <= i < size()
+     * @return The id of the i-th landmark in the graph.
+     */
+    public int getLandmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Returns the distance from the i-th landmark to node v.
+     * @param i The index of the landmark.
+     * @param v The id of the node.
+     * @requires 0 <= i < size() and 0 <= v < getGraph().numNodes()
+     * @return The distance of the shortest path from the i-th landmark to v, or infinity if
+     * there is none.
+     */
+    public double fromLandmark(int i, int v) {
+        return from[v * landmarks.length + i];
+    }
+
+    /**
+     * Returns the distance from node v to the i-th landmark.
+     * @param i The index of the landmark.
+     * @param v The id of the node.
+     * @requires 0 <= i < size() and 0 <= v < getGraph().numNodes()
+     * @return The distance of the shortest path from v to the i-th landmark, or infinity if
+     * there is none.
+     */
+    public double toLandmark(int i, int v) {
+        return to[v * landmarks.length + i];
+    }
+
+    /**
+     * Returns a lower bound on the distance from v to t, which is consistent as an A*
+     * heuristic towards t.
+     * @param v The id of the node the distance is from.
+     * @param t The id of the node the distance is to.
+     * @requires 0 <= v, t < getGraph().numNodes()
+     * @return A lower bound on the distance of the shortest path from v to t, which is
+     * infinity only if there is no such path.
+     */
+    public double lowerBound(int v, int t) {
+        int size = landmarks.length;
+        int vi = v * size;
+        int ti = t * size;
+        double best = 0.0;
+        for (int i = 0; i < size; i++) {
+            // A bound of infinity minus infinity is not a number and fails both comparisons.
+            double forward = from[ti + i] - from[vi + i];
+            double backward = to[vi + i] - to[ti + i];
+            if (forward > best) {
+                best = forward;
+            }
+            if (backward > best) {
+                best = backward;
+            }
+        }
+        return best;
+    }
+
+    // Chooses the landmarks one at a time, each the node whose distance from the nearest
+    // landmark already chosen is greatest, counting nodes no landmark reaches as infinitely far.
+    // The first is the node farthest from node 0 that node 0 reaches.  Ties go to the lowest id.
+    private void choose() {
+        int n = graph.numNodes();
+        if (landmarks.length == 0) {
+            return;
+        }
+        ShortestPathSearch<N> search = new ShortestPathSearch<>(graph);
+        double[] distances = new double[n];
+        int[] parents = new int[n];
+        boolean[] chosen = new boolean[n];
+        search.findTree(0, false, distances, parents);
+        for (int v = 0; v < n; v++) {
+            if (distances[v] == Double.POSITIVE_INFINITY) {
+                distances[v] = -1.0;
+            }
+        }
+        landmarks[0] = farthest(distances, chosen);
+        chosen[landmarks[0]] = true;
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        for (int i = 1; i < landmarks.length; i++) {
+            search.findTree(landmarks[i - 1], false, distances, parents);
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], distances[v]);
+            }
+            landmarks[i] = farthest(nearest, chosen);
+            chosen[landmarks[i]] = true;
+        }
+    }
+
+    // Returns the node not yet chosen with the greatest of the given distances, the lowest
+    // such id if there is a tie.
+    private static int farthest(double[] distances, boolean[] chosen) {
+        int best = -1;
+        for (int v = 0; v < distances.length; v++) {
+            if (!chosen[v] && (best < 0 || distances[v] > distances[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[Landmarks] graph is null.";
+        assert from.length == graph.numNodes() * landmarks.length : "[Landmarks] from has the wrong size.";
+        assert to.length == from.length : "[Landmarks] to has the wrong size.";
+        for (int i = 0; i < landmarks.length; i++) {
+            for (int j = 0; j < i; j++) {
+                assert landmarks[i] != landmarks[j] : "[Landmarks] landmark " + landmarks[i] + " is chosen twice.";
+            }
+        }
+    }
+
+    // Grows the shortest path trees from start to end, splitting them in half while there are
+    // more than two.  Tree 2i is from landmark i and tree 2i + 1 is towards it.
+    @SuppressWarnings("serial")
+    private class TreeTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+
+        private TreeTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 2) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new TreeTask(start, middle), new TreeTask(middle, end));
+                return;
+            }
+            int n = graph.numNodes();
+            int size = landmarks.length;
+            ShortestPathSearch<N> search = new ShortestPathSearch<>(graph);
+            double[] distances = new double[n];
+            int[] parents = new int[n];
+            for (int tree = start; tree < end; tree++) {
+                int i = tree / 2;
+                boolean reverse = tree % 2 == 1;
+                search.findTree(landmarks[i], reverse, distances, parents);
+                double[] table = reverse ? to : from;
+                for (int v = 0; v < n; v++) {
+                    table[v * size + i] = distances[v];
+                }
+            }
+        }
+    }
+}
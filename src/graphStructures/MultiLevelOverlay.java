@@ -0,0 +1,494 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This immutable class represents a multi-level overlay of a CompactGraph, which answers shortest
+ * path queries by skipping across whole cells of a nested partition of the graph (customizable
+ * route planning).  At each level the nodes are divided into cells, every cell of a level lies
+ * inside one cell of the level above, and the boundary nodes of a cell are its nodes with an
+ * edge to or from another cell of that level.  Each cell keeps a clique of the distances
+ * between its boundary nodes through the cell.
+ * <p>
+ * The partition only depends on the nodes, so when edge weights change the overlay is
+ * customized to the new weights by recomputing just the cliques of the cells an edge changed
+ * in, level by level and in parallel on the common fork/join pool, while every other cell keeps
+ * its clique.  The clique of a cell on the lowest level is found with searches inside the cell,
+ * and that of a cell on a higher level with searches over the cliques of the cells inside it.
+ * <p>
+ * A query searches the original edges near its two ends and only the cliques and the edges
+ * between cells elsewhere, using at each node the highest level on which the node is in a
+ * different cell from both ends.  Clique arcs on the path found are unpacked with a search
+ * inside their cell.  Queries may be made from several threads at once; each thread reuses its
+ * own search arrays, which are reset in constant time.
+ *
+ * @author Dan Tran
+ *
+ */
+public class MultiLevelOverlay<N extends Comparable<N>> {
+    // This immutable class represents a multi-level overlay of a CompactGraph.
+
+    // Representation Invariant: graph, cells, slots, boundary, and cliques != null and have one
+    // entry per level.  cells[i] and slots[i] have graph.numNodes() entries, two nodes in the
+    // same cell of level i are in the same cell of level i + 1, boundary[i][c] lists in
+    // ascending order the nodes of cell c of level i with an edge to or from another cell of
+    // that level, and cliques[i][c] has boundary[i][c].length squared entries.
+
+    // Abstraction Function: Node v is in cell cells[i][v] on level i, where level 0 is the
+    // finest, and is boundary node slots[i][v] of that cell, or not a boundary node if that is
+    // -1.  The distance through cell c of level i from its j-th boundary node to its k-th is
+    // cliques[i][c][j * b + k], where b is boundary[i][c].length, or infinity if there is none.
+    // The original edges of graph are level -1.
+
+    private final CompactGraph<N> graph;
+    private final int[][] cells;
+    private final int[][] slots;
+    private final int[][][] boundary;
+    private final double[][][] cliques;
+    private final int customized;
+    private final AtomicLong settled;
+    private final ThreadLocal<Search> searches;
+
+    /**
+     * Builds the overlay of the given graph for the given nested partition of its nodes.
+     * @param graph The graph to build the overlay of.
+     * @param cells The cell of each node on each level, indexed by level and then by node id,
+     * from the finest level to the coarsest.
+     * @requires graph and cells != null, every entry of cells has graph.numNodes() non-negative
+     * entries, two nodes in the same cell of one level are in the same cell of the next, and
+     * every edge weight in graph is non-negative.
+     * @effects Creates the overlay of graph for the given partition, with the clique of every
+     * cell computed.
+     */
+    public MultiLevelOverlay(CompactGraph<N> graph, int[][] cells) {
+        this(graph, copy(cells), null, null);
+    }
+
+    // Creates the overlay of graph for the given partition, reusing the cliques of previous for
+    // the cells no changed node is in, or computing every clique if previous is null.
+    private MultiLevelOverlay(CompactGraph<N> graph, int[][] cells, MultiLevelOverlay<N> previous,
+                              boolean[] changed) {
+        int levels = cells.length;
+        this.graph = graph;
+        this.cells = cells;
+        this.slots = new int[levels][];
+        this.boundary = new int[levels][][];
+        this.cliques = new double[levels][][];
+        this.settled = new AtomicLong();
+        this.searches = ThreadLocal.withInitial(() -> new Search(graph.numNodes()));
+        int count = 0;
+        for (int i = 0; i < levels; i++) {
+            findBoundary(i);
+            int numCells = boundary[i].length;
+            boolean[] dirty = new boolean[numCells];
+            if (previous == null) {
+                Arrays.fill(dirty, true);
+            } else {
+                for (int v = 0; v < changed.length; v++) {
+                    if (changed[v]) {
+                        dirty[cells[i][v]] = true;
+                    }
+                }
+            }
+            int[] work = new int[numCells];
+            int size = 0;
+            for (int c = 0; c < numCells; c++) {
+                if (dirty[c]) {
+                    work[size++] = c;
+                } else {
+                    cliques[i][c] = previous.cliques[i][c];
+                }
+            }
+            ForkJoinPool.commonPool().invoke(new CellTask(i, work, 0, size));
+            count += size;
+        }
+        this.customized = count;
+        checkRep();
+    }
+
+    /**
+     * Returns an overlay of the given graph, which has the same nodes as the graph of this
+     * overlay but may have different edges or edge weights, with the same partition.  Only
+     * the cliques of the cells with a node whose edges changed are recomputed.
+     * @param graph The graph with the new edge weights.
+     * @requires graph != null, graph has the same nodes as getGraph(), and every edge weight in
+     * graph is non-negative.
+     * @return The overlay of graph for the partition of this overlay.
+     */
+    public MultiLevelOverlay<N> customize(CompactGraph<N> graph) {
+        int n = graph.numNodes();
+        boolean[] changed = new boolean[n];
+        for (int u = 0; u < n; u++) {
+            if (markChanged(this.graph, graph, u, changed) | markChanged(graph, this.graph, u, changed)) {
+                changed[u] = true;
+            }
+        }
+        return new MultiLevelOverlay<>(graph, cells, this, changed);
+    }
+
+    /**
+     * Returns the graph this is the overlay of.
+     * @return The graph this is the overlay of.
+     */
+    public CompactGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of levels of the partition.
+     * @return The number of levels of the partition.
+     */
+    public int numLevels() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the number of cells on the given level.
+     * @param level The level, where 0 is the finest.
+     * @requires 0 <= level < numLevels()
+     * @return The number of cells on the given level.
+     */
+    public int numCells(int level) {
+        return boundary[level].length;
+    }
+
+    /**
+     * Returns the number of boundary nodes of all the cells on the given level.
+     * @param level The level, where 0 is the finest.
+     * @requires 0 <= level < numLevels()
+     * @return The number of nodes with an edge to or from another cell of the given level.
+     */
+    public int numBoundaryNodes(int level) {
+        int count = 0;
+        for (int[] nodes : boundary[level]) {
+            count += nodes.length;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of cells whose cliques were computed when this overlay was made, as
+     * opposed to reused from the overlay it was customized from.
+     * @return The number of cells on all levels whose cliques were computed for this overlay.
+     */
+    public int getCustomizedCount() {
+        return customized;
+    }
+
+    /**
+     * Returns the number of nodes settled by all queries on this overlay.
+     * @return The number of nodes settled by all queries on this overlay.
+     */
+    public long getSettledCount() {
+        return settled.get();
+    }
+
+    /**
+     * Returns the ids of the nodes on a shortest path from source to target.
+     * @param source The id of the node the path starts at.
+     * @param target The id of the node the path ends at.
+     * @requires 0 <= source, target < getGraph().numNodes()
+     * @return The ids of the nodes on a shortest path from source to target in order, or null
+     * if there is no path from source to target.
+     */
+    public int[] findPath(int source, int target) {
+        Search search = searches.get();
+        search.start();
+        search.reach(source, 0.0, -1, -1);
+        long count = 0;
+        boolean found = false;
+        while (!search.active.isEmpty()) {
+            int u = search.active.remove();
+            count++;
+            if (u == target) {
+                found = true;
+                break;
+            }
+            relax(search, u, level(u, source, target), -1, -1);
+        }
+        settled.addAndGet(count);
+        if (!found) {
+            return null;
+        }
+
+        int[] path = new int[graph.numNodes()];
+        path[0] = source;
+        return Arrays.copyOf(path, append(search, source, target, path, 1));
+    }
+
+    // Appends the nodes after from on the path to to found by the last search to path, starting
+    // at index size, and returns the new size.  Each clique arc of level i on the path is
+    // unpacked with a search inside its cell over the arcs of level i - 1, recursively.
+    private int append(Search search, int from, int to, int[] path, int size) {
+        int length = 0;
+        for (int v = to; v != from; v = search.predecessors[v]) {
+            length++;
+        }
+        int[] hops = new int[length];
+        int[] levels = new int[length];
+        for (int v = to, i = length - 1; i >= 0; i--) {
+            hops[i] = v;
+            levels[i] = search.levels[v];
+            v = search.predecessors[v];
+        }
+        int previous = from;
+        for (int i = 0; i < length; i++) {
+            int level = levels[i];
+            if (level < 0) {
+                path[size++] = hops[i];
+            } else {
+                int cell = cells[level][previous];
+                search.start();
+                search.reach(previous, 0.0, -1, -1);
+                for (int u = search.active.remove(); u != hops[i]; u = search.active.remove()) {
+                    relax(search, u, level - 1, level, cell);
+                }
+                size = append(search, previous, hops[i], path, size);
+            }
+            previous = hops[i];
+        }
+        return size;
+    }
+
+    // Returns the level whose arcs a query from source to target follows out of node u, which
+    // is the highest level on which u is in a different cell from both source and target, or
+    // -1 for the original edges if there is none.
+    private int level(int u, int source, int target) {
+        for (int i = cells.length - 1; i >= 0; i--) {
+            int cell = cells[i][u];
+            if (cell != cells[i][source] && cell != cells[i][target]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Relaxes the arcs of the given level out of node u: the original edges if level is -1, or
+    // else the clique arcs of u's cell on that level and the original edges leaving that cell.
+    // If within >= 0, only nodes in cell cell of level within are reached.
+    private void relax(Search search, int u, int level, int within, int cell) {
+        double distance = search.distances[u];
+        if (level >= 0) {
+            int c = cells[level][u];
+            int[] nodes = boundary[level][c];
+            double[] clique = cliques[level][c];
+            int row = slots[level][u] * nodes.length;
+            for (int k = 0; k < nodes.length; k++) {
+                double weight = clique[row + k];
+                if (weight != Double.POSITIVE_INFINITY) {
+                    search.improve(nodes[k], distance + weight, u, level);
+                }
+            }
+        }
+        for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+            int v = graph.target(e);
+            if ((level >= 0 && cells[level][v] == cells[level][u])
+                    || (within >= 0 && cells[within][v] != cell)) {
+                continue;
+            }
+            search.improve(v, distance + graph.weight(e), u, -1);
+        }
+    }
+
+    // Finds the boundary nodes of every cell of the given level and their slots.
+    private void findBoundary(int level) {
+        int n = graph.numNodes();
+        int[] cell = cells[level];
+        int numCells = 0;
+        for (int v = 0; v < n; v++) {
+            numCells = Math.max(numCells, cell[v] + 1);
+        }
+        int[] slot = new int[n];
+        Arrays.fill(slot, -1);
+        int[] counts = new int[numCells];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                int v = graph.target(e);
+                if (cell[u] != cell[v]) {
+                    if (slot[u] < 0) {
+                        slot[u] = counts[cell[u]]++;
+                    }
+                    if (slot[v] < 0) {
+                        slot[v] = counts[cell[v]]++;
+                    }
+                }
+            }
+        }
+        // Renumber the slots so that each cell lists its boundary nodes in ascending order.
+        int[][] nodes = new int[numCells][];
+        for (int c = 0; c < numCells; c++) {
+            nodes[c] = new int[counts[c]];
+        }
+        Arrays.fill(counts, 0);
+        for (int v = 0; v < n; v++) {
+            if (slot[v] >= 0) {
+                slot[v] = counts[cell[v]]++;
+                nodes[cell[v]][slot[v]] = v;
+            }
+        }
+        slots[level] = slot;
+        boundary[level] = nodes;
+        cliques[level] = new double[numCells][];
+    }
+
+    // Returns a copy of the given partition.
+    private static int[][] copy(int[][] cells) {
+        int[][] copy = new int[cells.length][];
+        for (int i = 0; i < cells.length; i++) {
+            copy[i] = cells[i].clone();
+        }
+        return copy;
+    }
+
+    // Marks the target of every edge out of node u in graph that other does not have with the
+    // same weight as changed, and returns whether there were any.
+    private static <N extends Comparable<N>> boolean markChanged(CompactGraph<N> graph, CompactGraph<N> other,
+                                                                 int u, boolean[] changed) {
+        boolean any = false;
+        for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+            int v = graph.target(e);
+            boolean found = false;
+            for (int f = other.firstEdge(u); f < other.endEdge(u) && !found; f++) {
+                found = other.target(f) == v && other.weight(f) == graph.weight(e);
+            }
+            if (!found) {
+                changed[v] = true;
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[MultiLevelOverlay] graph is null.";
+        for (int i = 0; i < cells.length; i++) {
+            assert cells[i].length == graph.numNodes() : "[MultiLevelOverlay] level " + i + " has the wrong size.";
+            for (int c = 0; c < boundary[i].length; c++) {
+                int b = boundary[i][c].length;
+                assert cliques[i][c].length == b * b : "[MultiLevelOverlay] clique " + c + " has the wrong size.";
+            }
+        }
+    }
+
+    // The distances, predecessors, and frontier of a search, reused by every search on one
+    // thread.  A node's entries only count if it is stamped with the current generation, so
+    // starting a search takes constant time.
+    private static class Search {
+        private final double[] distances;
+        private final int[] predecessors;
+        private final int[] levels;
+        private final int[] reached;
+        private final BinaryHeap active;
+        private int generation;
+
+        private Search(int n) {
+            distances = new double[n];
+            predecessors = new int[n];
+            levels = new int[n];
+            reached = new int[n];
+            active = new BinaryHeap(n);
+        }
+
+        // Moves on to the next generation and empties the frontier.
+        private void start() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                generation = 1;
+            }
+            active.clear();
+        }
+
+        // Records that node was first reached at the given distance from predecessor through
+        // an arc of the given level, and queues it.
+        private void reach(int node, double distance, int predecessor, int level) {
+            reached[node] = generation;
+            distances[node] = distance;
+            predecessors[node] = predecessor;
+            levels[node] = level;
+            active.add(node, distance);
+        }
+
+        // Records the given distance to node if it is shorter than the best known one and node
+        // is not settled yet.
+        private void improve(int node, double distance, int predecessor, int level) {
+            if (reached[node] != generation) {
+                reach(node, distance, predecessor, level);
+            } else if (distance < distances[node] && active.contains(node)) {
+                distances[node] = distance;
+                predecessors[node] = predecessor;
+                levels[node] = level;
+                active.decreaseKey(node, distance);
+            }
+        }
+    }
+
+    // Computes the cliques of the cells work[start] to work[end - 1] of the given level,
+    // splitting them in half while there are more than a few.  The clique of a cell is found
+    // with a search from each of its boundary nodes over the arcs of the level below, kept
+    // inside the cell.
+    @SuppressWarnings("serial")
+    private class CellTask extends RecursiveAction {
+        private static final int CELLS = 4;
+
+        private final int level;
+        private final int[] work;
+        private final int start;
+        private final int end;
+
+        private CellTask(int level, int[] work, int start, int end) {
+            this.level = level;
+            this.work = work;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CELLS) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new CellTask(level, work, start, middle), new CellTask(level, work, middle, end));
+                return;
+            }
+            Search search = searches.get();
+            for (int w = start; w < end; w++) {
+                int c = work[w];
+                int[] nodes = boundary[level][c];
+                int b = nodes.length;
+                double[] clique = new double[b * b];
+                for (int j = 0; j < b; j++) {
+                    search.start();
+                    search.reach(nodes[j], 0.0, -1, -1);
+                    while (!search.active.isEmpty()) {
+                        relax(search, search.active.remove(), level - 1, level, c);
+                    }
+                    for (int k = 0; k < b; k++) {
+                        boolean found = search.reached[nodes[k]] == search.generation;
+                        clique[j * b + k] = found ? search.distances[nodes[k]] : Double.POSITIVE_INFINITY;
+                    }
+                }
+                cliques[level][c] = clique;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+/**
+ * A priority queue of node ids from 0 to capacity() - 1, each with a double key, that can lower
+ * the key of a node already in the queue.  Node ids index arrays inside the queue, so no objects
+ * are created as nodes are added and removed.
+ *
+ * @author Dan Tran
+ *
+ */
+public interface NodeQueue {
+
+    /**
+     * Returns the number of node ids the queue can hold.
+     * @return The node ids the queue can hold are 0 to capacity() - 1.
+     */
+    int capacity();
+
+    /**
+     * Returns the number of nodes in the queue.
+     * @return The number of nodes in the queue.
+     */
+    int size();
+
+    /**
+     * Returns whether the queue is empty.
+     * @return true if the queue is empty, false otherwise.
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns whether the given node is in the queue.
+     * @param node The id of the node.
+     * @requires 0 <= node < capacity()
+     * @return true if node is in the queue, false otherwise.
+     */
+    boolean contains(int node);
+
+    /**
+     * Returns the key of the given node.
+     * @param node The id of the node.
+     * @requires contains(node)
+     * @return The key of the given node.
+     */
+    double key(int node);
+
+    /**
+     * Adds the given node to the queue with the given key.
+     * @param node The id of the node.
+     * @param key The key of the node.
+     * @requires 0 <= node < capacity() and !contains(node)
+     * @modifies this
+     * @effects Adds node to the queue with the given key.
+     */
+    void add(int node, double key);
+
+    /**
+     * Lowers the key of the given node.
+     * @param node The id of the node.
+     * @param key The new key of the node.
+     * @requires contains(node) and key <= key(node)
+     * @modifies this
+     * @effects Changes the key of node to key.
+     */
+    void decreaseKey(int node, double key);
+
+    /**
+     * Returns a node with the smallest key without removing it.
+     * @requires !isEmpty()
+     * @return The id of a node with the smallest key.
+     */
+    int peek();
+
+    /**
+     * Returns the smallest key in the queue.
+     * @requires !isEmpty()
+     * @return The smallest key in the queue.
+     */
+    double peekKey();
+
+    /**
+     * Removes a node with the smallest key from the queue.
+     * @requires !isEmpty()
+     * @modifies this
+     * @effects Removes the node returned by peek() from the queue.
+     * @return The id of the node removed.
+     */
+    int remove();
+
+    /**
+     * Removes every node from the queue, in time proportional to the number of nodes in it.
+     * @modifies this
+     * @effects Makes the queue empty.
+     */
+    void clear();
+}
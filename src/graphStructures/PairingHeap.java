@@ -0,0 +1,212 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+/**
+ * This class represents a pairing heap of node ids with double keys, kept in arrays indexed by
+ * node id rather than in node objects.
+ *
+ * @author Dan Tran
+ *
+ */
+public class PairingHeap implements NodeQueue {
+    // This class represents a pairing heap of node ids with double keys.
+
+    // Representation Invariant: every array != null and has capacity entries, root is -1 if
+    // size == 0 and otherwise a node in the heap, every node in the heap but root has a key no
+    // smaller than its parent's, and contained[v] is true exactly for the size nodes reachable
+    // from root by following children and siblings.
+
+    // Abstraction Function: The queue holds the nodes in the tree rooted at root, where node v
+    // has key keys[v].  The children of v are child[v] and the chain of its siblings through
+    // sibling[], and previous[v] is the parent of v if it is the first child and otherwise the
+    // sibling before it, or -1 for the root.
+
+    private final double[] keys;
+    private final int[] child;
+    private final int[] sibling;
+    private final int[] previous;
+    private final boolean[] contained;
+    private final int[] scratch;
+    private int root;
+    private int size;
+
+    /**
+     * Constructs an empty heap for the node ids 0 to capacity - 1.
+     * @param capacity The number of node ids the heap can hold.
+     * @requires capacity >= 0
+     * @effects Creates an empty heap.
+     */
+    public PairingHeap(int capacity) {
+        this.keys = new double[capacity];
+        this.child = new int[capacity];
+        this.sibling = new int[capacity];
+        this.previous = new int[capacity];
+        this.contained = new boolean[capacity];
+        this.scratch = new int[capacity];
+        this.root = -1;
+        checkRep();
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return contained[node];
+    }
+
+    @Override
+    public double key(int node) {
+        return keys[node];
+    }
+
+    @Override
+    public void add(int node, double key) {
+        keys[node] = key;
+        child[node] = -1;
+        sibling[node] = -1;
+        previous[node] = -1;
+        contained[node] = true;
+        size++;
+        root = root < 0 ? node : link(root, node);
+    }
+
+    @Override
+    public void decreaseKey(int node, double key) {
+        keys[node] = key;
+        if (node == root) {
+            return;
+        }
+        // Cut the subtree of node out of its parent's children and link it with the root.
+        int before = previous[node];
+        if (child[before] == node) {
+            child[before] = sibling[node];
+        } else {
+            sibling[before] = sibling[node];
+        }
+        if (sibling[node] >= 0) {
+            previous[sibling[node]] = before;
+        }
+        sibling[node] = -1;
+        previous[node] = -1;
+        root = link(root, node);
+    }
+
+    @Override
+    public int peek() {
+        return root;
+    }
+
+    @Override
+    public double peekKey() {
+        return keys[root];
+    }
+
+    @Override
+    public int remove() {
+        int min = root;
+        contained[min] = false;
+        size--;
+
+        // Link the children of the root in pairs from left to right, then link the pairs
+        // together from right to left.
+        int count = 0;
+        int next = child[min];
+        while (next >= 0) {
+            int first = next;
+            int second = sibling[first];
+            next = second < 0 ? -1 : sibling[second];
+            detach(first);
+            if (second < 0) {
+                scratch[count++] = first;
+            } else {
+                detach(second);
+                scratch[count++] = link(first, second);
+            }
+        }
+        root = -1;
+        for (int i = count - 1; i >= 0; i--) {
+            root = root < 0 ? scratch[i] : link(scratch[i], root);
+        }
+        child[min] = -1;
+        return min;
+    }
+
+    @Override
+    public void clear() {
+        if (root >= 0) {
+            // Walk the tree with scratch as a stack, since each node is pushed only once.
+            int top = 0;
+            scratch[top++] = root;
+            while (top > 0) {
+                int node = scratch[--top];
+                contained[node] = false;
+                if (child[node] >= 0) {
+                    scratch[top++] = child[node];
+                }
+                if (sibling[node] >= 0) {
+                    scratch[top++] = sibling[node];
+                }
+            }
+        }
+        root = -1;
+        size = 0;
+    }
+
+    // Makes the tree with the larger root a child of the other, where both a and b are roots
+    // of trees with no siblings.  Returns the root of the result.
+    private int link(int a, int b) {
+        if (keys[b] < keys[a]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        sibling[b] = child[a];
+        if (child[a] >= 0) {
+            previous[child[a]] = b;
+        }
+        previous[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    // Makes node the root of a tree of its own, without siblings.
+    private void detach(int node) {
+        sibling[node] = -1;
+        previous[node] = -1;
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert keys.length == contained.length : "[PairingHeap] arrays have different lengths.";
+        assert (root < 0) == (size == 0) : "[PairingHeap] root does not match size.";
+        assert 0 <= size && size <= keys.length : "[PairingHeap] size is out of range.";
+    }
+}
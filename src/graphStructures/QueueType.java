@@ -0,0 +1,60 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+/**
+ * The kinds of NodeQueue a ShortestPathSearch can order its frontier with.
+ *
+ * @author Dan Tran
+ *
+ */
+public enum QueueType {
+    /**
+     * An indexed binary heap, with every operation taking logarithmic time.
+     */
+    BINARY_HEAP,
+
+    /**
+     * A pairing heap, which adds nodes and lowers keys in constant time and removes the
+     * smallest in amortized logarithmic time.
+     */
+    PAIRING_HEAP,
+
+    /**
+     * A radix heap over the bits of the keys.  It requires that no key is added below the last
+     * key removed, which holds for Dijkstra's algorithm with non-negative weights and for A*
+     * with a consistent heuristic.
+     */
+    RADIX_HEAP;
+
+    /**
+     * Returns a new empty queue of this kind for the node ids 0 to capacity - 1.
+     * @param capacity The number of node ids the queue can hold.
+     * @requires capacity >= 0
+     * @return A new empty queue of this kind.
+     */
+    public NodeQueue newQueue(int capacity) {
+        switch (this) {
+            case PAIRING_HEAP:
+                return new PairingHeap(capacity);
+            case RADIX_HEAP:
+                return new RadixHeap(capacity);
+            default:
+                return new BinaryHeap(capacity);
+        }
+    }
+}
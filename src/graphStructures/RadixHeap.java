@@ -0,0 +1,219 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a radix heap of node ids with double keys.  Keys are compared through
+ * an order-preserving mapping of their bits to 64-bit integers, and each node is kept in the
+ * bucket numbered by the highest bit in which its key differs from the last key removed.  This
+ * requires the heap to be monotone: a key added or lowered below the last key removed is
+ * treated as equal to it.
+ *
+ * @author Dan Tran
+ *
+ */
+public class RadixHeap implements NodeQueue {
+    // This class represents a monotone radix heap of node ids with double keys.
+
+    // Representation Invariant: every array != null, keys, bits, buckets, next, and previous
+    // have capacity entries, heads has 65 entries, buckets[v] == -1 for every node v not in the
+    // heap, and every node v in the heap is in the list of bucket buckets[v] == bucket(bits[v]),
+    // where bits[v] is unsigned no smaller than last.
+
+    // Abstraction Function: The queue holds every node v with buckets[v] >= 0, with key keys[v].
+    // The nodes in bucket b are heads[b] and the chain after it through next[], with previous[]
+    // linking back, and last is the mapped key of the node removed last, or 0 if none has been
+    // removed since the heap was created or cleared.
+
+    private static final int BUCKETS = 65;
+
+    private final double[] keys;
+    private final long[] bits;
+    private final int[] buckets;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] heads;
+    private long last;
+    private int size;
+
+    /**
+     * Constructs an empty heap for the node ids 0 to capacity - 1.
+     * @param capacity The number of node ids the heap can hold.
+     * @requires capacity >= 0
+     * @effects Creates an empty heap.
+     */
+    public RadixHeap(int capacity) {
+        this.keys = new double[capacity];
+        this.bits = new long[capacity];
+        this.buckets = new int[capacity];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.heads = new int[BUCKETS];
+        Arrays.fill(buckets, -1);
+        Arrays.fill(heads, -1);
+        checkRep();
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return buckets[node] >= 0;
+    }
+
+    @Override
+    public double key(int node) {
+        return keys[node];
+    }
+
+    @Override
+    public void add(int node, double key) {
+        size++;
+        place(node, key);
+    }
+
+    @Override
+    public void decreaseKey(int node, double key) {
+        unlink(node);
+        place(node, key);
+    }
+
+    @Override
+    public int peek() {
+        return min();
+    }
+
+    @Override
+    public double peekKey() {
+        return keys[min()];
+    }
+
+    @Override
+    public int remove() {
+        int node = min();
+        unlink(node);
+        buckets[node] = -1;
+        size--;
+        return node;
+    }
+
+    @Override
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b++) {
+            for (int node = heads[b]; node >= 0; node = next[node]) {
+                buckets[node] = -1;
+            }
+            heads[b] = -1;
+        }
+        last = 0;
+        size = 0;
+    }
+
+    // Returns a node with the smallest key, first refilling bucket 0 from the lowest nonempty
+    // bucket if it is empty.  Every key in bucket 0 equals last.
+    private int min() {
+        if (heads[0] < 0) {
+            int b = 1;
+            while (heads[b] < 0) {
+                b++;
+            }
+            long min = bits[heads[b]];
+            for (int node = heads[b]; node >= 0; node = next[node]) {
+                if (Long.compareUnsigned(bits[node], min) < 0) {
+                    min = bits[node];
+                }
+            }
+            last = min;
+            int node = heads[b];
+            heads[b] = -1;
+            while (node >= 0) {
+                int following = next[node];
+                push(node, bucket(bits[node]));
+                node = following;
+            }
+        }
+        return heads[0];
+    }
+
+    // Gives node the given key and adds it to its bucket.
+    private void place(int node, double key) {
+        long mapped = map(key);
+        if (Long.compareUnsigned(mapped, last) < 0) {
+            mapped = last;
+        }
+        keys[node] = key;
+        bits[node] = mapped;
+        push(node, bucket(mapped));
+    }
+
+    // Adds node to the front of the list of the given bucket.
+    private void push(int node, int bucket) {
+        buckets[node] = bucket;
+        previous[node] = -1;
+        next[node] = heads[bucket];
+        if (heads[bucket] >= 0) {
+            previous[heads[bucket]] = node;
+        }
+        heads[bucket] = node;
+    }
+
+    // Removes node from the list of its bucket.
+    private void unlink(int node) {
+        if (previous[node] >= 0) {
+            next[previous[node]] = next[node];
+        } else {
+            heads[buckets[node]] = next[node];
+        }
+        if (next[node] >= 0) {
+            previous[next[node]] = previous[node];
+        }
+    }
+
+    // Returns the bucket of a mapped key, which is one more than the index of the highest bit
+    // in which it differs from last, or 0 if it equals last.
+    private int bucket(long mapped) {
+        return 64 - Long.numberOfLeadingZeros(mapped ^ last);
+    }
+
+    // Returns a long whose unsigned order matches the order of the given doubles.
+    private static long map(double key) {
+        long raw = Double.doubleToLongBits(key);
+        return raw ^ ((raw >> 63) | Long.MIN_VALUE);
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert keys.length == buckets.length : "[RadixHeap] arrays have different lengths.";
+        assert heads.length == BUCKETS : "[RadixHeap] heads has the wrong length.";
+        assert 0 <= size && size <= keys.length : "[RadixHeap] size is out of range.";
+    }
+}
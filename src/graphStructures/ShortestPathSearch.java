@@ -0,0 +1,497 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * This class finds shortest paths in a CompactGraph with non-negative edge weights, using
+ * Dijkstra's algorithm, A*, or a bidirectional search.  It keeps the distance and predecessor
+ * of every node in arrays sized to the graph, so an instance must not be used by more than one
+ * thread at a time.  The frontier of each side is kept in a NodeQueue of a chosen type, which
+ * lowers the key of a node when a shorter path to it is found rather than adding it again.
+ * <p>
+ * The arrays are allocated once and reused by every search.  Rather than clearing them, each
+ * search has a new generation number and a node's entries only count if it was stamped with
+ * the current generation, so starting a search takes constant time and allocates nothing.
+ *
+ * @author Dan Tran
+ *
+ */
+public class ShortestPathSearch<N extends Comparable<N>> {
+    // This class finds shortest paths in a CompactGraph with non-negative edge weights.
+
+    // Representation Invariant: graph, forward, backward, and every array != null, every array
+    // and queue has one entry per node of graph, generation > 0, and no entry of forwardReached
+    // or backwardReached is greater than generation.
+
+    // Abstraction Function: A node v was reached by the forward side of the last search if
+    // forwardReached[v] == generation, and then forwardDistances[v] is the best known distance
+    // from the source to v and forwardPredecessors[v] the node before v on that path, or -1 if
+    // v is the source.  A reached node is settled, meaning its distance is final, once it is no
+    // longer in forward.  backwardReached, backwardDistances, backwardPredecessors, and backward
+    // are the same for the distance from v to the target, where the predecessor is the node
+    // after v.  settled is the number of nodes settled by the last search.
+
+    private final CompactGraph<N> graph;
+    private final double[] forwardDistances;
+    private final int[] forwardPredecessors;
+    private final int[] forwardReached;
+    private final double[] backwardDistances;
+    private final int[] backwardPredecessors;
+    private final int[] backwardReached;
+    private final NodeQueue forward;
+    private final NodeQueue backward;
+    private int generation;
+    private int settled;
+
+    /**
+     * Constructs a search over the given graph that orders its frontiers with binary heaps.
+     * @param graph The graph to search.
+     * @requires graph != null and every edge weight in graph is non-negative.
+     * @effects Creates a search over the given graph.
+     */
+    public ShortestPathSearch(CompactGraph<N> graph) {
+        this(graph, QueueType.BINARY_HEAP);
+    }
+
+    /**
+     * Constructs a search over the given graph that orders its frontiers with queues of the
+     * given type.
+     * @param graph The graph to search.
+     * @param queueType The type of queue the frontiers are kept in.
+     * @requires graph and queueType != null and every edge weight in graph is non-negative.
+     * @effects Creates a search over the given graph.
+     */
+    public ShortestPathSearch(CompactGraph<N> graph, QueueType queueType) {
+        int n = graph.numNodes();
+        this.graph = graph;
+        this.forwardDistances = new double[n];
+        this.forwardPredecessors = new int[n];
+        this.forwardReached = new int[n];
+        this.backwardDistances = new double[n];
+        this.backwardPredecessors = new int[n];
+        this.backwardReached = new int[n];
+        this.forward = queueType.newQueue(n);
+        this.backward = queueType.newQueue(n);
+        this.generation = 1;
+        checkRep();
+    }
+
+    /**
+     * Returns the graph this searches.
+     * @return The graph this searches.
+     */
+    public CompactGraph<N> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last search.
+     * @return The number of nodes settled by the last search.
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * Returns the ids of the nodes on a shortest path from source to target found with
+     * Dijkstra's algorithm, or with A* if a heuristic is given.
+     * @param source The id of the node the path starts at.
+     * @param target The id of the node the path ends at.
+     * @param heuristic Estimates the distance from a node to target, or null to use Dijkstra's
+     * algorithm.
+     * @requires 0 <= source, target < graph.numNodes(), and heuristic never overestimates and
+     * never drops by more than the weight of an edge along that edge.
+     * @modifies this
+     * @return The ids of the nodes on a shortest path from source to target in order, or null if
+     * there is no path from source to target.
+     */
+    public int[] findPath(int source, int target, IntToDoubleFunction heuristic) {
+        return findPath(source, target, heuristic, null);
+    }
+
+    /**
+     * Returns the ids of the nodes on a shortest path from source to target found with
+     * Dijkstra's algorithm, or with A* if a heuristic is given, following only the edges that
+     * pass the given filter.
+     * @param source The id of the node the path starts at.
+     * @param target The id of the node the path ends at.
+     * @param heuristic Estimates the distance from a node to target, or null to use Dijkstra's
+     * algorithm.
+     * @param edges Tells whether an edge, given by its index, may be followed, or null to follow
+     * every edge.
+     * @requires 0 <= source, target < graph.numNodes(), heuristic never overestimates and
+     * never drops by more than the weight of an edge along that edge, and edges passes every
+     * edge of at least one shortest path from each node to target.
+     * @modifies this
+     * @return The ids of the nodes on a shortest path from source to target in order, or null if
+     * there is no path from source to target.
+     */
+    public int[] findPath(int source, int target, IntToDoubleFunction heuristic, IntPredicate edges) {
+        start();
+        reach(forwardReached, forwardDistances, forwardPredecessors, source, 0.0, -1);
+        forward.add(source, estimate(heuristic, source));
+
+        while (!forward.isEmpty()) {
+            int u = forward.remove();
+            settled++;
+            if (u == target) {
+                return path(source, target, target);
+            }
+            double distance = forwardDistances[u];
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                if (edges != null && !edges.test(e)) {
+                    continue;
+                }
+                int v = graph.target(e);
+                double next = distance + graph.weight(e);
+                if (forwardReached[v] != generation) {
+                    reach(forwardReached, forwardDistances, forwardPredecessors, v, next, u);
+                    forward.add(v, next + estimate(heuristic, v));
+                } else if (next < forwardDistances[v] && forward.contains(v)) {
+                    forwardDistances[v] = next;
+                    forwardPredecessors[v] = u;
+                    forward.decreaseKey(v, next + estimate(heuristic, v));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the ids of the nodes on a shortest path from source to target found by searching
+     * forward from source and backward from target at the same time, always growing the side
+     * whose frontier is closer.  If a potential p is given, the forward side is ordered by
+     * distance plus p and the backward side by distance minus p.
+     * @param source The id of the node the path starts at.
+     * @param target The id of the node the path ends at.
+     * @param potential The forward potential of a node, or null for none.  A good choice is half
+     * the difference of a lower bound on the distance to target and a lower bound on the
+     * distance from source.
+     * @requires 0 <= source, target < graph.numNodes(), and potential never drops by more than
+     * the weight of an edge along that edge.
+     * @modifies this
+     * @return The ids of the nodes on a shortest path from source to target in order, or null if
+     * there is no path from source to target.
+     */
+    public int[] findBidirectionalPath(int source, int target, IntToDoubleFunction potential) {
+        start();
+        reach(forwardReached, forwardDistances, forwardPredecessors, source, 0.0, -1);
+        forward.add(source, estimate(potential, source));
+        reach(backwardReached, backwardDistances, backwardPredecessors, target, 0.0, -1);
+        backward.add(target, -estimate(potential, target));
+
+        // With keys of distance plus or minus the potential, the potentials cancel out and the
+        // searches can stop once the two smallest keys add up to the best path found.
+        double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+        int meeting = source == target ? source : -1;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            double forwardKey = forward.peekKey();
+            double backwardKey = backward.peekKey();
+            if (forwardKey + backwardKey >= best) {
+                break;
+            }
+            boolean isForward = forwardKey <= backwardKey;
+            int u = isForward ? forward.remove() : backward.remove();
+            settled++;
+            if (isForward) {
+                double distance = forwardDistances[u];
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    double next = distance + graph.weight(e);
+                    if (forwardReached[v] != generation) {
+                        reach(forwardReached, forwardDistances, forwardPredecessors, v, next, u);
+                        forward.add(v, next + estimate(potential, v));
+                    } else if (!forward.contains(v)) {
+                        continue;
+                    } else if (next < forwardDistances[v]) {
+                        forwardDistances[v] = next;
+                        forwardPredecessors[v] = u;
+                        forward.decreaseKey(v, next + estimate(potential, v));
+                    }
+                    if (backwardReached[v] == generation && forwardDistances[v] + backwardDistances[v] < best) {
+                        best = forwardDistances[v] + backwardDistances[v];
+                        meeting = v;
+                    }
+                }
+            } else {
+                double distance = backwardDistances[u];
+                for (int e = graph.firstReverseEdge(u); e < graph.endReverseEdge(u); e++) {
+                    int v = graph.source(e);
+                    double next = distance + graph.reverseWeight(e);
+                    if (backwardReached[v] != generation) {
+                        reach(backwardReached, backwardDistances, backwardPredecessors, v, next, u);
+                        backward.add(v, next - estimate(potential, v));
+                    } else if (!backward.contains(v)) {
+                        continue;
+                    } else if (next < backwardDistances[v]) {
+                        backwardDistances[v] = next;
+                        backwardPredecessors[v] = u;
+                        backward.decreaseKey(v, next - estimate(potential, v));
+                    }
+                    if (forwardReached[v] == generation && forwardDistances[v] + backwardDistances[v] < best) {
+                        best = forwardDistances[v] + backwardDistances[v];
+                        meeting = v;
+                    }
+                }
+            }
+        }
+        if (meeting < 0) {
+            return null;
+        }
+        return path(source, target, meeting);
+    }
+
+    /**
+     * Returns the ids of the nodes on a shortest path from any of the given sources to any of
+     * the given targets with Dijkstra's algorithm, where leaving from a source and arriving at
+     * a target cost the given extra distances.  This is the same as searching from one virtual
+     * node with an edge to each source to another with an edge from each target, without
+     * adding either to the graph.
+     * @param sources The ids of the nodes the path may start at.
+     * @param sourceDistances The distance added to a path that starts at each source.
+     * @param targets The ids of the nodes the path may end at.
+     * @param targetDistances The distance added to a path that ends at each target.
+     * @requires every source and target is between 0 and graph.numNodes() - 1, sourceDistances
+     * and targetDistances are non-negative and have as many entries as sources and targets.
+     * @modifies this
+     * @return The ids of the nodes on a path from a source to a target in order whose length
+     * plus the distances of its source and target is least, or null if no target can be
+     * reached from any source.
+     */
+    public int[] findPath(int[] sources, double[] sourceDistances, int[] targets, double[] targetDistances) {
+        start();
+        // The backward side is not used, so its stamps and distances mark the targets and
+        // their extra distances.
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            if (backwardReached[target] != generation || targetDistances[i] < backwardDistances[target]) {
+                reach(backwardReached, backwardDistances, backwardPredecessors, target, targetDistances[i], -1);
+            }
+        }
+        for (int i = 0; i < sources.length; i++) {
+            int source = sources[i];
+            double distance = sourceDistances[i];
+            if (forwardReached[source] != generation) {
+                reach(forwardReached, forwardDistances, forwardPredecessors, source, distance, -1);
+                forward.add(source, distance);
+            } else if (distance < forwardDistances[source]) {
+                forwardDistances[source] = distance;
+                forward.decreaseKey(source, distance);
+            }
+        }
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+
+        while (!forward.isEmpty() && forward.peekKey() < best) {
+            int u = forward.remove();
+            settled++;
+            double distance = forwardDistances[u];
+            if (backwardReached[u] == generation && distance + backwardDistances[u] < best) {
+                best = distance + backwardDistances[u];
+                meeting = u;
+            }
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                int v = graph.target(e);
+                double next = distance + graph.weight(e);
+                if (forwardReached[v] != generation) {
+                    reach(forwardReached, forwardDistances, forwardPredecessors, v, next, u);
+                    forward.add(v, next);
+                } else if (next < forwardDistances[v] && forward.contains(v)) {
+                    forwardDistances[v] = next;
+                    forwardPredecessors[v] = u;
+                    forward.decreaseKey(v, next);
+                }
+            }
+        }
+        if (meeting < 0) {
+            return null;
+        }
+        int length = 1;
+        for (int v = forwardPredecessors[meeting]; v >= 0; v = forwardPredecessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = meeting; v >= 0; v = forwardPredecessors[v]) {
+            path[--length] = v;
+        }
+        return path;
+    }
+
+    /**
+     * Finds the shortest paths from root to every node, or from every node to root if reverse
+     * is set, with Dijkstra's algorithm.  The tree is written into the given arrays.
+     * @param root The id of the node at the root of the tree.
+     * @param reverse Whether to find the paths to root rather than from root.
+     * @param distances Receives the distance of the shortest path between root and each node.
+     * @param parents Receives the node before each node on the shortest path from root, or if
+     * reverse is set the node after it on the shortest path to root.
+     * @requires 0 <= root < graph.numNodes(), and distances and parents have graph.numNodes()
+     * entries.
+     * @modifies this, distances, parents
+     * @effects Sets distances[v] to the distance between root and v, or infinity if there is
+     * no path, and parents[v] to the next node towards root on a shortest path, or -1 if v is
+     * root or there is no path.
+     */
+    public void findTree(int root, boolean reverse, double[] distances, int[] parents) {
+        start();
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+        distances[root] = 0.0;
+        forwardReached[root] = generation;
+        forward.add(root, 0.0);
+
+        while (!forward.isEmpty()) {
+            int u = forward.remove();
+            settled++;
+            double distance = distances[u];
+            int first = reverse ? graph.firstReverseEdge(u) : graph.firstEdge(u);
+            int end = reverse ? graph.endReverseEdge(u) : graph.endEdge(u);
+            for (int e = first; e < end; e++) {
+                int v = reverse ? graph.source(e) : graph.target(e);
+                double next = distance + (reverse ? graph.reverseWeight(e) : graph.weight(e));
+                if (forwardReached[v] != generation) {
+                    forwardReached[v] = generation;
+                    distances[v] = next;
+                    parents[v] = u;
+                    forward.add(v, next);
+                } else if (next < distances[v] && forward.contains(v)) {
+                    distances[v] = next;
+                    parents[v] = u;
+                    forward.decreaseKey(v, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the distances of the shortest paths from source to each of the given targets with
+     * Dijkstra's algorithm, stopping as soon as every target is settled.  No paths are built.
+     * @param source The id of the node the paths start at.
+     * @param targets The ids of the nodes the paths end at, which may repeat.
+     * @param distances Receives the distance from source to each target.
+     * @requires 0 <= source < graph.numNodes(), every target is in the same range, and distances
+     * has at least targets.length entries.
+     * @modifies this, distances
+     * @effects Sets distances[i] to the distance of the shortest path from source to targets[i],
+     * or infinity if there is no path.
+     */
+    public void findDistances(int source, int[] targets, double[] distances) {
+        start();
+        // The backward side is not used, so its stamps mark the targets not yet settled.
+        int remaining = 0;
+        for (int target : targets) {
+            if (backwardReached[target] != generation) {
+                backwardReached[target] = generation;
+                remaining++;
+            }
+        }
+        reach(forwardReached, forwardDistances, forwardPredecessors, source, 0.0, -1);
+        forward.add(source, 0.0);
+
+        while (remaining > 0 && !forward.isEmpty()) {
+            int u = forward.remove();
+            settled++;
+            if (backwardReached[u] == generation) {
+                remaining--;
+            }
+            double distance = forwardDistances[u];
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                int v = graph.target(e);
+                double next = distance + graph.weight(e);
+                if (forwardReached[v] != generation) {
+                    reach(forwardReached, forwardDistances, forwardPredecessors, v, next, u);
+                    forward.add(v, next);
+                } else if (next < forwardDistances[v] && forward.contains(v)) {
+                    forwardDistances[v] = next;
+                    forwardPredecessors[v] = u;
+                    forward.decreaseKey(v, next);
+                }
+            }
+        }
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            boolean found = forwardReached[target] == generation && !forward.contains(target);
+            distances[i] = found ? forwardDistances[target] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    // Starts a new search by moving on to the next generation and emptying the frontiers.  The
+    // stamps are only cleared when the generation number wraps around.
+    private void start() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(forwardReached, 0);
+            Arrays.fill(backwardReached, 0);
+            generation = 1;
+        }
+        forward.clear();
+        backward.clear();
+        settled = 0;
+    }
+
+    // Records that node was reached by one side of the current search with the given distance
+    // and predecessor.
+    private void reach(int[] reached, double[] distances, int[] predecessors, int node, double distance,
+                       int predecessor) {
+        reached[node] = generation;
+        distances[node] = distance;
+        predecessors[node] = predecessor;
+    }
+
+    // Returns the path from source through meeting to target, following the forward
+    // predecessors back from meeting and the backward predecessors on to target.
+    private int[] path(int source, int target, int meeting) {
+        int length = 1;
+        for (int v = meeting; v != source; v = forwardPredecessors[v]) {
+            length++;
+        }
+        for (int v = meeting; v != target; v = backwardPredecessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = meeting; v != source; v = forwardPredecessors[v]) {
+            i++;
+        }
+        path[i] = meeting;
+        for (int v = meeting, j = i - 1; v != source; j--) {
+            v = forwardPredecessors[v];
+            path[j] = v;
+        }
+        for (int v = meeting, j = i + 1; v != target; j++) {
+            v = backwardPredecessors[v];
+            path[j] = v;
+        }
+        return path;
+    }
+
+    // Returns the estimate of the given function for node, or zero if there is no function.
+    private static double estimate(IntToDoubleFunction function, int node) {
+        return function == null ? 0.0 : function.applyAsDouble(node);
+    }
+
+    // Checks the object on the representation invariant to ensure correctness.
+    private void checkRep() {
+        assert graph != null : "[ShortestPathSearch] graph is null.";
+        assert forwardDistances.length == graph.numNodes() : "[ShortestPathSearch] arrays have the wrong length.";
+        assert generation > 0 : "[ShortestPathSearch] generation is not positive.";
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import graphStructures.ArcFlags;
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+import graphStructures.ShortestPathSearch;
+
+public class ArcFlagsTest {
+
+    // Checks that a search pruned by the flags finds a shortest path between every pair of
+    // nodes of their graph, or none when there is none.
+    private static void checkPaths(ArcFlags<Integer> flags) {
+        CompactGraph<Integer> graph = flags.getGraph();
+        ShortestPathSearch<Integer> search = new ShortestPathSearch<Integer>(graph);
+        GraphFixtures.checkAllPairs(graph, (source, target, distance) -> {
+            int[] path = search.findPath(source, target, null, flags.toward(target));
+            GraphFixtures.checkPath(graph, source, target, distance, path);
+        });
+    }
+
+    @Test
+    public void TestPrunedPathsAreShortest() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(80, 240, 5));
+        Random random = new Random(7);
+        int[] regions = new int[80];
+        for (int v = 0; v < 80; v++) {
+            regions[v] = random.nextInt(6);
+        }
+        checkPaths(new ArcFlags<Integer>(graph, regions, 6));
+    }
+
+    @Test
+    public void TestManyRegions() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(150, 450, 9));
+        int[] regions = new int[150];
+        for (int v = 0; v < 150; v++) {
+            regions[v] = v % 100;
+        }
+        ArcFlags<Integer> flags = new ArcFlags<Integer>(graph, regions, 100);
+        assertEquals(100, flags.numRegions());
+        assertEquals(49, flags.getRegion(149));
+        assertEquals(8 * 2 * graph.numEdges(), flags.bytes());
+        checkPaths(flags);
+    }
+
+    @Test
+    public void TestOneRegionFlagsEveryEdge() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(30, 90, 11));
+        ArcFlags<Integer> flags = new ArcFlags<Integer>(graph, new int[30], 1);
+        assertEquals(1.0, flags.flaggedFraction(), 0.0);
+    }
+
+    @Test
+    public void TestFlagsSkipDetours() {
+        // 0 -> 1 -> 2 is shorter than 0 -> 3 -> 2, so the edge to 3 is not flagged for the
+        // region of 2 but is for its own.
+        Graph<Integer, Double> graph = new Graph<Integer, Double>();
+        for (int i = 0; i < 4; i++) {
+            graph.addNode(i);
+        }
+        graph.addEdge(1.0, 0, 1);
+        graph.addEdge(1.0, 1, 2);
+        graph.addEdge(2.0, 0, 3);
+        graph.addEdge(2.0, 3, 2);
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(graph);
+        ArcFlags<Integer> flags = new ArcFlags<Integer>(compact, new int[] {0, 0, 1, 2}, 3);
+        int toThree = -1;
+        for (int e = compact.firstEdge(0); e < compact.endEdge(0); e++) {
+            if (compact.target(e) == 3) {
+                toThree = e;
+            }
+        }
+        assertFalse(flags.isFlagged(toThree, 1));
+        assertTrue(flags.isFlagged(toThree, 2));
+        assertTrue(flags.flaggedFraction() < 1.0);
+        checkPaths(flags);
+    }
+}
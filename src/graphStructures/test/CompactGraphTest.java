@@ -0,0 +1,97 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+
+public class CompactGraphTest {
+
+    @Test
+    public void TestConstructor() {
+        Graph<String, Double> graph = new Graph<String, Double>();
+        graph.addNode("b");
+        graph.addNode("a");
+        graph.addNode("c");
+        graph.addEdge(2.0, "a", "b");
+        graph.addEdge(3.0, "a", "c");
+        graph.addEdge(4.0, "c", "b");
+        CompactGraph<String> compact = new CompactGraph<String>(graph);
+        assertEquals(3, compact.numNodes());
+        assertEquals(3, compact.numEdges());
+        assertEquals(0, compact.id("a"));
+        assertEquals(1, compact.id("b"));
+        assertEquals(-1, compact.id("d"));
+        assertEquals("c", compact.node(2));
+        assertEquals(2, compact.endEdge(0) - compact.firstEdge(0));
+        assertEquals(0, compact.endEdge(1) - compact.firstEdge(1));
+        assertEquals(1, compact.target(compact.firstEdge(0)));
+        assertEquals(2.0, compact.weight(compact.firstEdge(0)), 0.0);
+    }
+
+    @Test
+    public void TestReverseEdges() {
+        Graph<String, Double> graph = new Graph<String, Double>();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addNode("c");
+        graph.addEdge(2.0, "a", "b");
+        graph.addEdge(4.0, "c", "b");
+        CompactGraph<String> compact = new CompactGraph<String>(graph);
+        int b = compact.id("b");
+        assertEquals(2, compact.endReverseEdge(b) - compact.firstReverseEdge(b));
+        assertEquals(0, compact.source(compact.firstReverseEdge(b)));
+        assertEquals(2.0, compact.reverseWeight(compact.firstReverseEdge(b)), 0.0);
+        assertEquals(2, compact.source(compact.firstReverseEdge(b) + 1));
+        assertEquals(4.0, compact.reverseWeight(compact.firstReverseEdge(b) + 1), 0.0);
+    }
+
+    @Test
+    public void TestSnapshotIsUnaffectedByChanges() {
+        Graph<String, Double> graph = new Graph<String, Double>();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addEdge(1.0, "a", "b");
+        graph.addEdge(0.5, "a", "b");
+        CompactGraph<String> compact = new CompactGraph<String>(graph);
+        graph.addNode("c");
+        graph.addEdge(1.0, "b", "c");
+        assertEquals(2, compact.numNodes());
+        assertEquals(0.5, compact.edgeWeight(0, 1), 0.0);
+        assertTrue(Double.isInfinite(compact.edgeWeight(1, 0)));
+    }
+
+    @Test
+    public void TestSymmetric() {
+        Graph<String, Double> graph = new Graph<String, Double>();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addEdge(2.0, "a", "b");
+        assertFalse(new CompactGraph<String>(graph).isSymmetric());
+        graph.addEdge(3.0, "b", "a");
+        assertFalse(new CompactGraph<String>(graph).isSymmetric());
+        graph.addEdge(2.0, "b", "a");
+        graph.addEdge(3.0, "a", "b");
+        assertTrue(new CompactGraph<String>(graph).isSymmetric());
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import graphStructures.ContractionHierarchy;
+import graphStructures.Graph;
+
+public class ContractionHierarchyTest {
+
+    @Test
+    public void TestFindPath() {
+        ContractionHierarchy<String> hierarchy =
+                new ContractionHierarchy<String>(GraphFixtures.example());
+        assertEquals("[b(1.0), c(1.0), d(1.0)]", hierarchy.findPath("a", "d").toString());
+        assertEquals("[c(1.0), b(1.0), a(1.0)]", hierarchy.findPath("d", "a").toString());
+        assertEquals("[c(1.0)]", hierarchy.findPath("b", "c").toString());
+    }
+
+    @Test
+    public void TestSameNodeAndUnreachable() {
+        ContractionHierarchy<String> hierarchy =
+                new ContractionHierarchy<String>(GraphFixtures.example());
+        assertTrue(hierarchy.findPath("b", "b").isEmpty());
+        assertNull(hierarchy.findPath("a", "e"));
+        assertNull(hierarchy.findPath("e", "a"));
+    }
+
+    @Test
+    public void TestSaveAndLoad() throws IOException {
+        Graph<String, Double> graph = GraphFixtures.example();
+        ContractionHierarchy<String> hierarchy = new ContractionHierarchy<String>(graph);
+        File file = File.createTempFile("hierarchy", ".ch");
+        file.deleteOnExit();
+        hierarchy.save(file.getPath());
+        ContractionHierarchy<String> loaded = ContractionHierarchy.load(graph, file.getPath());
+        assertEquals(hierarchy.numArcs(), loaded.numArcs());
+        assertEquals(hierarchy.findPath("a", "d"), loaded.findPath("a", "d"));
+        assertEquals(hierarchy.findPath("d", "a"), loaded.findPath("d", "a"));
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadDifferentGraph() throws IOException {
+        Graph<String, Double> graph = GraphFixtures.example();
+        File file = File.createTempFile("hierarchy", ".ch");
+        file.deleteOnExit();
+        new ContractionHierarchy<String>(graph).save(file.getPath());
+        graph.addNode("f");
+        ContractionHierarchy.load(graph, file.getPath());
+    }
+}
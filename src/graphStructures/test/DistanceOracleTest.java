@@ -0,0 +1,80 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import graphStructures.DistanceOracle;
+import graphStructures.Graph;
+
+public class DistanceOracleTest {
+
+    // Checks that the oracle gives a distance between the true distance and the stretch times
+    // it for every pair of nodes, and infinity exactly for the pairs with no path.
+    private static void checkStretch(DistanceOracle<Integer> oracle) {
+        GraphFixtures.checkAllPairs(oracle.getGraph(), (u, v, distance) -> {
+            double estimate = oracle.distance(u, v);
+            if (distance == Double.POSITIVE_INFINITY) {
+                assertEquals(Double.POSITIVE_INFINITY, estimate, 0.0);
+            } else {
+                assertTrue(estimate >= distance - 1e-9);
+                assertTrue(estimate <= oracle.getStretch() * distance + 1e-9);
+            }
+        });
+    }
+
+    @Test
+    public void TestStretchIsBounded() {
+        Graph<Integer, Double> graph = GraphFixtures.undirected(120, 150, 3);
+        for (int k = 1; k <= 4; k++) {
+            DistanceOracle<Integer> oracle = new DistanceOracle<Integer>(graph, k, k);
+            assertEquals(2 * k - 1, oracle.getStretch());
+            checkStretch(oracle);
+        }
+    }
+
+    @Test
+    public void TestExactWithStretchOne() {
+        Graph<Integer, Double> graph = GraphFixtures.undirected(50, 80, 5);
+        DistanceOracle<Integer> oracle = new DistanceOracle<Integer>(graph, 1);
+        GraphFixtures.checkAllPairs(oracle.getGraph(), (u, v, distance) ->
+                assertEquals(distance, oracle.distance(Integer.valueOf(u), Integer.valueOf(v)),
+                        1e-9));
+    }
+
+    @Test
+    public void TestLargerStretchUsesLessSpace() {
+        Graph<Integer, Double> graph = GraphFixtures.undirected(1000, 3000, 7);
+        DistanceOracle<Integer> exact = new DistanceOracle<Integer>(graph, 1);
+        DistanceOracle<Integer> oracle = new DistanceOracle<Integer>(graph, 3);
+        assertTrue(oracle.numEntries() * 10 < exact.numEntries());
+        assertTrue(oracle.bytes() < exact.bytes());
+        assertEquals(oracle.numEntries() / 1000.0, oracle.averageBunchSize(), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestDirectedGraph() {
+        Graph<Integer, Double> graph = new Graph<Integer, Double>();
+        graph.addNode(0);
+        graph.addNode(1);
+        graph.addEdge(1.0, 0, 1);
+        new DistanceOracle<Integer>(graph, 2);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import graphStructures.CompactGraph;
+import graphStructures.DoubleGraph;
+
+public class DoubleGraphTest {
+
+    @Test
+    public void TestAddNode() {
+        DoubleGraph<String> graph = new DoubleGraph<String>();
+        assertEquals(0, graph.addNode("b"));
+        assertEquals(1, graph.addNode("a"));
+        assertEquals(0, graph.addNode("b"));
+        assertEquals(2, graph.numNodes());
+        assertEquals(1, graph.id("a"));
+        assertEquals(-1, graph.id("c"));
+        assertEquals("b", graph.node(0));
+    }
+
+    @Test
+    public void TestAddEdges() {
+        DoubleGraph<String> graph = new DoubleGraph<String>();
+        for (int i = 0; i < 20; i++) {
+            graph.addNode("n" + i);
+        }
+        for (int i = 1; i < 20; i++) {
+            graph.addEdge(i, "n0", "n" + i);
+        }
+        graph.addEdge(3.0, "n0", "n3");
+        graph.addEdge(4.0, "n0", "n3");
+        assertEquals(20, graph.numEdges());
+        assertEquals(20, graph.degree(0));
+        assertEquals(0, graph.degree(1));
+        assertEquals(5, graph.target(0, 4));
+        assertEquals(5.0, graph.weight(0, 4), 0.0);
+    }
+
+    @Test
+    public void TestDeleteEdge() {
+        DoubleGraph<String> graph = new DoubleGraph<String>();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addNode("c");
+        graph.addEdge(1.0, "a", "b");
+        graph.addEdge(2.0, "a", "c");
+        graph.deleteEdge(1.0, "a", "b");
+        assertEquals(1, graph.numEdges());
+        assertEquals(1, graph.degree(0));
+        assertEquals(2, graph.target(0, 0));
+        assertEquals(2.0, graph.weight(0, 0), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void TestDeleteMissingEdge() {
+        DoubleGraph<String> graph = new DoubleGraph<String>();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.deleteEdge(1.0, "a", "b");
+    }
+
+    @Test
+    public void TestCompactGraph() {
+        DoubleGraph<String> graph = new DoubleGraph<String>();
+        graph.addNode("c");
+        graph.addNode("b");
+        graph.addNode("a");
+        graph.addEdge(4.0, "a", "c");
+        graph.addEdge(3.0, "a", "b");
+        graph.addEdge(2.0, "a", "b");
+        graph.addEdge(1.0, "c", "a");
+        CompactGraph<String> compact = new CompactGraph<String>(graph);
+        assertEquals(3, compact.numNodes());
+        assertEquals(4, compact.numEdges());
+        assertEquals("a", compact.node(0));
+        int a = compact.id("a");
+        assertEquals(3, compact.endEdge(a) - compact.firstEdge(a));
+        assertEquals(1, compact.target(compact.firstEdge(a)));
+        assertEquals(2.0, compact.weight(compact.firstEdge(a)), 0.0);
+        assertEquals(3.0, compact.weight(compact.firstEdge(a) + 1), 0.0);
+        assertEquals(2, compact.target(compact.firstEdge(a) + 2));
+        assertEquals(1.0, compact.edgeWeight(compact.id("c"), a), 0.0);
+        assertEquals(1, compact.endReverseEdge(a) - compact.firstReverseEdge(a));
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+import graphStructures.ShortestPathSearch;
+
+final class GraphFixtures {
+    // Graphs and checks shared by the tests of the search and speedup classes.
+
+    // A check of the pair of nodes source and target against the length of a shortest path
+    // between them, or Double.POSITIVE_INFINITY if there is none.
+    interface PairCheck {
+        void check(int source, int target, double distance);
+    }
+
+    private GraphFixtures() {
+    }
+
+    // Returns a graph of the nodes a through e, where e is unreachable and the shortest path
+    // from a to d is a, b, c, d.
+    static Graph<String, Double> example() {
+        Graph<String, Double> graph = new Graph<String, Double>();
+        for (String node : new String[] {"a", "b", "c", "d", "e"}) {
+            graph.addNode(node);
+        }
+        addBoth(graph, 1.0, "a", "b");
+        addBoth(graph, 1.0, "b", "c");
+        addBoth(graph, 3.0, "a", "c");
+        addBoth(graph, 1.0, "c", "d");
+        addBoth(graph, 5.0, "b", "d");
+        return graph;
+    }
+
+    // Adds an edge of the given label from a to b and another from b to a to graph.
+    static void addBoth(Graph<String, Double> graph, double label, String a, String b) {
+        graph.addEdge(label, a, b);
+        graph.addEdge(label, b, a);
+    }
+
+    // Returns a random directed graph of the given number of nodes, numbered from 0, with
+    // edges of integer weights below 10, some of which may not reach each other.
+    static Graph<Integer, Double> directed(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer, Double> graph = new Graph<Integer, Double>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            double weight = random.nextInt(10);
+            graph.addEdge(weight, random.nextInt(nodes), random.nextInt(nodes));
+        }
+        return graph;
+    }
+
+    // Returns a random undirected graph of the given number of nodes, numbered from 0, with each
+    // edge of an integer weight below 10 added both ways, whose nodes may not all be connected.
+    static Graph<Integer, Double> undirected(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        Graph<Integer, Double> graph = new Graph<Integer, Double>();
+        for (int i = 0; i < nodes; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges; i++) {
+            double weight = random.nextInt(10);
+            int a = random.nextInt(nodes);
+            int b = random.nextInt(nodes);
+            graph.addEdge(weight, a, b);
+            graph.addEdge(weight, b, a);
+        }
+        return graph;
+    }
+
+    // Runs check on every ordered pair of nodes of graph with the distance Dijkstra's algorithm
+    // finds between them.
+    static void checkAllPairs(CompactGraph<Integer> graph, PairCheck check) {
+        int n = graph.numNodes();
+        ShortestPathSearch<Integer> search = new ShortestPathSearch<Integer>(graph);
+        double[] distances = new double[n];
+        int[] parents = new int[n];
+        for (int source = 0; source < n; source++) {
+            search.findTree(source, false, distances, parents);
+            for (int target = 0; target < n; target++) {
+                check.check(source, target, distances[target]);
+            }
+        }
+    }
+
+    // Checks that path is a shortest path of graph from source to target of the given length,
+    // or null when the length is Double.POSITIVE_INFINITY.
+    static void checkPath(CompactGraph<Integer> graph, int source, int target, double distance,
+            int[] path) {
+        if (distance == Double.POSITIVE_INFINITY) {
+            assertNull(path);
+            return;
+        }
+        assertEquals(source, path[0]);
+        assertEquals(target, path[path.length - 1]);
+        double length = 0.0;
+        for (int i = 1; i < path.length; i++) {
+            length += graph.edgeWeight(path[i - 1], path[i]);
+        }
+        assertEquals(distance, length, 1e-9);
+    }
+}
@@ -89,5 +89,33 @@ public class GraphTest {
         assertFalse(graph.isDirectlyConnected("test12", "test11"));
         assertFalse(graph.isDirectlyConnected("test10", "test11"));
     }
-    
+
+    @Test
+    public void TestParents() {
+        Graph<String, String> graph = new Graph<String, String>();
+        graph.addNode("test13");
+        graph.addNode("test14");
+        graph.addNode("test15");
+        graph.addEdge("edge7", "test13", "test15");
+        graph.addEdge("edge8", "test14", "test15");
+        assertEquals("[test13(edge7), test14(edge8)]", graph.getParents("test15").toString());
+        assertTrue(graph.getParents("test13").isEmpty());
+        graph.deleteEdge("edge7", "test13", "test15");
+        assertEquals("[test14(edge8)]", graph.getParents("test15").toString());
+    }
+
+    @Test
+    public void TestModificationCount() {
+        Graph<String, String> graph = new Graph<String, String>();
+        long count = graph.getModificationCount();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addNode("a");
+        assertEquals(count + 2, graph.getModificationCount());
+        graph.addEdge("x", "a", "b");
+        graph.deleteEdge("x", "a", "b");
+        assertEquals(count + 4, graph.getModificationCount());
+        graph.numEdges();
+        assertEquals(count + 4, graph.getModificationCount());
+    }
 }
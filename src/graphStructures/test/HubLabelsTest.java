@@ -0,0 +1,145 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graphStructures.CompactGraph;
+import graphStructures.ContractionHierarchy;
+import graphStructures.Graph;
+import graphStructures.HubLabels;
+
+public class HubLabelsTest {
+
+    // Returns the ids of the given number of nodes in ascending order.
+    private static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    // Checks that the labels give the distance Dijkstra's algorithm finds between every pair of
+    // nodes of their graph.
+    private static void checkDistances(HubLabels<Integer> labels) {
+        GraphFixtures.checkAllPairs(labels.getGraph(), (source, target, distance) ->
+                assertEquals(distance, labels.distance(source, target), 1e-9));
+    }
+
+    @Test
+    public void TestDistancesInAnyOrder() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(80, 240, 11));
+        checkDistances(new HubLabels<Integer>(graph, identity(80)));
+        int[] shuffled = identity(80);
+        Random random = new Random(13);
+        for (int i = 79; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+        checkDistances(new HubLabels<Integer>(graph, shuffled));
+    }
+
+    @Test
+    public void TestHierarchyOrderGivesSmallerLabels() {
+        Graph<Integer, Double> graph = GraphFixtures.directed(300, 900, 17);
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(graph);
+        int[] order = new ContractionHierarchy<Integer>(graph).getOrder();
+        HubLabels<Integer> labels = new HubLabels<Integer>(compact, order);
+        checkDistances(labels);
+        HubLabels<Integer> plain = new HubLabels<Integer>(compact, identity(300));
+        assertTrue(labels.numEntries() < plain.numEntries());
+        assertTrue(labels.maxLabelSize() <= labels.numEntries());
+        assertEquals(labels.numEntries() / 600.0, labels.averageLabelSize(), 1e-9);
+        assertTrue(labels.bytes() > 12 * labels.numEntries());
+    }
+
+    @Test
+    public void TestSaveAndLoad() throws IOException {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(50, 150, 19));
+        HubLabels<Integer> labels = new HubLabels<Integer>(graph, identity(50));
+        File file = File.createTempFile("labels", ".hl");
+        file.deleteOnExit();
+        labels.save(file.getPath());
+        HubLabels<Integer> loaded = HubLabels.load(graph, file.getPath());
+        assertEquals(labels.numEntries(), loaded.numEntries());
+        double[] expected = new double[50];
+        double[] actual = new double[50];
+        for (int source = 0; source < 50; source++) {
+            for (int target = 0; target < 50; target++) {
+                expected[target] = labels.distance(source, target);
+                actual[target] = loaded.distance(source, target);
+            }
+            assertArrayEquals(expected, actual, 0.0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadDifferentGraph() throws IOException {
+        Graph<Integer, Double> graph = GraphFixtures.directed(20, 40, 23);
+        File file = File.createTempFile("labels", ".hl");
+        file.deleteOnExit();
+        new HubLabels<Integer>(new CompactGraph<Integer>(graph), identity(20)).save(file.getPath());
+        graph.addNode(20);
+        HubLabels.load(new CompactGraph<Integer>(graph), file.getPath());
+    }
+
+    // Saves the labels of a random graph of 20 nodes in identity order, overwrites the int at
+    // the given position from the start of the order with value, and loads the file.
+    private static void loadCorrupted(int position, int value) throws IOException {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(20, 40, 23));
+        File file = File.createTempFile("corrupt", ".hl");
+        file.deleteOnExit();
+        new HubLabels<Integer>(graph, identity(20)).save(file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(16 + position);
+            raf.writeInt(value);
+        }
+        HubLabels.load(graph, file.getPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadOrderNotPermutation() throws IOException {
+        loadCorrupted(4, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadDecreasingOffsets() throws IOException {
+        // The out offsets come right after the 20 nodes of the order.
+        loadCorrupted(4 * 20 + 4, -1);
+    }
+
+    @Test(expected = IOException.class)
+    public void TestLoadHubOutOfRange() throws IOException {
+        // The first out hub comes right after the 21 out offsets.
+        loadCorrupted(4 * 20 + 4 * 21, 20);
+    }
+}
@@ -29,7 +29,10 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 
 @RunWith(Suite.class)
-@SuiteClasses({ CheckAsserts.class, GraphNodeTest.class, GraphTest.class /* list classes here */ })
+@SuiteClasses({ CheckAsserts.class, GraphNodeTest.class, GraphTest.class, ContractionHierarchyTest.class,
+                CompactGraphTest.class, ShortestPathSearchTest.class, DoubleGraphTest.class,
+                NodeQueueTest.class, LandmarksTest.class, HubLabelsTest.class, ArcFlagsTest.class,
+                MultiLevelOverlayTest.class, DistanceOracleTest.class /* list classes here */ })
 public final class ImplementationTests
 {
   //this class is a placeholder for the suite, so it has no members.
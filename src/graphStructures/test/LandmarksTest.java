@@ -0,0 +1,85 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import graphStructures.CompactGraph;
+import graphStructures.Landmarks;
+import graphStructures.ShortestPathSearch;
+
+public class LandmarksTest {
+
+    @Test
+    public void TestLowerBoundNeverOverestimates() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(60, 150, 3));
+        Landmarks<Integer> landmarks = new Landmarks<Integer>(graph, 5);
+        GraphFixtures.checkAllPairs(graph, (source, target, distance) -> {
+            assertTrue(landmarks.lowerBound(source, target) <= distance);
+            assertEquals(0.0, landmarks.lowerBound(target, target), 0.0);
+        });
+    }
+
+    @Test
+    public void TestDistancesAndChoice() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(40, 120, 5));
+        Landmarks<Integer> landmarks = new Landmarks<Integer>(graph, 6);
+        assertEquals(6, landmarks.size());
+        ShortestPathSearch<Integer> search = new ShortestPathSearch<Integer>(graph);
+        double[] distances = new double[40];
+        int[] parents = new int[40];
+        for (int i = 0; i < landmarks.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                assertNotEquals(landmarks.getLandmark(j), landmarks.getLandmark(i));
+            }
+            search.findTree(landmarks.getLandmark(i), false, distances, parents);
+            for (int v = 0; v < 40; v++) {
+                assertEquals(distances[v], landmarks.fromLandmark(i, v), 0.0);
+            }
+            search.findTree(landmarks.getLandmark(i), true, distances, parents);
+            for (int v = 0; v < 40; v++) {
+                assertEquals(distances[v], landmarks.toLandmark(i, v), 0.0);
+            }
+        }
+        assertEquals(40, new Landmarks<Integer>(graph, 100).size());
+    }
+
+    @Test
+    public void TestAStarWithLandmarks() {
+        CompactGraph<Integer> graph =
+                new CompactGraph<Integer>(GraphFixtures.directed(200, 800, 7));
+        Landmarks<Integer> landmarks = new Landmarks<Integer>(graph, 8);
+        ShortestPathSearch<Integer> search = new ShortestPathSearch<Integer>(graph);
+        double[] distances = new double[200];
+        int[] parents = new int[200];
+        for (int source = 0; source < 200; source += 7) {
+            search.findTree(source, false, distances, parents);
+            for (int target = 0; target < 200; target += 11) {
+                int goal = target;
+                int[] path =
+                        search.findPath(source, target, node -> landmarks.lowerBound(node, goal));
+                GraphFixtures.checkPath(graph, source, target, distances[target], path);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import graphStructures.CompactGraph;
+import graphStructures.Graph;
+import graphStructures.MultiLevelOverlay;
+
+public class MultiLevelOverlayTest {
+
+    // Returns a random three-level partition of the given number of nodes into 12, 4, and 2
+    // nested cells.
+    private static int[][] makeCells(int nodes, long seed) {
+        Random random = new Random(seed);
+        int[][] cells = new int[3][nodes];
+        for (int v = 0; v < nodes; v++) {
+            cells[0][v] = random.nextInt(12);
+            cells[1][v] = cells[0][v] / 3;
+            cells[2][v] = cells[0][v] / 6;
+        }
+        return cells;
+    }
+
+    // Checks that the overlay finds a shortest path of its graph between every pair of nodes,
+    // or none when there is none.
+    private static void checkPaths(MultiLevelOverlay<Integer> overlay) {
+        CompactGraph<Integer> graph = overlay.getGraph();
+        GraphFixtures.checkAllPairs(graph, (source, target, distance) ->
+                GraphFixtures.checkPath(graph, source, target, distance,
+                        overlay.findPath(source, target)));
+    }
+
+    @Test
+    public void TestPathsAreShortest() {
+        CompactGraph<Integer> graph = new CompactGraph<Integer>(GraphFixtures.directed(90, 270, 3));
+        MultiLevelOverlay<Integer> overlay =
+                new MultiLevelOverlay<Integer>(graph, makeCells(90, 5));
+        assertEquals(3, overlay.numLevels());
+        assertEquals(12 + 4 + 2, overlay.getCustomizedCount());
+        assertTrue(overlay.numBoundaryNodes(2) <= overlay.numBoundaryNodes(0));
+        checkPaths(overlay);
+    }
+
+    @Test
+    public void TestNoLevels() {
+        CompactGraph<Integer> graph = new CompactGraph<Integer>(GraphFixtures.directed(40, 100, 7));
+        checkPaths(new MultiLevelOverlay<Integer>(graph, new int[0][]));
+    }
+
+    @Test
+    public void TestCustomizeRecomputesChangedCells() {
+        Graph<Integer, Double> graph = GraphFixtures.directed(90, 270, 9);
+        int[][] cells = makeCells(90, 11);
+        MultiLevelOverlay<Integer> overlay =
+                new MultiLevelOverlay<Integer>(new CompactGraph<Integer>(graph), cells);
+        MultiLevelOverlay<Integer> same = overlay.customize(new CompactGraph<Integer>(graph));
+        assertEquals(0, same.getCustomizedCount());
+        checkPaths(same);
+
+        // Close every path out of node 0 and open a long one from node 2 to node 1.
+        CompactGraph<Integer> old = overlay.getGraph();
+        for (int e = old.firstEdge(0); e < old.endEdge(0); e++) {
+            graph.deleteEdge(old.weight(e), 0, old.node(old.target(e)));
+        }
+        graph.addEdge(100.0, 2, 1);
+        MultiLevelOverlay<Integer> customized = overlay.customize(new CompactGraph<Integer>(graph));
+        assertTrue(customized.getCustomizedCount() > 0);
+        assertTrue(customized.getCustomizedCount() < overlay.getCustomizedCount());
+        checkPaths(customized);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import graphStructures.NodeQueue;
+import graphStructures.QueueType;
+
+public class NodeQueueTest {
+
+    @Test
+    public void TestAddAndRemove() {
+        for (QueueType type : QueueType.values()) {
+            NodeQueue queue = type.newQueue(5);
+            assertTrue(queue.isEmpty());
+            queue.add(3, 2.5);
+            queue.add(0, 1.0);
+            queue.add(4, 7.0);
+            assertEquals(3, queue.size());
+            assertTrue(queue.contains(4));
+            assertFalse(queue.contains(1));
+            assertEquals(0, queue.peek());
+            assertEquals(1.0, queue.peekKey(), 0.0);
+            assertEquals(0, queue.remove());
+            assertEquals(3, queue.remove());
+            assertEquals(4, queue.remove());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void TestDecreaseKey() {
+        for (QueueType type : QueueType.values()) {
+            NodeQueue queue = type.newQueue(4);
+            queue.add(0, 5.0);
+            queue.add(1, 6.0);
+            queue.add(2, 7.0);
+            queue.decreaseKey(2, 1.0);
+            assertEquals(1.0, queue.key(2), 0.0);
+            assertEquals(2, queue.remove());
+            queue.decreaseKey(1, 4.0);
+            assertEquals(1, queue.remove());
+            assertEquals(0, queue.remove());
+        }
+    }
+
+    @Test
+    public void TestClear() {
+        for (QueueType type : QueueType.values()) {
+            NodeQueue queue = type.newQueue(4);
+            queue.add(1, 3.0);
+            queue.add(2, 4.0);
+            queue.remove();
+            queue.clear();
+            assertTrue(queue.isEmpty());
+            assertFalse(queue.contains(2));
+            queue.add(2, 0.5);
+            queue.add(3, -1.0);
+            assertEquals(3, queue.remove());
+            assertEquals(2, queue.remove());
+        }
+    }
+
+    @Test
+    public void TestRandomMonotoneOperations() {
+        // Keys are never added below the last key removed, so every type of queue must agree
+        // with a scan for the smallest key.
+        for (QueueType type : QueueType.values()) {
+            Random random = new Random(42);
+            int capacity = 200;
+            NodeQueue queue = type.newQueue(capacity);
+            double[] keys = new double[capacity];
+            boolean[] in = new boolean[capacity];
+            double last = 0.0;
+            for (int step = 0; step < 20000; step++) {
+                int node = random.nextInt(capacity);
+                if (random.nextInt(3) == 0 && !queue.isEmpty()) {
+                    int removed = queue.remove();
+                    for (int v = 0; v < capacity; v++) {
+                        assertTrue(!in[v] || keys[v] >= keys[removed]);
+                    }
+                    assertTrue(in[removed]);
+                    in[removed] = false;
+                    last = keys[removed];
+                } else if (in[node]) {
+                    double key = last + (keys[node] - last) * random.nextDouble();
+                    queue.decreaseKey(node, key);
+                    keys[node] = key;
+                } else {
+                    keys[node] = last + 100.0 * random.nextDouble();
+                    queue.add(node, keys[node]);
+                    in[node] = true;
+                }
+                assertEquals(in[node], queue.contains(node));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Dan Tran
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package graphStructures.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import graphStructures.CompactGraph;
+import graphStructures.QueueType;
+import graphStructures.ShortestPathSearch;
+
+public class ShortestPathSearchTest {
+
+    // Returns a snapshot of a graph of the nodes a through e, where e is unreachable and the
+    // shortest path from a to d is a, b, c, d.
+    private static CompactGraph<String> makeGraph() {
+        return new CompactGraph<String>(GraphFixtures.example());
+    }
+
+    @Test
+    public void TestFindPath() {
+        ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, search.findPath(0, 3, null));
+        assertArrayEquals(new int[] {3, 2, 1, 0}, search.findPath(3, 0, null));
+        assertArrayEquals(new int[] {1}, search.findPath(1, 1, null));
+        assertNull(search.findPath(0, 4, null));
+    }
+
+    @Test
+    public void TestFindPathWithHeuristic() {
+        ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph());
+        search.findPath(0, 3, null);
+        int dijkstra = search.getSettledCount();
+        // The exact remaining distance to d is the strongest heuristic there is.
+        double[] remaining = {3.0, 2.0, 1.0, 0.0, Double.POSITIVE_INFINITY};
+        assertArrayEquals(new int[] {0, 1, 2, 3}, search.findPath(0, 3, node -> remaining[node]));
+        assertTrue(search.getSettledCount() <= dijkstra);
+    }
+
+    @Test
+    public void TestFindBidirectionalPath() {
+        ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, search.findBidirectionalPath(0, 3, null));
+        assertArrayEquals(new int[] {3, 2, 1, 0}, search.findBidirectionalPath(3, 0, null));
+        assertArrayEquals(new int[] {2}, search.findBidirectionalPath(2, 2, null));
+        assertNull(search.findBidirectionalPath(4, 0, null));
+    }
+
+    @Test
+    public void TestQueueTypes() {
+        for (QueueType type : QueueType.values()) {
+            ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph(), type);
+            assertArrayEquals(new int[] {0, 1, 2, 3}, search.findPath(0, 3, null));
+            assertArrayEquals(new int[] {3, 2, 1, 0}, search.findBidirectionalPath(3, 0, null));
+            assertNull(search.findPath(4, 0, null));
+            assertArrayEquals(new int[] {0, 1, 2, 3}, search.findPath(0, 3, null));
+        }
+    }
+
+    @Test
+    public void TestFindTree() {
+        ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph());
+        double[] distances = new double[5];
+        int[] parents = new int[5];
+        search.findTree(0, false, distances, parents);
+        assertArrayEquals(new double[] {0.0, 1.0, 2.0, 3.0, Double.POSITIVE_INFINITY}, distances, 0.0);
+        assertArrayEquals(new int[] {-1, 0, 1, 2, -1}, parents);
+        search.findTree(3, true, distances, parents);
+        assertArrayEquals(new double[] {3.0, 2.0, 1.0, 0.0, Double.POSITIVE_INFINITY}, distances, 0.0);
+        assertArrayEquals(new int[] {1, 2, 3, -1, -1}, parents);
+        assertEquals(4, search.getSettledCount());
+    }
+
+    @Test
+    public void TestFindDistances() {
+        ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph());
+        double[] distances = new double[4];
+        search.findDistances(0, new int[] {2, 4, 0, 2}, distances);
+        assertArrayEquals(new double[] {2.0, Double.POSITIVE_INFINITY, 0.0, 2.0}, distances, 0.0);
+        search.findDistances(0, new int[] {1}, distances);
+        assertEquals(1.0, distances[0], 0.0);
+        assertEquals(2, search.getSettledCount());
+    }
+
+    @Test
+    public void TestFindPathBetweenSets() {
+        ShortestPathSearch<String> search = new ShortestPathSearch<String>(makeGraph());
+        // Starting at b costs more than starting at a and walking to b.
+        assertArrayEquals(new int[] {0, 1, 2}, search.findPath(new int[] {0, 1}, new double[] {0.0, 5.0},
+                                                               new int[] {2, 3}, new double[] {0.5, 0.0}));
+        assertArrayEquals(new int[] {1, 2, 3}, search.findPath(new int[] {0, 1}, new double[] {2.0, 0.0},
+                                                               new int[] {2, 3}, new double[] {2.0, 0.0}));
+        assertArrayEquals(new int[] {2}, search.findPath(new int[] {2}, new double[] {1.0},
+                                                         new int[] {2}, new double[] {1.0}));
+        assertNull(search.findPath(new int[] {0}, new double[] {0.0}, new int[] {4}, new double[] {0.0}));
+    }
+}
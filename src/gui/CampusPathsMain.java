@@ -22,6 +22,7 @@ import java.awt.Image;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.util.Map;
 
 import javax.swing.JButton;
@@ -31,6 +32,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.WindowConstants;
 
+import cli.BinaryMap;
 import cli.Building;
 import cli.CampusMap;
 import cli.DataParser;
@@ -39,8 +41,19 @@ import cli.DataParser.MalformedDataException;
 public class CampusPathsMain {
 
     public static void main(String[] args) {
-        CampusMap campusMap = new CampusMap("src/cli/data/campus_paths.dat");
-        Map<String, Building> buildings = getBuildings("src/cli/data/campus_buildings.dat");
+        CampusMap campusMap;
+        Map<String, Building> buildings;
+        if (args.length > 0) {
+            // A binary map file written by BinaryMap skips parsing the text data files.
+            BinaryMap map = getBinaryMap(args[0]);
+            campusMap = map.getCampusMap();
+            buildings = map.getBuildings();
+        } else {
+            campusMap = new CampusMap("src/cli/data/campus_paths.dat");
+            buildings = getBuildings("src/cli/data/campus_buildings.dat");
+        }
+        // Routes between buildings are looked up rather than searched for.
+        campusMap.precomputeRoutes(buildings.values());
         String[] buildinglist = new String[buildings.size()];
         buildings.keySet().toArray(buildinglist);
 
@@ -107,6 +120,15 @@ public class CampusPathsMain {
         frame.setVisible(true);
     }
 
+    private static BinaryMap getBinaryMap(String filename) {
+        try {
+            return BinaryMap.load(filename);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new IllegalArgumentException();
+        }
+    }
+
     private static Map<String, Building> getBuildings(String filename) {
         try {
             return DataParser.parseBuildings(filename);